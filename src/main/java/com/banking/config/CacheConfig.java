@@ -1,48 +1,92 @@
 package com.banking.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 缓存配置
- * 
+ * 每种缓存值类型使用独立的缓存空间，各自配置容量和过期时间
+ *
  * @author Kongloih Zhang F
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    
+
+    /**
+     * 交易实体缓存：ID -> Optional&lt;Transaction&gt;（Repository层）
+     */
+    public static final String TRANSACTION_ENTITIES = "transactionEntities";
+
+    /**
+     * 交易响应缓存：ID -> TransactionResponse（Service层）
+     */
+    public static final String TRANSACTION_RESPONSES = "transactionResponses";
+
+    /**
+     * 账户交易列表缓存：账户号码 -> List&lt;TransactionResponse&gt;（Service层）
+     */
+    public static final String ACCOUNT_TRANSACTIONS = "accountTransactions";
+
     /**
      * 配置Caffeine缓存管理器
-     * 
+     * 各缓存的Caffeine规格（如 maximumSize=10000,expireAfterWrite=30m,recordStats）可通过配置覆盖
+     * 每个缓存都包装为 {@link SingleFlightCache}，合并并发未命中并在临近过期时提前刷新
+     *
      * @return 缓存管理器
      */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                // 最大缓存条目数
-                .maximumSize(1000)
-                // 写入后过期时间
-                .expireAfterWrite(30, TimeUnit.MINUTES)
-                // 访问后过期时间
-                .expireAfterAccess(10, TimeUnit.MINUTES)
-                // 初始缓存空间大小
-                .initialCapacity(100)
-                // 开启统计
-                .recordStats()
-        );
-        
-        // 设置缓存名称
-        cacheManager.setCacheNames(java.util.Arrays.asList("transactions"));
-        
+    public CacheManager cacheManager(
+            MeterRegistry meterRegistry,
+            @Value("${banking.cache.refresh-ahead-ratio:0.8}") double refreshAheadRatio,
+            @Value("${banking.cache.transaction-entities.spec:initialCapacity=100,maximumSize=10000,expireAfterWrite=10m,recordStats}")
+            String entitySpec,
+            @Value("${banking.cache.transaction-responses.spec:initialCapacity=100,maximumSize=10000,expireAfterWrite=30m,expireAfterAccess=10m,recordStats}")
+            String responseSpec,
+            @Value("${banking.cache.account-transactions.spec:maximumSize=500,expireAfterWrite=5m,recordStats}")
+            String accountSpec) {
+        ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name,
+                                               com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                CaffeineCache caffeineCache = (CaffeineCache) super.adaptCaffeineCache(name, cache);
+                return new SingleFlightCache(caffeineCache, refreshAheadRatio, refreshExecutor, meterRegistry);
+            }
+        };
+
+        // 只允许使用下面注册的缓存，避免拼写错误时静默创建默认缓存
+        cacheManager.setCacheNames(Collections.emptyList());
+
+        cacheManager.registerCustomCache(TRANSACTION_ENTITIES, Caffeine.from(entitySpec).build());
+        cacheManager.registerCustomCache(TRANSACTION_RESPONSES, Caffeine.from(responseSpec).build());
+        cacheManager.registerCustomCache(ACCOUNT_TRANSACTIONS, Caffeine.from(accountSpec).build());
+
         return cacheManager;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 为 {@link SingleFlightCache} 绑定Caffeine统计指标（cache.gets hit/miss、cache.evictions、cache.size等）
+     * Spring Boot只识别未包装的CaffeineCache，包装后的缓存需要单独提供绑定方式
+     *
+     * @return 缓存指标绑定器
+     */
+    @Bean
+    public CacheMeterBinderProvider<SingleFlightCache> singleFlightCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNativeCache(), cache.getName(), tags);
+    }
+}
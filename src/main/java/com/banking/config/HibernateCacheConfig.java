@@ -0,0 +1,77 @@
+package com.banking.config;
+
+import com.banking.model.Transaction;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate二级缓存和查询缓存配置
+ * 缓存区域是Caffeine实现的JCache缓存，在这里按配置的容量和过期时间预先创建，
+ * Hibernate遇到未创建的区域时启动失败（missing_cache_strategy=fail），避免区域名拼写错误时静默使用默认配置
+ *
+ * @author Kongloih Zhang F
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    /**
+     * 二级缓存区域的JCache缓存管理器
+     * 每个应用上下文使用独立的URI，同一JVM中的多个上下文（如连接不同数据库的测试上下文）不共享缓存区域
+     *
+     * @return JCache缓存管理器
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${banking.l2cache.transactions.maximum-size:10000}") long entityMaximumSize,
+            @Value("${banking.l2cache.transactions.expire-after-write:30m}") Duration entityExpireAfterWrite,
+            @Value("${banking.l2cache.queries.maximum-size:1000}") long queryMaximumSize,
+            @Value("${banking.l2cache.queries.expire-after-write:5m}") Duration queryExpireAfterWrite) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        cacheManager.createCache(Transaction.CACHE_REGION, region(entityMaximumSize, entityExpireAfterWrite));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(queryMaximumSize, queryExpireAfterWrite));
+        // 表的最后修改时间，查询缓存据此判断结果是否过期，不能被淘汰
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(null, null));
+        return cacheManager;
+    }
+
+    /**
+     * 把缓存管理器交给Hibernate的JCache区域工厂
+     *
+     * @param hibernateCacheManager JCache缓存管理器
+     * @return Hibernate属性定制器
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(Long maximumSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate缓存的是不可变的拆解状态，不需要按值复制
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        if (maximumSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        if (expireAfterWrite != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        }
+        return configuration;
+    }
+}
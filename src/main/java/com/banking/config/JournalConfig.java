@@ -0,0 +1,72 @@
+package com.banking.config;
+
+import com.banking.journal.JournalProjector;
+import com.banking.journal.JournaledTransactionStore;
+import com.banking.journal.TransactionJournal;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * 交易日志配置
+ * banking.repository.mode=journal 时启用：日志为交易的权威存储，transactions 表作为异步维护的投影
+ *
+ * @author Kongloih Zhang F
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.repository.mode", havingValue = "journal")
+public class JournalConfig {
+
+    /**
+     * 内存映射日志
+     *
+     * @return 交易日志
+     */
+    @Bean
+    public TransactionJournal transactionJournal(
+            @Value("${banking.journal.directory:data/journal}") Path directory,
+            @Value("${banking.journal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${banking.journal.fsync-batch-size:64}") int fsyncBatchSize,
+            @Value("${banking.journal.fsync-interval-ms:10}") long fsyncIntervalMillis) {
+        return new TransactionJournal(directory, Math.toIntExact(segmentSize.toBytes()), fsyncBatchSize, fsyncIntervalMillis);
+    }
+
+    /**
+     * 数据库投影，依赖实体管理器工厂以保证表结构已创建，并通过它清除投影写入涉及的二级缓存
+     *
+     * @return 日志投影器
+     */
+    @Bean
+    public JournalProjector journalProjector(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory,
+            MeterRegistry meterRegistry,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        return new JournalProjector(jdbcTemplate, new TransactionTemplate(transactionManager),
+                entityManagerFactory.getCache().unwrap(Cache.class), batchSize, meterRegistry);
+    }
+
+    /**
+     * 以日志为准的交易存储，创建时回放日志
+     *
+     * @return 交易存储
+     */
+    @Bean
+    public JournaledTransactionStore journaledTransactionStore(TransactionJournal transactionJournal,
+                                                               JournalProjector journalProjector) {
+        JournaledTransactionStore store = new JournaledTransactionStore(transactionJournal, journalProjector);
+        store.recover();
+        return store;
+    }
+}
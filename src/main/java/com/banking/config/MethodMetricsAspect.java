@@ -0,0 +1,115 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务层和数据访问层方法的耗时与返回行数指标
+ * <ul>
+ *   <li>banking.method：每个公共方法的耗时，标签 layer/class/method/exception，直方图在配置中开启</li>
+ *   <li>banking.repository.rows：数据访问方法返回的行数（集合大小，Optional按0/1计）</li>
+ * </ul>
+ * 切面优先级最高，计时包含缓存和事务切面的开销，即调用方实际感受到的耗时；
+ * 返回Stream的方法只计创建游标的耗时。
+ *
+ * @author Kongloih Zhang F
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MethodMetricsAspect {
+
+    static final String METHOD_TIMER = "banking.method";
+
+    static final String REPOSITORY_ROWS = "banking.repository.rows";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 成功调用的计时器按方法缓存，避免每次调用都构建标签
+     */
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    private final Map<Method, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    public MethodMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.banking.service.TransactionService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "service", false);
+    }
+
+    @Around("execution(public * com.banking.repository.TransactionRepository.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "repository", true);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer, boolean countRows) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            timer(method, layer, ex.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+        successTimers.computeIfAbsent(method, m -> timer(m, layer, NO_EXCEPTION))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (countRows) {
+            long rows = rowsOf(result);
+            if (rows >= 0) {
+                rowSummaries.computeIfAbsent(method, m -> DistributionSummary.builder(REPOSITORY_ROWS)
+                                .description("数据访问方法返回的行数")
+                                .baseUnit("rows")
+                                .tag("method", m.getName())
+                                .register(meterRegistry))
+                        .record(rows);
+            }
+        }
+        return result;
+    }
+
+    private Timer timer(Method method, String layer, String exception) {
+        return Timer.builder(METHOD_TIMER)
+                .description("服务层和数据访问层方法耗时")
+                .tag("layer", layer)
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 返回值对应的行数，非查询结果返回-1
+     */
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,277 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 合并并发未命中的缓存装饰器（single-flight）
+ * 同一个键同时只有一个调用方执行加载，其余调用方等待同一个结果；
+ * 条目写入时间超过过期时间的指定比例后，命中时在后台提前刷新（refresh-ahead）
+ * 仅作用于 {@code @Cacheable(sync = true)} 使用的 {@link #get(Object, Callable)}
+ *
+ * @author Kongloih Zhang F
+ */
+public class SingleFlightCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightCache.class);
+
+    private final CaffeineCache delegate;
+    private final double refreshAheadRatio;
+    private final Executor refreshExecutor;
+
+    /**
+     * 正在进行的加载：键 -> 加载结果
+     */
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter loads;
+    private final Counter coalesced;
+    private final Counter refreshAhead;
+    private final Counter refreshFailures;
+    private final Counter clears;
+    private final Timer loadLatency;
+
+    /**
+     * @param delegate 被装饰的Caffeine缓存
+     * @param refreshAheadRatio 提前刷新阈值（写入时长 / expireAfterWrite），不小于1时关闭提前刷新
+     * @param refreshExecutor 执行提前刷新的线程池
+     * @param meterRegistry 指标注册表
+     */
+    public SingleFlightCache(CaffeineCache delegate, double refreshAheadRatio, Executor refreshExecutor,
+                             MeterRegistry meterRegistry) {
+        if (refreshAheadRatio <= 0) {
+            throw new IllegalArgumentException("提前刷新比例必须大于0");
+        }
+        this.delegate = delegate;
+        this.refreshAheadRatio = refreshAheadRatio;
+        this.refreshExecutor = refreshExecutor;
+
+        String name = delegate.getName();
+        this.loads = Counter.builder("cache.loads")
+                .description("缓存未命中后实际执行的加载次数")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("cache.coalesced")
+                .description("等待其他调用方加载结果而被合并的调用次数")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.refreshAhead = Counter.builder("cache.refresh.ahead")
+                .description("临近过期时触发的后台刷新次数")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.refreshFailures = Counter.builder("cache.refresh.ahead.failures")
+                .description("后台刷新失败次数（保留旧值）")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.clears = Counter.builder("cache.clears")
+                .description("整个缓存被清空的次数（allEntries失效），短时间内激增即失效风暴")
+                .tag("cache", name)
+                .register(meterRegistry);
+        // 加载不经过Caffeine的loader，Caffeine统计中的cache.load.duration不包含这里的加载
+        this.loadLatency = Timer.builder("cache.load.latency")
+                .description("未命中加载和提前刷新的实际耗时")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            refreshIfAging(key, valueLoader);
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) await(key, valueLoader, existing);
+        }
+
+        // 抢到加载权后再查一次，避免上一个加载者刚写入缓存时重复加载；
+        // 这次复查不计入命中率统计，否则一次真实未命中会被记成两次
+        Object present = getNativeCache().policy().getIfPresentQuietly(key);
+        if (present != null) {
+            Object value = present == NullValue.INSTANCE ? null : present;
+            inFlight.remove(key, flight);
+            flight.complete(value);
+            return (T) value;
+        }
+        load(key, valueLoader, flight);
+        return (T) await(key, valueLoader, flight);
+    }
+
+    @Override
+    @Nullable
+    public CompletableFuture<?> retrieve(Object key) {
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return delegate.retrieve(key, valueLoader);
+    }
+
+    /**
+     * 写入会使同一键上正在进行的加载失效，防止旧结果在写入之后覆盖新值
+     */
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        inFlight.remove(key);
+        delegate.put(key, value);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    /**
+     * 先摘除正在进行的加载再失效缓存，保证失效之后不会有旧加载结果写回
+     */
+    @Override
+    public void evict(Object key) {
+        inFlight.remove(key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        inFlight.remove(key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        clears.increment();
+        inFlight.clear();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        clears.increment();
+        inFlight.clear();
+        return delegate.invalidate();
+    }
+
+    /**
+     * 执行加载并在仍持有加载权时写入缓存
+     * 写入在 inFlight 的桶锁内完成，与 {@link #evict(Object)} 的摘除互斥
+     */
+    private void load(Object key, Callable<?> valueLoader, CompletableFuture<Object> flight) {
+        loads.increment();
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Throwable ex) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(ex);
+            return;
+        } finally {
+            loadLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != flight) {
+                return current;
+            }
+            delegate.put(k, value);
+            return null;
+        });
+        flight.complete(value);
+    }
+
+    /**
+     * 命中但临近过期时在后台刷新，刷新期间仍返回旧值
+     */
+    private void refreshIfAging(Object key, Callable<?> valueLoader) {
+        if (refreshAheadRatio >= 1 || !isAging(key)) {
+            return;
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            return;
+        }
+        refreshAhead.increment();
+        flight.whenComplete((value, ex) -> {
+            if (ex != null) {
+                refreshFailures.increment();
+                log.warn("缓存 {} 提前刷新键 {} 失败，保留旧值", getName(), key, ex);
+            }
+        });
+        try {
+            refreshExecutor.execute(() -> load(key, valueLoader, flight));
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(ex);
+        }
+    }
+
+    private boolean isAging(Object key) {
+        return getNativeCache().policy().expireAfterWrite()
+                .flatMap(expiration -> {
+                    Optional<Duration> age = expiration.ageOf(key);
+                    long threshold = (long) (expiration.getExpiresAfter().toNanos() * refreshAheadRatio);
+                    return age.map(value -> value.toNanos() >= threshold);
+                })
+                .orElse(false);
+    }
+
+    /**
+     * 等待加载结果，加载失败时按 {@link Cache#get(Object, Callable)} 约定抛出 {@link ValueRetrievalException}
+     * 原始异常作为cause，由缓存切面还原为业务方法抛出的异常
+     */
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.banking.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * 按键精确失效交易相关缓存
+ * 用于注解无法表达的场景，例如一次写入涉及多个账户，或失效的键只有在读取旧数据后才能确定
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class TransactionCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    public TransactionCacheEvictor(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * 失效单笔交易的实体缓存
+     *
+     * @param id 交易ID
+     */
+    public void evictEntity(Long id) {
+        if (id != null) {
+            cache(CacheConfig.TRANSACTION_ENTITIES).evict(id);
+        }
+    }
+
+    /**
+     * 失效单笔交易的响应缓存
+     *
+     * @param id 交易ID
+     */
+    public void evictResponse(Long id) {
+        if (id != null) {
+            cache(CacheConfig.TRANSACTION_RESPONSES).evict(id);
+        }
+    }
+
+    /**
+     * 失效账户交易列表缓存
+     *
+     * @param accountNumbers 账户号码
+     */
+    public void evictAccounts(Collection<String> accountNumbers) {
+        Cache cache = cache(CacheConfig.ACCOUNT_TRANSACTIONS);
+        for (String accountNumber : accountNumbers) {
+            cache.evict(accountNumber);
+        }
+    }
+
+    /**
+     * 清空全部交易相关缓存（仅用于整表清理）
+     */
+    public void clearAll() {
+        cache(CacheConfig.TRANSACTION_ENTITIES).clear();
+        cache(CacheConfig.TRANSACTION_RESPONSES).clear();
+        cache(CacheConfig.ACCOUNT_TRANSACTIONS).clear();
+    }
+
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("缓存未配置: " + name);
+        }
+        return cache;
+    }
+}
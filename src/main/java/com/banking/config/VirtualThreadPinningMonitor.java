@@ -0,0 +1,113 @@
+package com.banking.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 虚拟线程钉住（pinning）检测
+ * 通过JFR事件流订阅 jdk.VirtualThreadPinned：虚拟线程在synchronized块或本地方法中阻塞超过阈值时，
+ * 载体线程无法被释放。每个事件按最近的应用代码帧计入 jvm.threads.virtual.pinned 计时器，
+ * 每个位置首次出现时打印完整堆栈。仅在 spring.threads.virtual.enabled=true 时启用。
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String APPLICATION_PACKAGE = "com.banking.";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${banking.virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("虚拟线程钉住检测已启动，阈值 {}", threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = siteOf(event.getStackTrace());
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("虚拟线程被钉住在载体线程上的时长，按最近的应用代码位置区分")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        if (reportedSites.add(site)) {
+            log.warn("虚拟线程被钉住 {} ms，位置 {}，堆栈:\n{}",
+                    event.getDuration().toMillis(), site, format(event.getStackTrace()));
+        }
+    }
+
+    /**
+     * 最近的应用代码帧（类名.方法名），没有应用代码帧时取栈顶帧
+     */
+    private static String siteOf(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(APPLICATION_PACKAGE)) {
+                return simpleName(type) + "." + frame.getMethod().getName();
+            }
+        }
+        RecordedFrame top = stackTrace.getFrames().get(0);
+        return simpleName(top.getMethod().getType().getName()) + "." + top.getMethod().getName();
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            builder.append("\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber()).append('\n');
+        }
+        return builder.toString();
+    }
+}
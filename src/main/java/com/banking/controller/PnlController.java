@@ -0,0 +1,83 @@
+package com.banking.controller;
+
+import com.banking.dto.PnlResponse;
+import com.banking.model.CostMethod;
+import com.banking.service.PnlService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 盈亏查询REST API控制器
+ *
+ * @author Kongloih Zhang F
+ */
+@RestController
+@RequestMapping("/api/pnl")
+@Tag(name = "盈亏查询", description = "按先进先出或加权平均口径查询已实现和浮动盈亏")
+public class PnlController {
+
+    private final PnlService pnlService;
+
+    public PnlController(PnlService pnlService) {
+        this.pnlService = pnlService;
+    }
+
+    /**
+     * 查询账户盈亏
+     *
+     * @param accountNumber 账户号码
+     * @param method 成本计算方法：fifo 或 average
+     * @return 盈亏列表
+     */
+    @GetMapping("/{accountNumber}")
+    @Operation(summary = "查询账户盈亏", description = "从批次簿读取未平仓成本和已实现盈亏，按最近上传的价格快照计算浮动盈亏")
+    public ResponseEntity<Map<String, Object>> getPnl(
+            @Parameter(description = "账户号码") @PathVariable String accountNumber,
+            @Parameter(description = "成本计算方法：fifo 或 average") @RequestParam(defaultValue = "fifo") String method) {
+
+        CostMethod costMethod = CostMethod.from(method);
+        List<PnlResponse> pnl = pnlService.getPnl(accountNumber, costMethod);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "获取盈亏成功");
+        result.put("data", pnl);
+        result.put("method", costMethod);
+        result.put("priceTime", pnlService.getPriceTime());
+
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 上传价格快照
+     *
+     * @param prices 股票代码到价格的映射，与已有价格合并
+     * @return 操作结果
+     */
+    @PutMapping("/prices")
+    @Operation(summary = "上传价格快照", description = "按股票代码更新计算浮动盈亏使用的价格，未上传的股票保留原价格")
+    public ResponseEntity<Map<String, Object>> updatePrices(@RequestBody Map<String, BigDecimal> prices) {
+        pnlService.updatePrices(prices);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "价格快照已更新");
+        result.put("priceTime", pnlService.getPriceTime());
+
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,62 @@
+package com.banking.controller;
+
+import com.banking.dto.PositionResponse;
+import com.banking.service.PositionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 持仓查询REST API控制器
+ *
+ * @author Kongloih Zhang F
+ */
+@RestController
+@RequestMapping("/api/positions")
+@Tag(name = "持仓查询", description = "按账户查询股票持仓")
+public class PositionController {
+
+    private final PositionService positionService;
+
+    public PositionController(PositionService positionService) {
+        this.positionService = positionService;
+    }
+
+    /**
+     * 查询账户持仓
+     *
+     * @param accountNumber 账户号码
+     * @param snapshot 是否读取最近一次定时快照
+     * @return 持仓列表
+     */
+    @GetMapping("/{accountNumber}")
+    @Operation(summary = "查询账户持仓", description = "从持仓簿读取账户的净持仓、持仓成本和最近成交时间，不扫描交易")
+    public ResponseEntity<Map<String, Object>> getPositions(
+            @Parameter(description = "账户号码") @PathVariable String accountNumber,
+            @Parameter(description = "是否读取最近一次定时快照") @RequestParam(defaultValue = "false") boolean snapshot) {
+
+        List<PositionResponse> positions = snapshot
+                ? positionService.getSnapshotPositions(accountNumber)
+                : positionService.getPositions(accountNumber);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "获取持仓成功");
+        result.put("data", positions);
+        if (snapshot) {
+            result.put("snapshotTime", positionService.getSnapshotTime());
+        }
+
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,24 +1,41 @@
 package com.banking.controller;
 
+import com.banking.dto.AttributeFilter;
+import com.banking.dto.BatchItemResult;
+import com.banking.dto.CursorPage;
+import com.banking.dto.ExportFormat;
 import com.banking.dto.TransactionRequest;
 import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransactionSearchRequest;
 import com.banking.exception.TransactionNotFoundException;
 import com.banking.exception.DuplicateTransactionException;
+import com.banking.exception.IngestionQueueFullException;
+import com.banking.exception.TransactionVersionConflictException;
 import com.banking.model.TransactionType;
+import com.banking.service.TransactionExportService;
+import com.banking.service.TransactionIngestionService;
 import com.banking.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 交易管理REST API控制器
@@ -31,9 +48,15 @@ import java.util.Map;
 public class TransactionController {
     
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final TransactionIngestionService transactionIngestionService;
     
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 TransactionExportService transactionExportService,
+                                 TransactionIngestionService transactionIngestionService) {
         this.transactionService = transactionService;
+        this.transactionExportService = transactionExportService;
+        this.transactionIngestionService = transactionIngestionService;
     }
     
     /**
@@ -57,14 +80,75 @@ public class TransactionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(result);
     }
     
+    /**
+     * 异步创建交易
+     * 校验通过后放入写入队列立即返回202；wait=true时等待组提交完成后返回201及交易ID
+     * 
+     * @param request 交易请求
+     * @param wait 是否等待写入完成
+     * @return 受理结果或创建的交易响应
+     */
+    @PostMapping("/async")
+    @Operation(summary = "异步创建交易", description = "校验后放入写入队列，由后台按组提交；队列已满时返回429")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createTransactionAsync(
+            @Valid @RequestBody TransactionRequest request,
+            @Parameter(description = "是否等待写入完成并返回交易ID") @RequestParam(defaultValue = "false") boolean wait) {
+        
+        CompletableFuture<TransactionResponse> future = transactionIngestionService.submit(request);
+        
+        if (!wait) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("message", "交易已受理");
+            result.put("queueSize", transactionIngestionService.getQueueSize());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.ACCEPTED).body(result));
+        }
+        
+        return future.thenApply(response -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("message", "交易创建成功");
+            result.put("data", response);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        });
+    }
+    
+    /**
+     * 批量创建交易
+     * 
+     * @param requests 交易请求列表
+     * @return 逐条处理结果
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "批量创建交易", description = "按JDBC批次批量写入股票交易，返回逐条处理结果")
+    public ResponseEntity<Map<String, Object>> createTransactions(
+            @RequestBody List<TransactionRequest> requests) {
+        
+        List<BatchItemResult> results = transactionService.createTransactions(requests);
+        long succeeded = results.stream().filter(BatchItemResult::isSuccess).count();
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "批量交易处理完成");
+        result.put("data", results);
+        result.put("summary", Map.of(
+                "total", results.size(),
+                "succeeded", succeeded,
+                "failed", results.size() - succeeded
+        ));
+        
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * 获取交易详情
+     * 响应头 ETag 为交易的版本号，可作为更新时的 If-Match
      * 
      * @param id 交易ID
      * @return 交易详情
      */
     @GetMapping("/{id}")
-    @Operation(summary = "获取交易详情", description = "根据交易ID获取交易详细信息")
+    @Operation(summary = "获取交易详情", description = "根据交易ID获取交易详细信息，ETag为交易版本号")
     public ResponseEntity<Map<String, Object>> getTransaction(
             @Parameter(description = "交易ID") @PathVariable Long id) {
         
@@ -75,30 +159,59 @@ public class TransactionController {
         result.put("message", "获取交易详情成功");
         result.put("data", response);
         
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok().eTag(Long.toString(response.getVersion())).body(result);
     }
     
     /**
      * 更新交易
+     * 带 If-Match 时按版本号条件更新，不预先读取交易，版本号不一致返回409；
+     * 不带时读取当前交易后更新
      * 
      * @param id 交易ID
+     * @param ifMatch 期望的交易版本号（ETag），可选
      * @param request 交易请求
      * @return 更新后的交易响应
      */
     @PutMapping("/{id}")
-    @Operation(summary = "更新交易", description = "更新指定ID的交易信息")
+    @Operation(summary = "更新交易", description = "更新指定ID的交易信息；If-Match为交易版本号时条件更新，版本不一致返回409")
     public ResponseEntity<Map<String, Object>> updateTransaction(
             @Parameter(description = "交易ID") @PathVariable Long id,
+            @Parameter(description = "期望的交易版本号，例如 \"3\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody TransactionRequest request) {
         
-        TransactionResponse response = transactionService.updateTransaction(id, request);
+        Long expectedVersion = parseVersion(ifMatch);
+        TransactionResponse response = expectedVersion == null
+                ? transactionService.updateTransaction(id, request)
+                : transactionService.updateTransaction(id, request, expectedVersion);
         
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
         result.put("message", "交易更新成功");
         result.put("data", response);
         
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok().eTag(Long.toString(response.getVersion())).body(result);
+    }
+    
+    /**
+     * 解析 If-Match 中的版本号
+     * 
+     * @param ifMatch If-Match 请求头，"*" 或为空表示不做版本检查
+     * @return 版本号，不检查时为null
+     */
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("If-Match必须是交易版本号，例如 \"3\"");
+        }
     }
     
     /**
@@ -123,16 +236,23 @@ public class TransactionController {
     
     /**
      * 获取所有交易（分页）
+     * 传入cursor参数（首页可传空字符串）时使用键集分页，返回nextCursor且不做count查询
      * 
      * @param page 页码（从0开始）
      * @param size 每页大小
+     * @param cursor 键集分页游标
      * @return 交易列表
      */
     @GetMapping
-    @Operation(summary = "获取交易列表", description = "分页获取所有交易列表")
+    @Operation(summary = "获取交易列表", description = "分页获取所有交易列表，支持页码分页和游标(键集)分页")
     public ResponseEntity<Map<String, Object>> getTransactions(
             @Parameter(description = "页码，从0开始") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "游标，来自上一页的nextCursor；首页传空字符串") @RequestParam(required = false) String cursor) {
+        
+        if (cursor != null) {
+            return getTransactionsByCursor(cursor, size);
+        }
         
         List<TransactionResponse> transactions;
         long totalCount = transactionService.getTransactionCount();
@@ -159,6 +279,206 @@ public class TransactionController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * 键集分页获取交易
+     * 
+     * @param cursor 游标
+     * @param size 每页大小
+     * @return 交易列表
+     */
+    private ResponseEntity<Map<String, Object>> getTransactionsByCursor(String cursor, int size) {
+        CursorPage<TransactionResponse> cursorPage = transactionService.getTransactionsAfter(cursor, size);
+        
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("size", size);
+        pagination.put("nextCursor", cursorPage.getNextCursor());
+        pagination.put("hasMore", cursorPage.isHasMore());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "获取交易列表成功");
+        result.put("data", cursorPage.getItems());
+        result.put("pagination", pagination);
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 按描述检索交易
+     * 
+     * @param q 查询文本
+     * @param prefix 是否按前缀匹配最后一个词项
+     * @param cursor 键集分页游标
+     * @param size 每页大小
+     * @return 交易列表
+     */
+    @GetMapping("/search")
+    @Operation(summary = "按描述检索交易", description = "基于内存倒排索引的关键词/前缀检索，结果按时间倒序并以游标(键集)分页")
+    public ResponseEntity<Map<String, Object>> searchTransactions(
+            @Parameter(description = "查询文本，多个词项之间为“且”关系") @RequestParam(required = false) String q,
+            @Parameter(description = "为true时最后一个词项按前缀匹配") @RequestParam(defaultValue = "false") boolean prefix,
+            @Parameter(description = "游标，来自上一页的nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<TransactionResponse> cursorPage = transactionService.searchByDescription(q, prefix, cursor, size);
+        
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("size", size);
+        pagination.put("nextCursor", cursorPage.getNextCursor());
+        pagination.put("hasMore", cursorPage.isHasMore());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "检索交易成功");
+        result.put("data", cursorPage.getItems());
+        result.put("pagination", pagination);
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 按低基数属性组合过滤交易
+     * 
+     * @param filter 过滤条件
+     * @param cursor 键集分页游标
+     * @param size 每页大小
+     * @return 交易列表
+     */
+    @PostMapping("/filter")
+    @Operation(summary = "按属性组合过滤交易", description = "交易类型、币种、股票代码、成交日期的任意 AND/OR/NOT 组合，在位图索引上求值，按ID倒序分页")
+    public ResponseEntity<Map<String, Object>> filterTransactions(
+            @RequestBody AttributeFilter filter,
+            @Parameter(description = "游标，来自上一页的nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<TransactionResponse> cursorPage = transactionService.filterTransactions(filter, cursor, size);
+        
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("size", size);
+        pagination.put("total", cursorPage.getTotal());
+        pagination.put("nextCursor", cursorPage.getNextCursor());
+        pagination.put("hasMore", cursorPage.isHasMore());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "过滤交易成功");
+        result.put("data", cursorPage.getItems());
+        result.put("pagination", pagination);
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 多条件检索交易
+     * 
+     * @param request 检索条件、排序、投影和分页参数
+     * @return 交易列表
+     */
+    @PostMapping("/query")
+    @Operation(summary = "多条件检索交易", description = "账户、股票代码、交易类型、币种、成交日期和金额区间任意组合，过滤、排序和键集分页在数据库中完成；projection=SUMMARY 时只返回摘要列")
+    public ResponseEntity<Map<String, Object>> queryTransactions(@RequestBody TransactionSearchRequest request) {
+        
+        CursorPage<?> cursorPage = transactionService.searchTransactions(request);
+        
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("size", request.getSize());
+        pagination.put("nextCursor", cursorPage.getNextCursor());
+        pagination.put("hasMore", cursorPage.isHasMore());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "检索交易成功");
+        result.put("data", cursorPage.getItems());
+        result.put("pagination", pagination);
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 按金额区间查询交易
+     * 
+     * @param minAmount 最小金额（含）
+     * @param maxAmount 最大金额（含）
+     * @param limit 最多返回条数
+     * @return 交易列表
+     */
+    @GetMapping("/amount-range")
+    @Operation(summary = "按金额区间查询交易", description = "基于内存金额索引的区间查询，按金额升序返回前limit条")
+    public ResponseEntity<Map<String, Object>> getTransactionsByAmountRange(
+            @Parameter(description = "最小金额（含）") @RequestParam(required = false) BigDecimal minAmount,
+            @Parameter(description = "最大金额（含）") @RequestParam(required = false) BigDecimal maxAmount,
+            @Parameter(description = "最多返回条数，1-" + TransactionService.MAX_QUERY_LIMIT) @RequestParam(defaultValue = "100") int limit) {
+        
+        List<TransactionResponse> transactions = transactionService.getTransactionsByAmountRange(minAmount, maxAmount, limit);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "按金额区间查询交易成功");
+        result.put("data", transactions);
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 查询大额交易Top-N
+     * 
+     * @param threshold 金额阈值（不含）
+     * @param limit 最多返回条数
+     * @return 交易列表
+     */
+    @GetMapping("/large")
+    @Operation(summary = "查询大额交易", description = "金额大于阈值的交易中金额最大的前limit条，按金额降序")
+    public ResponseEntity<Map<String, Object>> getLargestTransactions(
+            @Parameter(description = "金额阈值（不含）") @RequestParam(required = false) BigDecimal threshold,
+            @Parameter(description = "最多返回条数，1-" + TransactionService.MAX_QUERY_LIMIT) @RequestParam(defaultValue = "100") int limit) {
+        
+        List<TransactionResponse> transactions = transactionService.getLargestTransactions(threshold, limit);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "查询大额交易成功");
+        result.put("data", transactions);
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 流式导出交易
+     * 逐行读取并写出，不在内存中构建完整结果集
+     * 
+     * @param format 导出格式 ndjson/csv
+     * @param accountNumber 账户号码
+     * @param securityCode 股票代码
+     * @param startDate 开始成交日期（含）
+     * @param endDate 结束成交日期（含）
+     * @return 流式响应
+     */
+    @GetMapping("/export")
+    @Operation(summary = "导出交易", description = "以NDJSON或CSV格式流式导出交易，支持按账户、股票代码和成交日期范围过滤")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @Parameter(description = "导出格式: ndjson 或 csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "账户号码") @RequestParam(required = false) String accountNumber,
+            @Parameter(description = "股票代码") @RequestParam(required = false) String securityCode,
+            @Parameter(description = "开始成交日期 yyyy-MM-dd") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "结束成交日期 yyyy-MM-dd") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        
+        ExportFormat exportFormat = ExportFormat.from(format);
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        
+        StreamingResponseBody body = outputStream -> transactionExportService.exportTransactions(
+                exportFormat, accountNumber, securityCode, startDate, endDate, outputStream);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions." + exportFormat.getFileExtension() + "\"")
+                .body(body);
+    }
+    
     /**
      * 根据账户号码获取交易
      * 
@@ -224,6 +544,33 @@ public class TransactionController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * 获取时间区间内的成交统计
+     * 
+     * @param securityCode 股票代码
+     * @param start 开始时间（含）
+     * @param end 结束时间（不含）
+     * @return 区间成交统计
+     */
+    @GetMapping("/statistics/range")
+    @Operation(summary = "获取区间成交统计", description = "基于分钟级前缀和索引，统计 [start, end) 内买入/卖出的笔数、股数和金额，边界必须是整分钟")
+    public ResponseEntity<Map<String, Object>> getRangeStatistics(
+            @Parameter(description = "股票代码，为空时统计全部股票") @RequestParam(required = false) String securityCode,
+            @Parameter(description = "开始时间（含）yyyy-MM-ddTHH:mm") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(description = "结束时间（不含）yyyy-MM-ddTHH:mm") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        
+        Map<String, Object> statistics = transactionService.getRangeStatistics(securityCode, start, end);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "获取区间成交统计成功");
+        result.put("data", statistics);
+        
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * 获取交易统计信息
      * 
@@ -275,6 +622,34 @@ public class TransactionController {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
     }
     
+    /**
+     * 处理版本冲突异常
+     */
+    @ExceptionHandler({TransactionVersionConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<Map<String, Object>> handleVersionConflict(RuntimeException ex) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("errorCode", "VERSION_CONFLICT");
+        result.put("message", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+    }
+    
+    /**
+     * 处理写入队列已满异常
+     */
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<Map<String, Object>> handleIngestionQueueFull(IngestionQueueFullException ex) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("errorCode", "TOO_MANY_REQUESTS");
+        result.put("message", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(result);
+    }
+    
     /**
      * 处理参数校验异常
      */
@@ -0,0 +1,156 @@
+package com.banking.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 低基数属性过滤条件（位图索引求值）
+ * 每个节点只能是以下形式之一：
+ * <ul>
+ *   <li>and：所有子条件同时满足</li>
+ *   <li>or：任一子条件满足</li>
+ *   <li>not：子条件不满足</li>
+ *   <li>field + values：字段等于任一取值，field 为 transType/currency/securityCode/transDate</li>
+ *   <li>field=transDate + from/to：成交日期在 [from, to] 之间，任一端可省略</li>
+ * </ul>
+ * 示例：{"and":[{"field":"securityCode","values":["000001","600036"]},{"not":{"field":"transType","values":["SELL"]}}]}
+ *
+ * @author Kongloih Zhang F
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AttributeFilter {
+
+    private List<AttributeFilter> and;
+
+    private List<AttributeFilter> or;
+
+    private AttributeFilter not;
+
+    private String field;
+
+    private List<String> values;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate from;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate to;
+
+    public AttributeFilter() {
+    }
+
+    /**
+     * 字段等于任一取值
+     *
+     * @param field 字段名
+     * @param values 取值
+     * @return 过滤条件
+     */
+    public static AttributeFilter in(String field, String... values) {
+        AttributeFilter filter = new AttributeFilter();
+        filter.setField(field);
+        filter.setValues(List.of(values));
+        return filter;
+    }
+
+    /**
+     * 成交日期在 [from, to] 之间
+     *
+     * @param from 开始日期（含），可为null
+     * @param to 结束日期（含），可为null
+     * @return 过滤条件
+     */
+    public static AttributeFilter transDateBetween(LocalDate from, LocalDate to) {
+        AttributeFilter filter = new AttributeFilter();
+        filter.setField("transDate");
+        filter.setFrom(from);
+        filter.setTo(to);
+        return filter;
+    }
+
+    /**
+     * 所有子条件同时满足
+     */
+    public static AttributeFilter allOf(AttributeFilter... filters) {
+        AttributeFilter filter = new AttributeFilter();
+        filter.setAnd(List.of(filters));
+        return filter;
+    }
+
+    /**
+     * 任一子条件满足
+     */
+    public static AttributeFilter anyOf(AttributeFilter... filters) {
+        AttributeFilter filter = new AttributeFilter();
+        filter.setOr(List.of(filters));
+        return filter;
+    }
+
+    /**
+     * 子条件不满足
+     */
+    public static AttributeFilter not(AttributeFilter negated) {
+        AttributeFilter filter = new AttributeFilter();
+        filter.setNot(negated);
+        return filter;
+    }
+
+    public List<AttributeFilter> getAnd() {
+        return and;
+    }
+
+    public void setAnd(List<AttributeFilter> and) {
+        this.and = and;
+    }
+
+    public List<AttributeFilter> getOr() {
+        return or;
+    }
+
+    public void setOr(List<AttributeFilter> or) {
+        this.or = or;
+    }
+
+    public AttributeFilter getNot() {
+        return not;
+    }
+
+    public void setNot(AttributeFilter not) {
+        this.not = not;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+}
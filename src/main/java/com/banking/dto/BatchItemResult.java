@@ -0,0 +1,66 @@
+package com.banking.dto;
+
+/**
+ * 批量交易单条处理结果DTO
+ *
+ * @author Kongloih Zhang F
+ */
+public class BatchItemResult {
+
+    private int index;
+    private boolean success;
+    private TransactionResponse data;
+    private String errorMessage;
+
+    // 构造函数
+    public BatchItemResult() {}
+
+    public static BatchItemResult succeeded(int index, TransactionResponse data) {
+        BatchItemResult result = new BatchItemResult();
+        result.index = index;
+        result.success = true;
+        result.data = data;
+        return result;
+    }
+
+    public static BatchItemResult failed(int index, String errorMessage) {
+        BatchItemResult result = new BatchItemResult();
+        result.index = index;
+        result.success = false;
+        result.errorMessage = errorMessage;
+        return result;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public TransactionResponse getData() {
+        return data;
+    }
+
+    public void setData(TransactionResponse data) {
+        this.data = data;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
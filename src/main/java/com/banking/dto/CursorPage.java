@@ -0,0 +1,52 @@
+package com.banking.dto;
+
+import java.util.List;
+
+/**
+ * 键集分页结果DTO
+ *
+ * @param <T> 数据类型
+ * @author Kongloih Zhang F
+ */
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+    private final Long total;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this(items, nextCursor, null);
+    }
+
+    public CursorPage(List<T> items, String nextCursor, Long total) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.total = total;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * 下一页游标，没有更多数据时为null
+     *
+     * @return 游标字符串
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * 匹配总数，只有能低成本得到总数的查询才提供，否则为null
+     *
+     * @return 匹配总数
+     */
+    public Long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,44 @@
+package com.banking.dto;
+
+/**
+ * 交易导出格式枚举
+ *
+ * @author Kongloih Zhang F
+ */
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    ExportFormat(String mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * 解析导出格式（不区分大小写）
+     *
+     * @param value 格式名称
+     * @return 导出格式
+     * @throws IllegalArgumentException 不支持的格式
+     */
+    public static ExportFormat from(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出格式: " + value + "，可选值为 ndjson 或 csv");
+    }
+}
@@ -0,0 +1,60 @@
+package com.banking.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 键集分页游标
+ * 记录上一页最后一条交易的 (timestamp, id)，对外编码为不透明的字符串
+ *
+ * @author Kongloih Zhang F
+ */
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime timestamp;
+    private final Long id;
+
+    public KeysetCursor(LocalDateTime timestamp, Long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    /**
+     * 编码为URL安全的字符串
+     *
+     * @return 游标字符串
+     */
+    public String encode() {
+        String raw = timestamp.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标字符串
+     *
+     * @param cursor 游标字符串
+     * @return 游标
+     * @throws IllegalArgumentException 游标格式无效时
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
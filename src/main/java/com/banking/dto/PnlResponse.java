@@ -0,0 +1,119 @@
+package com.banking.dto;
+
+import com.banking.index.LotBook;
+import com.banking.model.CostMethod;
+import com.banking.model.Money;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 持仓盈亏响应DTO
+ * 价格快照中没有该股票时，市价、市值和浮动盈亏为null
+ * 市值和浮动盈亏按BigDecimal计算，大额持仓乘以高价时不会溢出
+ *
+ * @author Kongloih Zhang F
+ */
+public class PnlResponse {
+
+    private final String accountNumber;
+    private final String securityCode;
+    private final CostMethod method;
+    private final long openUnits;
+    private final BigDecimal averageCost;
+    private final BigDecimal costBasis;
+    private final BigDecimal realizedPnl;
+    private final BigDecimal marketPrice;
+    private final BigDecimal marketValue;
+    private final BigDecimal unrealizedPnl;
+    private final int openLots;
+    private final long unmatchedSellUnits;
+    private final long tradeCount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime lastTradeTime;
+
+    public PnlResponse(String accountNumber, LotBook.LotPosition position, Money price) {
+        this.accountNumber = accountNumber;
+        this.securityCode = position.securityCode();
+        this.method = position.method();
+        this.openUnits = position.openUnits();
+        this.averageCost = (position.openUnits() > 0
+                ? position.costBasis().dividedBy(position.openUnits())
+                : Money.ZERO).toBigDecimal();
+        this.costBasis = position.costBasis().toBigDecimal();
+        this.realizedPnl = position.realizedPnl().toBigDecimal();
+        if (price != null) {
+            // 市值 = 价格 * 持仓股数，可能超出Money的long范围，在API边界按BigDecimal计算
+            BigDecimal value = price.toBigDecimal().multiply(BigDecimal.valueOf(position.openUnits()));
+            this.marketPrice = price.toBigDecimal();
+            this.marketValue = value;
+            this.unrealizedPnl = value.subtract(this.costBasis);
+        } else {
+            this.marketPrice = null;
+            this.marketValue = null;
+            this.unrealizedPnl = null;
+        }
+        this.openLots = position.openLots();
+        this.unmatchedSellUnits = position.unmatchedSellUnits();
+        this.tradeCount = position.tradeCount();
+        this.lastTradeTime = position.lastTradeTime();
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getSecurityCode() {
+        return securityCode;
+    }
+
+    public CostMethod getMethod() {
+        return method;
+    }
+
+    public long getOpenUnits() {
+        return openUnits;
+    }
+
+    public BigDecimal getAverageCost() {
+        return averageCost;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public BigDecimal getRealizedPnl() {
+        return realizedPnl;
+    }
+
+    public BigDecimal getMarketPrice() {
+        return marketPrice;
+    }
+
+    public BigDecimal getMarketValue() {
+        return marketValue;
+    }
+
+    public BigDecimal getUnrealizedPnl() {
+        return unrealizedPnl;
+    }
+
+    public int getOpenLots() {
+        return openLots;
+    }
+
+    public long getUnmatchedSellUnits() {
+        return unmatchedSellUnits;
+    }
+
+    public long getTradeCount() {
+        return tradeCount;
+    }
+
+    public LocalDateTime getLastTradeTime() {
+        return lastTradeTime;
+    }
+}
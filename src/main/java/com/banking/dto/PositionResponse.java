@@ -0,0 +1,92 @@
+package com.banking.dto;
+
+import com.banking.index.LotBook;
+import com.banking.index.PositionBook;
+import com.banking.model.Money;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 持仓响应DTO
+ * 股数、金额和成交时间来自持仓簿，持仓均价和持仓成本来自批次簿的加权平均口径（批次簿中没有该持仓时为0）
+ *
+ * @author Kongloih Zhang F
+ */
+public class PositionResponse {
+
+    private final String accountNumber;
+    private final String securityCode;
+    private final long netUnits;
+    private final BigDecimal averageCost;
+    private final BigDecimal costBasis;
+    private final long boughtUnits;
+    private final BigDecimal boughtAmount;
+    private final long soldUnits;
+    private final BigDecimal soldAmount;
+    private final long tradeCount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime lastTradeTime;
+
+    public PositionResponse(String accountNumber, PositionBook.Position position, LotBook.LotPosition averageLots) {
+        Money costBasis = averageLots == null ? Money.ZERO : averageLots.costBasis();
+        long openUnits = averageLots == null ? 0 : averageLots.openUnits();
+        this.accountNumber = accountNumber;
+        this.securityCode = position.securityCode();
+        this.netUnits = position.netUnits();
+        this.averageCost = (openUnits > 0 ? costBasis.dividedBy(openUnits) : Money.ZERO).toBigDecimal();
+        this.costBasis = costBasis.toBigDecimal();
+        this.boughtUnits = position.boughtUnits();
+        this.boughtAmount = position.boughtAmount().toBigDecimal();
+        this.soldUnits = position.soldUnits();
+        this.soldAmount = position.soldAmount().toBigDecimal();
+        this.tradeCount = position.tradeCount();
+        this.lastTradeTime = position.lastTradeTime();
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getSecurityCode() {
+        return securityCode;
+    }
+
+    public long getNetUnits() {
+        return netUnits;
+    }
+
+    public BigDecimal getAverageCost() {
+        return averageCost;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public long getBoughtUnits() {
+        return boughtUnits;
+    }
+
+    public BigDecimal getBoughtAmount() {
+        return boughtAmount;
+    }
+
+    public long getSoldUnits() {
+        return soldUnits;
+    }
+
+    public BigDecimal getSoldAmount() {
+        return soldAmount;
+    }
+
+    public long getTradeCount() {
+        return tradeCount;
+    }
+
+    public LocalDateTime getLastTradeTime() {
+        return lastTradeTime;
+    }
+}
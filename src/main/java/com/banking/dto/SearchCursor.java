@@ -0,0 +1,79 @@
+package com.banking.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 多条件检索的键集分页游标
+ * 记录排序字段、方向以及上一页最后一条的 (排序值, id)，对外编码为不透明的字符串；
+ * 游标只能用于相同排序的下一页请求
+ *
+ * @author Kongloih Zhang F
+ */
+public final class SearchCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final TransactionSortField sortBy;
+    private final boolean descending;
+    private final Comparable<?> value;
+    private final Long id;
+
+    public SearchCursor(TransactionSortField sortBy, boolean descending, Comparable<?> value, Long id) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * 编码为URL安全的字符串
+     *
+     * @return 游标字符串
+     */
+    public String encode() {
+        String raw = sortBy.name() + SEPARATOR + (descending ? "DESC" : "ASC") + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标字符串，并校验与本次请求的排序一致
+     *
+     * @param cursor 游标字符串
+     * @param sortBy 本次请求的排序字段
+     * @param descending 本次请求是否倒序
+     * @return 游标
+     * @throws IllegalArgumentException 游标格式无效或排序不一致时
+     */
+    public static SearchCursor decode(String cursor, TransactionSortField sortBy, boolean descending) {
+        SearchCursor decoded;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, -1);
+            TransactionSortField field = TransactionSortField.valueOf(parts[0]);
+            decoded = new SearchCursor(field, "DESC".equals(parts[1]), field.parse(parts[2]), Long.parseLong(parts[3]));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+        if (decoded.sortBy != sortBy || decoded.descending != descending) {
+            throw new IllegalArgumentException("分页游标与本次请求的排序不一致");
+        }
+        return decoded;
+    }
+
+    public TransactionSortField getSortBy() {
+        return sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Comparable<?> getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -33,6 +33,7 @@ public class TransactionResponse {
     
     private String currency;
     private BigDecimal balance;
+    private long version;
     
     // 构造函数
     public TransactionResponse() {}
@@ -50,6 +51,29 @@ public class TransactionResponse {
         this.timestamp = transaction.getTimestamp();
         this.currency = transaction.getCurrency();
         this.balance = transaction.getBalance();
+        this.version = transaction.getVersion();
+    }
+    
+    /**
+     * 查询投影构造函数（JPQL select new），直接由结果列构造，不经过实体
+     */
+    public TransactionResponse(Long id, String accountNumber, BigDecimal amount, TransactionType transType,
+                               Long unit, BigDecimal price, LocalDate transDate, String securityCode,
+                               String description, LocalDateTime timestamp, String currency, BigDecimal balance,
+                               long version) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.transType = transType;
+        this.unit = unit;
+        this.price = price;
+        this.transDate = transDate;
+        this.securityCode = securityCode;
+        this.description = description;
+        this.timestamp = timestamp;
+        this.currency = currency;
+        this.balance = balance;
+        this.version = version;
     }
     
     // Getters and Setters
@@ -159,4 +183,12 @@ public class TransactionResponse {
     public void setBalance(BigDecimal balance) {
         this.balance = balance;
     }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.banking.dto;
+
+import com.banking.model.TransactionType;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 交易多条件检索请求
+ * 所有过滤条件可选，非空的条件之间为“且”关系，整体编译为一条SQL在数据库中执行
+ *
+ * @author Kongloih Zhang F
+ */
+public class TransactionSearchRequest {
+
+    /**
+     * 返回列
+     */
+    public enum Projection {
+        /**
+         * 完整交易
+         */
+        FULL,
+        /**
+         * 交易摘要 {@link TransactionSummary}
+         */
+        SUMMARY
+    }
+
+    private String accountNumber;
+    private String securityCode;
+    private TransactionType transType;
+    private String currency;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate transDateFrom;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate transDateTo;
+
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    private TransactionSortField sortBy = TransactionSortField.TIMESTAMP;
+    private boolean descending = true;
+    private Projection projection = Projection.FULL;
+
+    /**
+     * 上一页返回的游标，为空时返回第一页
+     */
+    private String cursor;
+    private int size = 20;
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public String getSecurityCode() {
+        return securityCode;
+    }
+
+    public void setSecurityCode(String securityCode) {
+        this.securityCode = securityCode;
+    }
+
+    public TransactionType getTransType() {
+        return transType;
+    }
+
+    public void setTransType(TransactionType transType) {
+        this.transType = transType;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public LocalDate getTransDateFrom() {
+        return transDateFrom;
+    }
+
+    public void setTransDateFrom(LocalDate transDateFrom) {
+        this.transDateFrom = transDateFrom;
+    }
+
+    public LocalDate getTransDateTo() {
+        return transDateTo;
+    }
+
+    public void setTransDateTo(LocalDate transDateTo) {
+        this.transDateTo = transDateTo;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public TransactionSortField getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(TransactionSortField sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    public void setProjection(Projection projection) {
+        this.projection = projection;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
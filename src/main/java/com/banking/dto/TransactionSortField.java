@@ -0,0 +1,76 @@
+package com.banking.dto;
+
+import com.banking.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * 交易检索可选的排序字段
+ * 排序总是以ID作为第二排序键，保证键集分页的顺序唯一
+ *
+ * @author Kongloih Zhang F
+ */
+public enum TransactionSortField {
+
+    TIMESTAMP("timestamp", LocalDateTime::parse),
+    AMOUNT("amount", BigDecimal::new),
+    TRANS_DATE("transDate", LocalDate::parse);
+
+    private final String attribute;
+    private final Function<String, Comparable<?>> parser;
+
+    TransactionSortField(String attribute, Function<String, Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.parser = parser;
+    }
+
+    /**
+     * 对应的实体属性名
+     *
+     * @return 属性名
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * 解析游标中保存的排序值
+     *
+     * @param value 排序值的字符串形式
+     * @return 排序值
+     */
+    public Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+
+    /**
+     * 取交易实体的排序值
+     *
+     * @param transaction 交易
+     * @return 排序值
+     */
+    public Comparable<?> valueOf(Transaction transaction) {
+        return switch (this) {
+            case TIMESTAMP -> transaction.getTimestamp();
+            case AMOUNT -> transaction.getAmount();
+            case TRANS_DATE -> transaction.getTransDate();
+        };
+    }
+
+    /**
+     * 取交易摘要的排序值
+     *
+     * @param summary 交易摘要
+     * @return 排序值
+     */
+    public Comparable<?> valueOf(TransactionSummary summary) {
+        return switch (this) {
+            case TIMESTAMP -> summary.getTimestamp();
+            case AMOUNT -> summary.getAmount();
+            case TRANS_DATE -> summary.getTransDate();
+        };
+    }
+}
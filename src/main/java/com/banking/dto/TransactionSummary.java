@@ -0,0 +1,74 @@
+package com.banking.dto;
+
+import com.banking.model.TransactionType;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 交易摘要DTO
+ * 由查询直接构造（select new），只读取列表展示需要的列，不加载实体、不进入持久化上下文
+ *
+ * @author Kongloih Zhang F
+ */
+public class TransactionSummary {
+
+    private final Long id;
+    private final String accountNumber;
+    private final String securityCode;
+    private final TransactionType transType;
+    private final Long unit;
+    private final BigDecimal amount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate transDate;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime timestamp;
+
+    public TransactionSummary(Long id, String accountNumber, String securityCode, TransactionType transType,
+                              Long unit, BigDecimal amount, LocalDate transDate, LocalDateTime timestamp) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.securityCode = securityCode;
+        this.transType = transType;
+        this.unit = unit;
+        this.amount = amount;
+        this.transDate = transDate;
+        this.timestamp = timestamp;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getSecurityCode() {
+        return securityCode;
+    }
+
+    public TransactionType getTransType() {
+        return transType;
+    }
+
+    public Long getUnit() {
+        return unit;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public LocalDate getTransDate() {
+        return transDate;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+}
@@ -1,5 +1,7 @@
 package com.banking.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -53,6 +55,40 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
     }
     
+    /**
+     * 处理版本冲突异常（If-Match版本号过期或并发更新被乐观锁拒绝）
+     * 
+     * @param ex 异常
+     * @return 错误响应
+     */
+    @ExceptionHandler({TransactionVersionConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<Map<String, Object>> handleVersionConflict(RuntimeException ex) {
+        Map<String, Object> errorResponse = createErrorResponse(
+                "VERSION_CONFLICT",
+                ex.getMessage(),
+                HttpStatus.CONFLICT
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+    
+    /**
+     * 处理写入队列已满异常
+     * 
+     * @param ex 异常
+     * @return 错误响应
+     */
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<Map<String, Object>> handleIngestionQueueFull(IngestionQueueFullException ex) {
+        Map<String, Object> errorResponse = createErrorResponse(
+                "TOO_MANY_REQUESTS",
+                ex.getMessage(),
+                HttpStatus.TOO_MANY_REQUESTS
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+    
     /**
      * 处理参数验证异常
      * 
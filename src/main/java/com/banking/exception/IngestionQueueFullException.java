@@ -0,0 +1,13 @@
+package com.banking.exception;
+
+/**
+ * 异步写入队列已满异常
+ * 
+ * @author Kongloih Zhang F
+ */
+public class IngestionQueueFullException extends RuntimeException {
+    
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.banking.exception;
+
+/**
+ * 交易版本冲突异常
+ * 
+ * @author Kongloih Zhang F
+ */
+public class TransactionVersionConflictException extends RuntimeException {
+    
+    public TransactionVersionConflictException(String message) {
+        super(message);
+    }
+    
+    public TransactionVersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,153 @@
+package com.banking.index;
+
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 按 (金额, ID) 排序的内存二级索引
+ * 基于并发跳表，金额区间查询和阈值以上Top-N查询均为 O(log n + k)，写操作时同步更新。
+ * 金额以 {@link Money} 的4位小数定点long存储，查询边界按相应方向取整。
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class AmountIndex {
+
+    private static final BigInteger MIN_SCALED = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger MAX_SCALED = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    /**
+     * 每笔交易当前的索引项，更新和删除按ID定位旧索引项
+     */
+    private final Map<Long, Entry> entriesById = new ConcurrentHashMap<>();
+
+    /**
+     * 计入一笔交易，已索引的同一交易先移除旧索引项
+     *
+     * @param transaction 交易
+     */
+    public void add(Transaction transaction) {
+        Entry entry = new Entry(Money.of(transaction.getAmount()).scaledValue(), transaction.getId());
+        Entry previous = entriesById.put(entry.id(), entry);
+        if (previous != null && !previous.equals(entry)) {
+            entries.remove(previous);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * 移除一笔交易
+     *
+     * @param transaction 交易
+     */
+    public void remove(Transaction transaction) {
+        Entry entry = entriesById.remove(transaction.getId());
+        if (entry != null) {
+            entries.remove(entry);
+        }
+    }
+
+    /**
+     * 用全部交易并行重建索引
+     *
+     * @param transactions 全部交易
+     */
+    public void rebuild(Collection<Transaction> transactions) {
+        clear();
+        transactions.parallelStream().forEach(this::add);
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        entriesById.clear();
+        entries.clear();
+    }
+
+    /**
+     * 已索引的交易数量
+     *
+     * @return 交易数量
+     */
+    public int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * 金额在 [minAmount, maxAmount] 之间的交易，按金额、ID升序
+     *
+     * @param minAmount 最小金额（含）
+     * @param maxAmount 最大金额（含）
+     * @param limit 最多返回条数
+     * @return 交易ID列表
+     */
+    public List<Long> findBetween(BigDecimal minAmount, BigDecimal maxAmount, int limit) {
+        long min = scaled(minAmount, RoundingMode.CEILING);
+        long max = scaled(maxAmount, RoundingMode.FLOOR);
+        if (min > max) {
+            return List.of();
+        }
+        return collect(entries.subSet(new Entry(min, Long.MIN_VALUE), true, new Entry(max, Long.MAX_VALUE), true)
+                .iterator(), limit);
+    }
+
+    /**
+     * 金额大于阈值的交易中金额最大的前N笔，按金额、ID降序
+     *
+     * @param threshold 金额阈值（不含）
+     * @param limit 最多返回条数
+     * @return 交易ID列表
+     */
+    public List<Long> findLargest(BigDecimal threshold, int limit) {
+        // 大于阈值向下取整后的定点值，即严格大于阈值
+        Entry after = new Entry(scaled(threshold, RoundingMode.FLOOR), Long.MAX_VALUE);
+        return collect(entries.descendingSet().headSet(after, false).iterator(), limit);
+    }
+
+    private static List<Long> collect(Iterator<Entry> iterator, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 128));
+        while (ids.size() < limit && iterator.hasNext()) {
+            ids.add(iterator.next().id());
+        }
+        return ids;
+    }
+
+    /**
+     * 查询边界换算为4位小数定点值，超出long范围时取极值
+     */
+    private static long scaled(BigDecimal amount, RoundingMode roundingMode) {
+        BigInteger scaled = amount.setScale(Money.SCALE, roundingMode).unscaledValue();
+        return scaled.max(MIN_SCALED).min(MAX_SCALED).longValue();
+    }
+
+    /**
+     * 索引项，按金额、ID升序
+     */
+    record Entry(long amount, long id) implements Comparable<Entry> {
+
+        private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::amount)
+                .thenComparingLong(Entry::id);
+
+        @Override
+        public int compareTo(Entry other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
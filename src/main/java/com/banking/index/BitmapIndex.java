@@ -0,0 +1,327 @@
+package com.banking.index;
+
+import com.banking.dto.AttributeFilter;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 低基数列（交易类型、币种、股票代码、成交日期）上的压缩位图索引
+ * 每个取值对应一个Roaring位图，位为交易ID；过滤条件按 AND/OR/NOT 在位图上求值，
+ * 得到匹配的ID集合后才按页加载交易，求值过程不访问交易表。
+ * Roaring位图本身非线程安全，读写锁保护全部位图：写操作只改动4个位图，查询在读锁内复制后求值。
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class BitmapIndex {
+
+    static final String TRANS_TYPE = "transType";
+    static final String CURRENCY = "currency";
+    static final String SECURITY_CODE = "securityCode";
+    static final String TRANS_DATE = "transDate";
+
+    /**
+     * 过滤条件最大嵌套深度
+     */
+    static final int MAX_DEPTH = 16;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Roaring64Bitmap all = new Roaring64Bitmap();
+    private final Map<TransactionType, Roaring64Bitmap> byTransType = new HashMap<>();
+    private final Map<String, Roaring64Bitmap> byCurrency = new HashMap<>();
+    private final Map<String, Roaring64Bitmap> bySecurityCode = new HashMap<>();
+    private final NavigableMap<LocalDate, Roaring64Bitmap> byTransDate = new TreeMap<>();
+
+    /**
+     * 每笔交易当前索引的取值，更新和删除按ID定位旧位
+     */
+    private final Map<Long, Attributes> attributesById = new HashMap<>();
+
+    /**
+     * 计入一笔交易，已索引的同一交易先清除旧取值的位
+     *
+     * @param transaction 交易
+     */
+    public void add(Transaction transaction) {
+        long id = transaction.getId();
+        Attributes attributes = new Attributes(transaction.getTransType(), transaction.getCurrency(),
+                transaction.getSecurityCode(), transaction.getTransDate());
+        lock.writeLock().lock();
+        try {
+            Attributes previous = attributesById.put(id, attributes);
+            if (previous != null) {
+                clearBits(id, previous);
+            }
+            all.addLong(id);
+            bitmap(byTransType, attributes.transType()).addLong(id);
+            bitmap(byCurrency, attributes.currency()).addLong(id);
+            bitmap(bySecurityCode, attributes.securityCode()).addLong(id);
+            bitmap(byTransDate, attributes.transDate()).addLong(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除一笔交易
+     *
+     * @param transaction 交易
+     */
+    public void remove(Transaction transaction) {
+        long id = transaction.getId();
+        lock.writeLock().lock();
+        try {
+            Attributes previous = attributesById.remove(id);
+            if (previous != null) {
+                clearBits(id, previous);
+                all.removeLong(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用全部交易重建索引
+     * 位图按ID递增追加时压缩效果最好，先排序再在写锁内一次写入
+     *
+     * @param transactions 全部交易
+     */
+    public void rebuild(Collection<Transaction> transactions) {
+        List<Transaction> sorted = transactions.parallelStream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toList();
+        lock.writeLock().lock();
+        try {
+            clear();
+            sorted.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            byTransType.clear();
+            byCurrency.clear();
+            bySecurityCode.clear();
+            byTransDate.clear();
+            attributesById.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 已索引的交易数量
+     *
+     * @return 交易数量
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return all.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 求值过滤条件，按ID倒序返回一页匹配的交易ID
+     *
+     * @param filter 过滤条件
+     * @param beforeId 上一页最后一个ID，只返回更小的ID；首页为null
+     * @param limit 最多返回条数
+     * @return 匹配总数和本页ID
+     */
+    public Match match(AttributeFilter filter, Long beforeId, int limit) {
+        Roaring64Bitmap matched;
+        lock.readLock().lock();
+        try {
+            matched = evaluate(filter, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, 128));
+        if (beforeId == null) {
+            LongIterator iterator = matched.getReverseLongIterator();
+            while (ids.size() < limit && iterator.hasNext()) {
+                ids.add(iterator.next());
+            }
+        } else if (beforeId > 0) {
+            // 按名次定位：小于 beforeId 的ID有 rank 个，从第 rank-1 个（0起）倒序取
+            for (long rank = matched.rankLong(beforeId - 1) - 1; rank >= 0 && ids.size() < limit; rank--) {
+                ids.add(matched.select(rank));
+            }
+        }
+        return new Match(matched.getLongCardinality(), ids);
+    }
+
+    /**
+     * 递归求值，返回新的位图（调用方可以修改）
+     */
+    private Roaring64Bitmap evaluate(AttributeFilter filter, int depth) {
+        if (filter == null) {
+            throw new IllegalArgumentException("过滤条件不能为空");
+        }
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("过滤条件嵌套不能超过" + MAX_DEPTH + "层");
+        }
+        int forms = (filter.getAnd() != null ? 1 : 0) + (filter.getOr() != null ? 1 : 0)
+                + (filter.getNot() != null ? 1 : 0) + (filter.getField() != null ? 1 : 0);
+        if (forms != 1) {
+            throw new IllegalArgumentException("每个过滤条件必须且只能是 and、or、not、field 之一");
+        }
+
+        if (filter.getAnd() != null) {
+            Roaring64Bitmap result = null;
+            for (AttributeFilter child : nonEmpty(filter.getAnd(), "and")) {
+                Roaring64Bitmap bitmap = evaluate(child, depth + 1);
+                if (result == null) {
+                    result = bitmap;
+                } else {
+                    result.and(bitmap);
+                }
+            }
+            return result;
+        }
+        if (filter.getOr() != null) {
+            Roaring64Bitmap result = new Roaring64Bitmap();
+            for (AttributeFilter child : nonEmpty(filter.getOr(), "or")) {
+                result.or(evaluate(child, depth + 1));
+            }
+            return result;
+        }
+        if (filter.getNot() != null) {
+            Roaring64Bitmap result = all.clone();
+            result.andNot(evaluate(filter.getNot(), depth + 1));
+            return result;
+        }
+        return evaluateField(filter);
+    }
+
+    private Roaring64Bitmap evaluateField(AttributeFilter filter) {
+        String field = filter.getField();
+        boolean dateRange = filter.getFrom() != null || filter.getTo() != null;
+        if (dateRange) {
+            if (!TRANS_DATE.equals(field) || filter.getValues() != null) {
+                throw new IllegalArgumentException("from/to 只能用于 transDate，且不能与 values 同时使用");
+            }
+            return dateRange(filter.getFrom(), filter.getTo());
+        }
+
+        Roaring64Bitmap result = new Roaring64Bitmap();
+        for (String value : nonEmpty(filter.getValues(), field + ".values")) {
+            Roaring64Bitmap bitmap = switch (field) {
+                case TRANS_TYPE -> byTransType.get(parseTransType(value));
+                case CURRENCY -> byCurrency.get(value);
+                case SECURITY_CODE -> bySecurityCode.get(value);
+                case TRANS_DATE -> byTransDate.get(parseDate(value));
+                default -> throw new IllegalArgumentException("不支持的过滤字段: " + field
+                        + "，可选 transType、currency、securityCode、transDate");
+            };
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private Roaring64Bitmap dateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        NavigableMap<LocalDate, Roaring64Bitmap> days = byTransDate;
+        if (from != null) {
+            days = days.tailMap(from, true);
+        }
+        if (to != null) {
+            days = days.headMap(to, true);
+        }
+        Roaring64Bitmap result = new Roaring64Bitmap();
+        for (Roaring64Bitmap bitmap : days.values()) {
+            result.or(bitmap);
+        }
+        return result;
+    }
+
+    private void clearBits(long id, Attributes attributes) {
+        clearBit(byTransType, attributes.transType(), id);
+        clearBit(byCurrency, attributes.currency(), id);
+        clearBit(bySecurityCode, attributes.securityCode(), id);
+        clearBit(byTransDate, attributes.transDate(), id);
+    }
+
+    private static <K> Roaring64Bitmap bitmap(Map<K, Roaring64Bitmap> bitmaps, K key) {
+        return bitmaps.computeIfAbsent(key, k -> new Roaring64Bitmap());
+    }
+
+    /**
+     * 清除一位，位图为空时删除该取值
+     */
+    private static <K> void clearBit(Map<K, Roaring64Bitmap> bitmaps, K key, long id) {
+        Roaring64Bitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.removeLong(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static <T> List<T> nonEmpty(List<T> list, String name) {
+        if (list == null || list.isEmpty()) {
+            throw new IllegalArgumentException(name + " 不能为空");
+        }
+        return list;
+    }
+
+    private static TransactionType parseTransType(String value) {
+        try {
+            return TransactionType.valueOf(value);
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            throw new IllegalArgumentException("无效的交易类型: " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException | NullPointerException ex) {
+            throw new IllegalArgumentException("无效的成交日期: " + value);
+        }
+    }
+
+    private record Attributes(TransactionType transType, String currency, String securityCode, LocalDate transDate) {
+    }
+
+    /**
+     * 过滤结果
+     *
+     * @param total 匹配的交易总数
+     * @param ids 本页交易ID（倒序）
+     */
+    public record Match(long total, List<Long> ids) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.banking.index;
+
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 (股票代码, 账户, 成交日期, 交易类型) 维护的增量统计索引
+ * 写操作时同步更新，查询时 O(1) 返回，避免全表扫描
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class DailyStatisticsIndex {
+
+    private final Map<Key, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+    /**
+     * 计入一笔交易
+     *
+     * @param transaction 交易
+     */
+    public void add(Transaction transaction) {
+        merge(keyOf(transaction), new Aggregate(1, transaction.getUnit(), Money.of(transaction.getAmount()).scaledValue()));
+    }
+
+    /**
+     * 移除一笔交易的贡献
+     *
+     * @param transaction 交易
+     */
+    public void remove(Transaction transaction) {
+        merge(keyOf(transaction), new Aggregate(-1, -transaction.getUnit(), -Money.of(transaction.getAmount()).scaledValue()));
+    }
+
+    /**
+     * 获取指定维度的统计值
+     *
+     * @param securityCode 股票代码
+     * @param accountNumber 账户号码
+     * @param transDate 成交日期
+     * @param transType 交易类型
+     * @return 统计值（不存在时为空统计）
+     */
+    public Aggregate get(String securityCode, String accountNumber, LocalDate transDate, TransactionType transType) {
+        return aggregates.getOrDefault(new Key(securityCode, accountNumber, transDate, transType), Aggregate.EMPTY);
+    }
+
+    /**
+     * 用数据库分组统计结果重建索引
+     * 每行依次为: securityCode, accountNumber, transDate, transType, count, sum(unit), sum(amount)
+     *
+     * @param rows 分组统计结果
+     */
+    public void rebuild(List<Object[]> rows) {
+        aggregates.clear();
+        for (Object[] row : rows) {
+            Key key = new Key((String) row[0], (String) row[1], (LocalDate) row[2], (TransactionType) row[3]);
+            merge(key, new Aggregate(((Number) row[4]).longValue(), ((Number) row[5]).longValue(), Money.of((BigDecimal) row[6]).scaledValue()));
+        }
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        aggregates.clear();
+    }
+
+    /**
+     * 当前维护的统计维度数量
+     *
+     * @return 维度数量
+     */
+    public int size() {
+        return aggregates.size();
+    }
+
+    private void merge(Key key, Aggregate delta) {
+        aggregates.compute(key, (k, current) -> {
+            Aggregate merged = current == null ? delta : current.plus(delta);
+            return merged.transactionCount() <= 0 ? null : merged;
+        });
+    }
+
+    private static Key keyOf(Transaction transaction) {
+        return new Key(transaction.getSecurityCode(), transaction.getAccountNumber(),
+                transaction.getTransDate(), transaction.getTransType());
+    }
+
+    private record Key(String securityCode, String accountNumber, LocalDate transDate, TransactionType transType) {
+    }
+
+    /**
+     * 单个维度的累计值
+     *
+     * @param transactionCount 交易笔数
+     * @param totalUnits 总股数
+     * @param totalAmountScaled 总金额，按 {@link Money} 的4位小数放大后的long，累加时不分配对象
+     */
+    public record Aggregate(long transactionCount, long totalUnits, long totalAmountScaled) {
+
+        public static final Aggregate EMPTY = new Aggregate(0, 0, 0);
+
+        public Money totalAmount() {
+            return Money.ofScaled(totalAmountScaled);
+        }
+
+        Aggregate plus(Aggregate other) {
+            return new Aggregate(transactionCount + other.transactionCount,
+                    Math.addExact(totalUnits, other.totalUnits),
+                    Math.addExact(totalAmountScaled, other.totalAmountScaled));
+        }
+    }
+}
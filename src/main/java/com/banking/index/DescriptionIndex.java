@@ -0,0 +1,331 @@
+package com.banking.index;
+
+import com.banking.model.Transaction;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 交易描述的内存倒排索引
+ * <ul>
+ *   <li>拉丁字母和数字按连续字符切分为小写词项，另为每个词项建立前缀（edge n-gram）倒排，支持前缀检索</li>
+ *   <li>中日韩文字没有分词边界，按单字和相邻二字（bigram）建立倒排，命中后再校验原文包含查询片段</li>
+ * </ul>
+ * 倒排表按 (时间戳, ID) 倒序排列，与键集分页游标一致：查询从最短的倒排表开始顺序过滤，取满一页即停止。
+ * 写操作时同步更新，启动时可并行重建。
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class DescriptionIndex {
+
+    /**
+     * 前缀倒排的最大长度，更长的前缀先按该长度检索再逐条校验
+     */
+    static final int MAX_PREFIX_LENGTH = 12;
+
+    private static final Comparator<Posting> NEWEST_FIRST = Comparator.comparing(Posting::timestamp)
+            .thenComparingLong(Posting::id)
+            .reversed();
+
+    private final Map<String, PostingList> terms = new ConcurrentHashMap<>();
+    private final Map<String, PostingList> prefixes = new ConcurrentHashMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    /**
+     * 索引一笔交易的描述，已索引的同一交易先移除旧内容
+     *
+     * @param transaction 交易
+     */
+    public void add(Transaction transaction) {
+        Analyzed analyzed = analyze(transaction.getDescription());
+        Document document = new Document(transaction.getId(), transaction.getTimestamp(), analyzed.text(),
+                analyzed.words(), analyzed.terms());
+        Document previous = documents.put(document.id(), document);
+        if (previous != null) {
+            unpost(previous);
+        }
+        if (!document.terms().isEmpty()) {
+            post(document);
+        }
+    }
+
+    /**
+     * 移除一笔交易（按ID移除索引中的内容，不依赖传入对象的描述）
+     *
+     * @param transaction 交易
+     */
+    public void remove(Transaction transaction) {
+        Document document = documents.remove(transaction.getId());
+        if (document != null) {
+            unpost(document);
+        }
+    }
+
+    /**
+     * 用全部交易并行重建索引
+     *
+     * @param transactions 全部交易
+     */
+    public void rebuild(Collection<Transaction> transactions) {
+        clear();
+        transactions.parallelStream().forEach(this::add);
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        documents.clear();
+        terms.clear();
+        prefixes.clear();
+    }
+
+    /**
+     * 已索引的交易数量
+     *
+     * @return 交易数量
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * 检索描述包含全部查询词的交易，按 (时间戳, ID) 倒序返回
+     *
+     * @param query 查询文本
+     * @param prefix 为true时最后一个拉丁词项按前缀匹配
+     * @param afterTimestamp 上一页最后一条的时间戳，首页为null
+     * @param afterId 上一页最后一条的ID，首页为null
+     * @param limit 最多返回条数
+     * @return 交易ID列表
+     */
+    public List<Long> search(String query, boolean prefix, LocalDateTime afterTimestamp, Long afterId, int limit) {
+        Query compiled = compile(query, prefix);
+        if (compiled == null) {
+            return List.of();
+        }
+        NavigableSet<Posting> postings = compiled.driver().postings;
+        if (afterTimestamp != null && afterId != null) {
+            postings = postings.tailSet(new Posting(afterTimestamp, afterId), false);
+        }
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        for (Posting posting : postings) {
+            Document document = documents.get(posting.id());
+            // 并发更新期间倒排表可能短暂指向旧版本，以文档当前内容为准
+            if (document != null && document.timestamp().equals(posting.timestamp()) && compiled.matches(document)) {
+                ids.add(posting.id());
+                if (ids.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 将查询编译为倒排表列表，任一词项不存在时返回null
+     */
+    private Query compile(String query, boolean prefix) {
+        Analyzed analyzed = analyze(query);
+        if (analyzed.terms().isEmpty()) {
+            return null;
+        }
+        String prefixWord = null;
+        Set<String> exactTerms = analyzed.terms();
+        if (prefix && analyzed.lastIsWord()) {
+            prefixWord = analyzed.words().get(analyzed.words().size() - 1);
+            exactTerms = new LinkedHashSet<>(exactTerms);
+            exactTerms.remove(prefixWord);
+            // 同一词在查询中出现在前面时仍需精确匹配
+            if (analyzed.words().indexOf(prefixWord) < analyzed.words().size() - 1) {
+                exactTerms.add(prefixWord);
+            }
+        }
+
+        PostingList driver = null;
+        for (String term : exactTerms) {
+            PostingList list = terms.get(term);
+            if (list == null) {
+                return null;
+            }
+            if (driver == null || list.size.get() < driver.size.get()) {
+                driver = list;
+            }
+        }
+        if (prefixWord != null) {
+            PostingList list = prefixes.get(prefixWord.substring(0, Math.min(prefixWord.length(), MAX_PREFIX_LENGTH)));
+            if (list == null) {
+                return null;
+            }
+            if (driver == null || list.size.get() < driver.size.get()) {
+                driver = list;
+            }
+        }
+        return new Query(driver, exactTerms, prefixWord, analyzed.cjkRuns());
+    }
+
+    private void post(Document document) {
+        Posting posting = new Posting(document.timestamp(), document.id());
+        for (String term : document.terms()) {
+            terms.compute(term, (key, list) -> (list == null ? new PostingList() : list).add(posting));
+        }
+        for (String prefix : prefixesOf(document.words())) {
+            prefixes.compute(prefix, (key, list) -> (list == null ? new PostingList() : list).add(posting));
+        }
+    }
+
+    private void unpost(Document document) {
+        Posting posting = new Posting(document.timestamp(), document.id());
+        for (String term : document.terms()) {
+            terms.computeIfPresent(term, (key, list) -> list.remove(posting));
+        }
+        for (String prefix : prefixesOf(document.words())) {
+            prefixes.computeIfPresent(prefix, (key, list) -> list.remove(posting));
+        }
+    }
+
+    private static Set<String> prefixesOf(List<String> words) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String word : words) {
+            for (int length = 1; length <= Math.min(word.length(), MAX_PREFIX_LENGTH); length++) {
+                result.add(word.substring(0, length));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 切分文本：拉丁字母数字连续段为词项，中日韩文字连续段拆为单字和二字片段
+     */
+    static Analyzed analyze(String text) {
+        if (text == null || text.isBlank()) {
+            return Analyzed.EMPTY;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        List<String> cjkRuns = new ArrayList<>();
+        Set<String> terms = new LinkedHashSet<>();
+        boolean lastIsWord = false;
+
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                while (i < normalized.length() && isCjk(normalized.codePointAt(i))) {
+                    i += Character.charCount(normalized.codePointAt(i));
+                }
+                String run = normalized.substring(start, i);
+                cjkRuns.add(run);
+                int[] codePoints = run.codePoints().toArray();
+                for (int j = 0; j < codePoints.length; j++) {
+                    terms.add(new String(codePoints, j, 1));
+                    if (j + 1 < codePoints.length) {
+                        terms.add(new String(codePoints, j, 2));
+                    }
+                }
+                lastIsWord = false;
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < normalized.length()) {
+                    int next = normalized.codePointAt(i);
+                    if (isCjk(next) || !Character.isLetterOrDigit(next)) {
+                        break;
+                    }
+                    i += Character.charCount(next);
+                }
+                String word = normalized.substring(start, i);
+                words.add(word);
+                terms.add(word);
+                lastIsWord = true;
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return new Analyzed(normalized, words, cjkRuns, terms, lastIsWord);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 倒排表项，按 (时间戳, ID) 倒序
+     */
+    record Posting(LocalDateTime timestamp, long id) implements Comparable<Posting> {
+        @Override
+        public int compareTo(Posting other) {
+            return NEWEST_FIRST.compare(this, other);
+        }
+    }
+
+    /**
+     * 倒排表，长度单独计数（跳表的size()需要遍历）
+     * 修改只在所属Map的compute中进行，同一词项的修改互斥
+     */
+    private static final class PostingList {
+        private final NavigableSet<Posting> postings = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        PostingList add(Posting posting) {
+            if (postings.add(posting)) {
+                size.incrementAndGet();
+            }
+            return this;
+        }
+
+        /**
+         * 移除后为空时返回null，使所属Map删除该词项
+         */
+        PostingList remove(Posting posting) {
+            if (postings.remove(posting)) {
+                size.decrementAndGet();
+            }
+            return postings.isEmpty() ? null : this;
+        }
+    }
+
+    private record Document(long id, LocalDateTime timestamp, String text, List<String> words, Set<String> terms) {
+    }
+
+    record Analyzed(String text, List<String> words, List<String> cjkRuns, Set<String> terms, boolean lastIsWord) {
+        static final Analyzed EMPTY = new Analyzed("", List.of(), List.of(), Set.of(), false);
+    }
+
+    private record Query(PostingList driver, Set<String> exactTerms, String prefixWord, List<String> cjkRuns) {
+
+        boolean matches(Document document) {
+            if (!document.terms().containsAll(exactTerms)) {
+                return false;
+            }
+            if (prefixWord != null && document.words().stream().noneMatch(word -> word.startsWith(prefixWord))) {
+                return false;
+            }
+            // 二字片段都命中不代表原文连续出现，最后按原文校验
+            for (String run : cjkRuns) {
+                if (!document.text().contains(run)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
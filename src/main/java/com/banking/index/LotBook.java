@@ -0,0 +1,383 @@
+package com.banking.index;
+
+import com.banking.model.CostMethod;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 按 (账户, 股票代码) 维护开仓批次和已实现盈亏的批次簿
+ * 每个持仓保存按 (成交时间, ID) 排序的成交流水，并同时维护两种成本口径：
+ * 先进先出的开仓批次队列，以及加权平均法下的持仓总成本。买入开一个批次，
+ * 卖出按两种口径分别结转成本并累计已实现盈亏；卖出股数超过当时持仓的部分不结转，计入未匹配股数。
+ * 按时间顺序新增的成交增量计入；更新、删除或晚到的历史成交会改变后续卖出的结转结果，
+ * 这时重算受影响的账户（只重放有变化的持仓），涉及多个账户时并行重算
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class LotBook {
+
+    private static final Comparator<TradeKey> TRADE_ORDER = Comparator
+            .comparing(TradeKey::timestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TradeKey::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Map<String, AccountLots> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * 计入一笔新成交，晚于该持仓已有成交时增量结转，否则重放该持仓
+     *
+     * @param transaction 交易
+     */
+    public void add(Transaction transaction) {
+        accounts.compute(transaction.getAccountNumber(), (accountNumber, lots) -> {
+            AccountLots updated = lots == null ? new AccountLots() : lots;
+            updated.add(transaction);
+            return updated;
+        });
+    }
+
+    /**
+     * 移除一笔成交并重算所在账户
+     *
+     * @param transaction 交易
+     */
+    public void remove(Transaction transaction) {
+        removeTrade(transaction);
+        recompute(List.of(transaction.getAccountNumber()));
+    }
+
+    /**
+     * 用更新后的成交替换原成交，并行重算原账户和新账户
+     *
+     * @param previous 更新前的交易
+     * @param current 更新后的交易
+     */
+    public void replace(Transaction previous, Transaction current) {
+        removeTrade(previous);
+        insertTrade(current);
+        recompute(previous.getAccountNumber().equals(current.getAccountNumber())
+                ? List.of(current.getAccountNumber())
+                : List.of(previous.getAccountNumber(), current.getAccountNumber()));
+    }
+
+    /**
+     * 账户全部持仓在指定成本口径下的盈亏，按股票代码排序
+     *
+     * @param accountNumber 账户号码
+     * @param method 成本计算方法
+     * @return 持仓盈亏列表，账户不存在时为空
+     */
+    public List<LotPosition> get(String accountNumber, CostMethod method) {
+        AccountLots lots = accounts.get(accountNumber);
+        return lots == null ? List.of() : lots.list(method);
+    }
+
+    /**
+     * 单个持仓在指定成本口径下的盈亏
+     *
+     * @param accountNumber 账户号码
+     * @param securityCode 股票代码
+     * @param method 成本计算方法
+     * @return 持仓盈亏，不存在时为null
+     */
+    public LotPosition get(String accountNumber, String securityCode, CostMethod method) {
+        AccountLots lots = accounts.get(accountNumber);
+        return lots == null ? null : lots.get(securityCode, method);
+    }
+
+    /**
+     * 用全部交易重建批次簿，各账户并行重放
+     *
+     * @param transactions 全部交易
+     */
+    public void rebuild(Collection<Transaction> transactions) {
+        clear();
+        Map<String, List<Transaction>> byAccount = transactions.stream()
+                .collect(Collectors.groupingBy(Transaction::getAccountNumber));
+        byAccount.values().forEach(list -> list.forEach(this::insertTrade));
+        recompute(byAccount.keySet());
+    }
+
+    /**
+     * 清空批次簿
+     */
+    public void clear() {
+        accounts.clear();
+    }
+
+    /**
+     * 先进先出口径下全部未平仓批次数
+     *
+     * @return 批次数
+     */
+    public int size() {
+        return accounts.values().stream().mapToInt(AccountLots::openLots).sum();
+    }
+
+    /**
+     * 只把成交加入流水，结转留给 {@link #recompute}
+     */
+    private void insertTrade(Transaction transaction) {
+        accounts.compute(transaction.getAccountNumber(), (accountNumber, lots) -> {
+            AccountLots updated = lots == null ? new AccountLots() : lots;
+            updated.insert(transaction);
+            return updated;
+        });
+    }
+
+    private void removeTrade(Transaction transaction) {
+        accounts.computeIfPresent(transaction.getAccountNumber(), (accountNumber, lots) -> {
+            lots.remove(transaction);
+            return lots;
+        });
+    }
+
+    private void recompute(Collection<String> accountNumbers) {
+        accountNumbers.parallelStream().forEach(accountNumber ->
+                accounts.computeIfPresent(accountNumber, (key, lots) -> lots.recompute() ? null : lots));
+    }
+
+    /**
+     * 按比例分摊：value * part / whole，HALF_UP舍入；乘积超出long时改用BigDecimal
+     */
+    static long prorate(long value, long part, long whole) {
+        if (part == whole) {
+            return value;
+        }
+        long high = Math.multiplyHigh(value, part);
+        long low = value * part;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return Money.ofScaled(low).dividedBy(whole).scaledValue();
+        }
+        return BigDecimal.valueOf(value).multiply(BigDecimal.valueOf(part))
+                .divide(BigDecimal.valueOf(whole), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    /**
+     * 一个账户的批次，读取时与修改互斥
+     */
+    private static final class AccountLots {
+
+        private final Map<String, SecurityLots> securities = new HashMap<>();
+        private final Set<SecurityLots> dirty = new HashSet<>();
+
+        synchronized void add(Transaction transaction) {
+            securities.computeIfAbsent(transaction.getSecurityCode(), k -> new SecurityLots())
+                    .add(Trade.of(transaction));
+        }
+
+        synchronized void insert(Transaction transaction) {
+            SecurityLots lots = securities.computeIfAbsent(transaction.getSecurityCode(), k -> new SecurityLots());
+            lots.insert(Trade.of(transaction));
+            dirty.add(lots);
+        }
+
+        synchronized void remove(Transaction transaction) {
+            SecurityLots lots = securities.get(transaction.getSecurityCode());
+            if (lots != null && lots.remove(transaction.getId())) {
+                dirty.add(lots);
+            }
+        }
+
+        /**
+         * 重放有变化的持仓，移除已无成交的持仓
+         *
+         * @return 账户是否已无任何持仓
+         */
+        synchronized boolean recompute() {
+            dirty.forEach(SecurityLots::replay);
+            dirty.clear();
+            securities.values().removeIf(SecurityLots::isEmpty);
+            return securities.isEmpty();
+        }
+
+        synchronized List<LotPosition> list(CostMethod method) {
+            List<LotPosition> list = new ArrayList<>(securities.size());
+            securities.forEach((securityCode, lots) -> list.add(lots.toPosition(securityCode, method)));
+            list.sort(Comparator.comparing(LotPosition::securityCode));
+            return list;
+        }
+
+        synchronized LotPosition get(String securityCode, CostMethod method) {
+            SecurityLots lots = securities.get(securityCode);
+            return lots == null ? null : lots.toPosition(securityCode, method);
+        }
+
+        synchronized int openLots() {
+            return securities.values().stream().mapToInt(lots -> lots.fifoLots.size()).sum();
+        }
+    }
+
+    /**
+     * 一个持仓的成交流水和两种口径下的结转状态，金额均为4位小数定点long
+     */
+    private static final class SecurityLots {
+
+        private final TreeMap<TradeKey, Trade> ledger = new TreeMap<>(TRADE_ORDER);
+        private final Map<Long, Trade> byId = new HashMap<>();
+
+        private final ArrayDeque<Lot> fifoLots = new ArrayDeque<>();
+        private long openUnits;
+        private long fifoCost;
+        private long averageCost;
+        private long fifoRealized;
+        private long averageRealized;
+        private long unmatchedSellUnits;
+        private LocalDateTime lastTradeTime;
+
+        void add(Trade trade) {
+            boolean replaced = insert(trade);
+            if (!replaced && ledger.lastKey() == trade.key()) {
+                apply(trade);
+            } else {
+                replay();
+            }
+        }
+
+        /**
+         * 加入流水，同一ID的旧成交被替换
+         *
+         * @return 是否替换了旧成交
+         */
+        boolean insert(Trade trade) {
+            Trade replaced = trade.key().id() == null ? null : byId.put(trade.key().id(), trade);
+            if (replaced != null) {
+                ledger.remove(replaced.key());
+            }
+            ledger.put(trade.key(), trade);
+            return replaced != null;
+        }
+
+        boolean remove(Long id) {
+            Trade trade = id == null ? null : byId.remove(id);
+            return trade != null && ledger.remove(trade.key()) != null;
+        }
+
+        boolean isEmpty() {
+            return ledger.isEmpty();
+        }
+
+        void replay() {
+            fifoLots.clear();
+            openUnits = 0;
+            fifoCost = 0;
+            averageCost = 0;
+            fifoRealized = 0;
+            averageRealized = 0;
+            unmatchedSellUnits = 0;
+            lastTradeTime = null;
+            ledger.values().forEach(this::apply);
+        }
+
+        private void apply(Trade trade) {
+            lastTradeTime = trade.key().timestamp();
+            if (trade.buy()) {
+                fifoLots.addLast(new Lot(trade.units(), trade.amount()));
+                openUnits += trade.units();
+                fifoCost += trade.amount();
+                averageCost += trade.amount();
+                return;
+            }
+            long matched = Math.min(trade.units(), openUnits);
+            unmatchedSellUnits += trade.units() - matched;
+            if (matched == 0) {
+                return;
+            }
+            long proceeds = prorate(trade.amount(), matched, trade.units());
+
+            long consumed = 0;
+            long remaining = matched;
+            while (remaining > 0) {
+                Lot lot = fifoLots.peekFirst();
+                long take = Math.min(remaining, lot.units);
+                long cost = prorate(lot.cost, take, lot.units);
+                lot.units -= take;
+                lot.cost -= cost;
+                consumed += cost;
+                remaining -= take;
+                if (lot.units == 0) {
+                    fifoLots.pollFirst();
+                }
+            }
+            fifoCost -= consumed;
+            fifoRealized += proceeds - consumed;
+
+            long averageOut = prorate(averageCost, matched, openUnits);
+            averageCost -= averageOut;
+            averageRealized += proceeds - averageOut;
+            openUnits -= matched;
+        }
+
+        LotPosition toPosition(String securityCode, CostMethod method) {
+            boolean fifo = method == CostMethod.FIFO;
+            return new LotPosition(securityCode, method, openUnits,
+                    Money.ofScaled(fifo ? fifoCost : averageCost),
+                    Money.ofScaled(fifo ? fifoRealized : averageRealized),
+                    fifo ? fifoLots.size() : (openUnits > 0 ? 1 : 0),
+                    unmatchedSellUnits, ledger.size(), lastTradeTime);
+        }
+    }
+
+    private record TradeKey(LocalDateTime timestamp, Long id) {
+    }
+
+    private record Trade(TradeKey key, boolean buy, long units, long amount) {
+
+        static Trade of(Transaction transaction) {
+            return new Trade(new TradeKey(transaction.getTimestamp(), transaction.getId()),
+                    transaction.getTransType() == TransactionType.BUY, transaction.getUnit(),
+                    Money.of(transaction.getAmount()).scaledValue());
+        }
+    }
+
+    /**
+     * 先进先出口径下的一个开仓批次：剩余股数和剩余成本
+     */
+    private static final class Lot {
+
+        private long units;
+        private long cost;
+
+        Lot(long units, long cost) {
+            this.units = units;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * 持仓在某一成本口径下的盈亏
+     *
+     * @param securityCode 股票代码
+     * @param method 成本计算方法
+     * @param openUnits 未平仓股数
+     * @param costBasis 未平仓部分的成本
+     * @param realizedPnl 累计已实现盈亏
+     * @param openLots 未平仓批次数（加权平均法合并为一个批次）
+     * @param unmatchedSellUnits 超过当时持仓、未结转成本的卖出股数
+     * @param tradeCount 成交笔数
+     * @param lastTradeTime 最近成交时间
+     */
+    public record LotPosition(String securityCode, CostMethod method, long openUnits, Money costBasis,
+                              Money realizedPnl, int openLots, long unmatchedSellUnits, long tradeCount,
+                              LocalDateTime lastTradeTime) {
+    }
+}
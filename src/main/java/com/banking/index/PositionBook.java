@@ -0,0 +1,313 @@
+package com.banking.index;
+
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 (账户, 股票代码) 维护的持仓簿
+ * 每个持仓只保存累计买入/卖出的股数和金额、净持仓和最近成交时间；持仓成本依赖成交顺序，由 {@link LotBook} 的加权平均口径提供。
+ * 同一账户的修改在该账户的锁内完成，按账户查询只读取该账户的持仓，不扫描交易。
+ * {@link #snapshot()} 逐个账户在该账户的锁内复制持仓，不阻塞其他账户的写操作，因此快照中每个账户是某一时刻的完整持仓。
+ * 卖出委托写入前通过 {@link #reserve} 预占可卖股数（净持仓 - 已预占），同一账户的并发卖出不会超卖；
+ * 写入后由 {@link #add(Transaction, long)} 在同一临界区内把预占转为已卖出，写入失败时才通过 {@link #release} 释放
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class PositionBook {
+
+    private final Map<String, AccountPositions> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * 计入一笔交易
+     *
+     * @param transaction 交易
+     */
+    public void add(Transaction transaction) {
+        add(transaction, 0);
+    }
+
+    /**
+     * 计入一笔已预占可卖股数的卖出交易，同时释放其预占
+     * 计入和释放在同一临界区内完成，卖出股数不会同时计为已卖出和已预占
+     *
+     * @param transaction 交易
+     * @param reservedUnits 该交易预占的股数，没有预占时为0
+     */
+    public void add(Transaction transaction, long reservedUnits) {
+        apply(transaction, 1, reservedUnits);
+    }
+
+    /**
+     * 移除一笔交易的贡献
+     *
+     * @param transaction 交易
+     */
+    public void remove(Transaction transaction) {
+        apply(transaction, -1, 0);
+    }
+
+    /**
+     * 用修改后的交易替换修改前的交易
+     *
+     * @param previous 修改前的交易
+     * @param current 修改后的交易
+     */
+    public void replace(Transaction previous, Transaction current) {
+        apply(previous, -1, 0);
+        apply(current, 1, 0);
+    }
+
+    /**
+     * 预占可卖股数，可卖股数足够时预占并返回true
+     * 预占随交易通过 {@link #add(Transaction, long)} 计入持仓簿时转为已卖出，交易未写入时通过 {@link #release} 释放，
+     * 期间同一持仓的其他卖出看不到这部分股数
+     *
+     * @param accountNumber 账户号码
+     * @param securityCode 股票代码
+     * @param units 卖出股数
+     * @return 是否预占成功
+     */
+    public boolean reserve(String accountNumber, String securityCode, long units) {
+        // 账户只在没有任何持仓和预占时才被移除，已移除的账户对象预占必然失败，不需要在compute中执行
+        AccountPositions positions = accounts.get(accountNumber);
+        return positions != null && positions.reserve(securityCode, units);
+    }
+
+    /**
+     * 释放 {@link #reserve} 预占的股数
+     *
+     * @param accountNumber 账户号码
+     * @param securityCode 股票代码
+     * @param units 卖出股数
+     */
+    public void release(String accountNumber, String securityCode, long units) {
+        accounts.computeIfPresent(accountNumber, (key, positions) -> {
+            positions.release(securityCode, units);
+            return positions.isEmpty() ? null : positions;
+        });
+    }
+
+    /**
+     * 当前可卖股数
+     *
+     * @param accountNumber 账户号码
+     * @param securityCode 股票代码
+     * @return 净持仓减去已预占的股数，没有持仓时为0
+     */
+    public long available(String accountNumber, String securityCode) {
+        AccountPositions positions = accounts.get(accountNumber);
+        return positions == null ? 0 : positions.available(securityCode);
+    }
+
+    /**
+     * 账户的全部持仓，按股票代码排序
+     *
+     * @param accountNumber 账户号码
+     * @return 持仓列表，账户不存在时为空
+     */
+    public List<Position> get(String accountNumber) {
+        AccountPositions positions = accounts.get(accountNumber);
+        return positions == null ? List.of() : positions.list();
+    }
+
+    /**
+     * 单个持仓
+     *
+     * @param accountNumber 账户号码
+     * @param securityCode 股票代码
+     * @return 持仓，不存在时为null
+     */
+    public Position get(String accountNumber, String securityCode) {
+        AccountPositions positions = accounts.get(accountNumber);
+        return positions == null ? null : positions.get(securityCode);
+    }
+
+    /**
+     * 全部持仓，每个账户在该账户的锁内复制
+     *
+     * @return 账户 -> 持仓列表
+     */
+    public Map<String, List<Position>> snapshot() {
+        Map<String, List<Position>> snapshot = new HashMap<>(accounts.size() * 2);
+        accounts.forEach((accountNumber, positions) -> {
+            List<Position> list = positions.list();
+            if (!list.isEmpty()) {
+                snapshot.put(accountNumber, list);
+            }
+        });
+        return snapshot;
+    }
+
+    /**
+     * 用全部交易并行重建持仓簿
+     *
+     * @param transactions 全部交易
+     */
+    public void rebuild(Collection<Transaction> transactions) {
+        clear();
+        transactions.parallelStream().forEach(this::add);
+    }
+
+    /**
+     * 清空持仓簿
+     */
+    public void clear() {
+        accounts.clear();
+    }
+
+    /**
+     * 当前维护的持仓数量
+     *
+     * @return 持仓数量
+     */
+    public int size() {
+        return accounts.values().stream().mapToInt(AccountPositions::size).sum();
+    }
+
+    private void apply(Transaction transaction, int sign, long releasedUnits) {
+        accounts.compute(transaction.getAccountNumber(), (accountNumber, positions) -> {
+            AccountPositions updated = positions == null ? new AccountPositions() : positions;
+            updated.apply(transaction, sign, releasedUnits);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    /**
+     * 一个账户的持仓，只在 {@link ConcurrentHashMap#compute} 中修改，读取时与修改互斥
+     */
+    private static final class AccountPositions {
+
+        private final Map<String, Holding> holdings = new HashMap<>();
+
+        synchronized void apply(Transaction transaction, int sign, long releasedUnits) {
+            Holding holding = holdings.computeIfAbsent(transaction.getSecurityCode(), k -> new Holding());
+            holding.apply(transaction, sign);
+            holding.reservedUnits -= releasedUnits;
+            removeIfUnused(transaction.getSecurityCode(), holding);
+        }
+
+        synchronized boolean reserve(String securityCode, long units) {
+            Holding holding = holdings.get(securityCode);
+            if (holding == null || holding.available() < units) {
+                return false;
+            }
+            holding.reservedUnits += units;
+            return true;
+        }
+
+        synchronized void release(String securityCode, long units) {
+            Holding holding = holdings.get(securityCode);
+            if (holding != null) {
+                holding.reservedUnits -= units;
+                removeIfUnused(securityCode, holding);
+            }
+        }
+
+        synchronized long available(String securityCode) {
+            Holding holding = holdings.get(securityCode);
+            return holding == null ? 0 : Math.max(holding.available(), 0);
+        }
+
+        synchronized Position get(String securityCode) {
+            Holding holding = holdings.get(securityCode);
+            return holding == null || holding.tradeCount == 0 ? null : holding.toPosition(securityCode);
+        }
+
+        synchronized List<Position> list() {
+            List<Position> list = new ArrayList<>(holdings.size());
+            holdings.forEach((securityCode, holding) -> {
+                if (holding.tradeCount > 0) {
+                    list.add(holding.toPosition(securityCode));
+                }
+            });
+            list.sort(Comparator.comparing(Position::securityCode));
+            return list;
+        }
+
+        synchronized int size() {
+            return (int) holdings.values().stream().filter(holding -> holding.tradeCount > 0).count();
+        }
+
+        synchronized boolean isEmpty() {
+            return holdings.isEmpty();
+        }
+
+        /**
+         * 交易全部删除且没有未释放的预占时移除持仓
+         */
+        private void removeIfUnused(String securityCode, Holding holding) {
+            if (holding.tradeCount == 0 && holding.reservedUnits == 0) {
+                holdings.remove(securityCode);
+            }
+        }
+    }
+
+    /**
+     * 单个持仓的累计值；成交时间按多重集合保存，删除最近一笔后可以回退到前一笔的时间
+     */
+    private static final class Holding {
+
+        private long tradeCount;
+        private long boughtUnits;
+        private long boughtAmountScaled;
+        private long soldUnits;
+        private long soldAmountScaled;
+        private long reservedUnits;
+        private final TreeMap<LocalDateTime, Integer> tradeTimes = new TreeMap<>();
+
+        void apply(Transaction transaction, int sign) {
+            long units = sign * transaction.getUnit();
+            long amountScaled = sign * Money.of(transaction.getAmount()).scaledValue();
+            if (transaction.getTransType() == TransactionType.BUY) {
+                boughtUnits = Math.addExact(boughtUnits, units);
+                boughtAmountScaled = Math.addExact(boughtAmountScaled, amountScaled);
+            } else {
+                soldUnits = Math.addExact(soldUnits, units);
+                soldAmountScaled = Math.addExact(soldAmountScaled, amountScaled);
+            }
+            tradeCount += sign;
+            if (transaction.getTimestamp() != null) {
+                tradeTimes.merge(transaction.getTimestamp(), sign, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+
+        long available() {
+            return boughtUnits - soldUnits - reservedUnits;
+        }
+
+        Position toPosition(String securityCode) {
+            return new Position(securityCode, boughtUnits - soldUnits,
+                    boughtUnits, Money.ofScaled(boughtAmountScaled), soldUnits, Money.ofScaled(soldAmountScaled),
+                    tradeCount, tradeTimes.isEmpty() ? null : tradeTimes.lastKey());
+        }
+    }
+
+    /**
+     * 持仓
+     *
+     * @param securityCode 股票代码
+     * @param netUnits 净持仓股数（买入 - 卖出）
+     * @param boughtUnits 累计买入股数
+     * @param boughtAmount 累计买入金额
+     * @param soldUnits 累计卖出股数
+     * @param soldAmount 累计卖出金额
+     * @param tradeCount 成交笔数
+     * @param lastTradeTime 最近成交时间
+     */
+    public record Position(String securityCode, long netUnits, long boughtUnits, Money boughtAmount,
+                           long soldUnits, Money soldAmount, long tradeCount, LocalDateTime lastTradeTime) {
+    }
+}
@@ -0,0 +1,295 @@
+package com.banking.index;
+
+import com.banking.index.DailyStatisticsIndex.Aggregate;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 按 (股票代码, 交易类型) 维护的分钟级前缀和索引
+ * 每个维度是两层树状数组（Fenwick tree）：外层按天，内层按当天的1440个分钟桶，内层在该天首笔交易时分配。
+ * 任意 [start, end) 区间的笔数、股数、金额为两次前缀和之差，时间复杂度 O(log 天数 + log 1440)。
+ * 交易时间早于已有数据（补录）时外层按天数重新分配，删除和更新以负增量写入。
+ * 某天笔数减到0时释放该天的内层数组，维度的全部交易都被删除后整个维度从索引中移除，内存只随现存交易的天数增长。
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class TimeBucketIndex {
+
+    static final int MINUTES_PER_DAY = 1440;
+
+    private final Map<Key, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * 计入一笔交易
+     *
+     * @param transaction 交易
+     */
+    public void add(Transaction transaction) {
+        apply(transaction, 1);
+    }
+
+    /**
+     * 移除一笔交易的贡献
+     *
+     * @param transaction 交易
+     */
+    public void remove(Transaction transaction) {
+        apply(transaction, -1);
+    }
+
+    /**
+     * 用全部交易并行重建索引
+     *
+     * @param transactions 全部交易
+     */
+    public void rebuild(Collection<Transaction> transactions) {
+        clear();
+        transactions.parallelStream().forEach(this::add);
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        series.clear();
+    }
+
+    /**
+     * 统计 [start, end) 内的成交，边界必须是整分钟
+     *
+     * @param securityCode 股票代码，为null时统计全部股票
+     * @param transType 交易类型
+     * @param start 开始时间（含）
+     * @param end 结束时间（不含）
+     * @return 区间累计值
+     */
+    public Aggregate get(String securityCode, TransactionType transType, LocalDateTime start, LocalDateTime end) {
+        long startMinute = epochMinute(start);
+        long endMinute = epochMinute(end);
+        if (startMinute >= endMinute) {
+            return Aggregate.EMPTY;
+        }
+        if (securityCode != null) {
+            Series one = series.get(new Key(securityCode, transType));
+            return one == null ? Aggregate.EMPTY : one.between(startMinute, endMinute);
+        }
+        Aggregate total = Aggregate.EMPTY;
+        for (Map.Entry<Key, Series> entry : series.entrySet()) {
+            if (entry.getKey().transType() == transType) {
+                total = total.plus(entry.getValue().between(startMinute, endMinute));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 当前保留的维度数（测试用）
+     */
+    int seriesCount() {
+        return series.size();
+    }
+
+    /**
+     * 当前保留的内层数组总数（测试用）
+     */
+    int dayCount() {
+        return series.values().stream().mapToInt(Series::dayCount).sum();
+    }
+
+    private void apply(Transaction transaction, int sign) {
+        long minute = epochMinute(transaction.getTimestamp());
+        long units = sign * transaction.getUnit();
+        long amountScaled = sign * Money.of(transaction.getAmount()).scaledValue();
+        // 在映射的原子计算内写入，清空的维度移除时不会与并发写入同一维度交错
+        series.compute(new Key(transaction.getSecurityCode(), transaction.getTransType()), (key, existing) -> {
+            Series target = existing == null ? new Series() : existing;
+            target.add(minute, sign, units, amountScaled);
+            return target.isEmpty() ? null : target;
+        });
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private record Key(String securityCode, TransactionType transType) {
+    }
+
+    /**
+     * 单个维度的两层树状数组，读写锁保护多个数组的一致性
+     */
+    private static final class Series {
+
+        private static final int INITIAL_DAYS = 16;
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * 外层下标0对应的日期（epoch day）
+         */
+        private long originDay;
+        private FenwickTree days;
+        private final Map<Long, FenwickTree> minutesByDay = new HashMap<>();
+
+        void add(long epochMinute, long count, long units, long amountScaled) {
+            long day = Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+            int minuteOfDay = (int) Math.floorMod(epochMinute, MINUTES_PER_DAY);
+            lock.writeLock().lock();
+            try {
+                ensureDay(day);
+                FenwickTree minutes = minutesByDay.computeIfAbsent(day, d -> new FenwickTree(MINUTES_PER_DAY));
+                minutes.add(minuteOfDay, count, units, amountScaled);
+                days.add((int) (day - originDay), count, units, amountScaled);
+                if (minutes.count() == 0) {
+                    minutesByDay.remove(day);
+                    if (minutesByDay.isEmpty()) {
+                        days = null;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean isEmpty() {
+            lock.readLock().lock();
+            try {
+                return days == null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int dayCount() {
+            lock.readLock().lock();
+            try {
+                return minutesByDay.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Aggregate between(long startMinute, long endMinute) {
+            lock.readLock().lock();
+            try {
+                if (days == null) {
+                    return Aggregate.EMPTY;
+                }
+                long[] end = prefix(endMinute);
+                long[] start = prefix(startMinute);
+                return new Aggregate(end[0] - start[0], end[1] - start[1], end[2] - start[2]);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 早于 epochMinute 的全部分钟桶之和
+         */
+        private long[] prefix(long epochMinute) {
+            long day = Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+            long[] sum = new long[3];
+            if (day < originDay) {
+                return sum;
+            }
+            if (day - originDay >= days.size()) {
+                days.prefix(days.size(), sum);
+                return sum;
+            }
+            days.prefix((int) (day - originDay), sum);
+            FenwickTree minutes = minutesByDay.get(day);
+            if (minutes != null) {
+                minutes.prefix((int) Math.floorMod(epochMinute, MINUTES_PER_DAY), sum);
+            }
+            return sum;
+        }
+
+        /**
+         * 保证外层覆盖指定日期，超出时按新的日期范围加倍容量，并用各天的内层总和重建外层
+         */
+        private void ensureDay(long day) {
+            if (days == null) {
+                originDay = day;
+                days = new FenwickTree(INITIAL_DAYS);
+                return;
+            }
+            if (day >= originDay && day - originDay < days.size()) {
+                return;
+            }
+            long first = Math.min(originDay, day);
+            long last = Math.max(originDay + days.size() - 1, day);
+            int capacity = days.size();
+            while (capacity < last - first + 1) {
+                capacity *= 2;
+            }
+            FenwickTree rebuilt = new FenwickTree(capacity);
+            long[] total = new long[3];
+            for (Map.Entry<Long, FenwickTree> entry : minutesByDay.entrySet()) {
+                total[0] = total[1] = total[2] = 0;
+                entry.getValue().prefix(MINUTES_PER_DAY, total);
+                rebuilt.add((int) (entry.getKey() - first), total[0], total[1], total[2]);
+            }
+            originDay = first;
+            days = rebuilt;
+        }
+    }
+
+    /**
+     * 同时维护笔数、股数、金额三列的树状数组，下标从0开始
+     */
+    static final class FenwickTree {
+
+        private final long[] counts;
+        private final long[] units;
+        private final long[] amounts;
+        private long count;
+
+        FenwickTree(int size) {
+            counts = new long[size + 1];
+            units = new long[size + 1];
+            amounts = new long[size + 1];
+        }
+
+        int size() {
+            return counts.length - 1;
+        }
+
+        /**
+         * 全部下标的笔数之和
+         */
+        long count() {
+            return count;
+        }
+
+        void add(int index, long count, long unit, long amountScaled) {
+            this.count += count;
+            for (int i = index + 1; i < counts.length; i += i & -i) {
+                counts[i] += count;
+                units[i] = Math.addExact(units[i], unit);
+                amounts[i] = Math.addExact(amounts[i], amountScaled);
+            }
+        }
+
+        /**
+         * 将下标 [0, end) 之和累加到 sum（笔数、股数、金额）
+         */
+        void prefix(int end, long[] sum) {
+            for (int i = end; i > 0; i -= i & -i) {
+                sum[0] += counts[i];
+                sum[1] += units[i];
+                sum[2] += amounts[i];
+            }
+        }
+    }
+}
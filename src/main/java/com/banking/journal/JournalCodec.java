@@ -0,0 +1,163 @@
+package com.banking.journal;
+
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 交易日志二进制编解码
+ * 定长字段直接写入，字符串和BigDecimal带长度前缀，null以长度-1表示
+ *
+ * <pre>
+ * id:long | transType:byte | unit:long | price | amount | balance
+ * | transDate:int(epochDay) | timestamp:long(epochSecond) + int(nano)
+ * | accountNumber | securityCode | currency | description | version:long
+ * </pre>
+ * 版本号追加在记录末尾，旧日志中没有版本号的记录解码为版本0
+ *
+ * @author Kongloih Zhang F
+ */
+public final class JournalCodec {
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private JournalCodec() {
+    }
+
+    /**
+     * 编码交易
+     *
+     * @param transaction 交易（ID不能为空）
+     * @return 编码后的字节
+     */
+    public static byte[] encode(Transaction transaction) {
+        byte[] accountNumber = utf8(transaction.getAccountNumber());
+        byte[] securityCode = utf8(transaction.getSecurityCode());
+        byte[] currency = utf8(transaction.getCurrency());
+        byte[] description = utf8(transaction.getDescription());
+        byte[] price = unscaled(transaction.getPrice());
+        byte[] amount = unscaled(transaction.getAmount());
+        byte[] balance = unscaled(transaction.getBalance());
+
+        int size = Long.BYTES + 1 + Long.BYTES
+                + decimalSize(price) + decimalSize(amount) + decimalSize(balance)
+                + Integer.BYTES + Long.BYTES + Integer.BYTES
+                + stringSize(accountNumber) + stringSize(securityCode) + stringSize(currency) + stringSize(description)
+                + Long.BYTES;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(transaction.getId());
+        buffer.put((byte) transaction.getTransType().ordinal());
+        buffer.putLong(transaction.getUnit());
+        putDecimal(buffer, transaction.getPrice(), price);
+        putDecimal(buffer, transaction.getAmount(), amount);
+        putDecimal(buffer, transaction.getBalance(), balance);
+        buffer.putInt((int) transaction.getTransDate().toEpochDay());
+        buffer.putLong(transaction.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(transaction.getTimestamp().getNano());
+        putString(buffer, accountNumber);
+        putString(buffer, securityCode);
+        putString(buffer, currency);
+        putString(buffer, description);
+        buffer.putLong(transaction.getVersion());
+        return buffer.array();
+    }
+
+    /**
+     * 解码交易
+     *
+     * @param buffer 定位在记录起始处、上限为记录末尾的缓冲区
+     * @return 交易
+     */
+    public static Transaction decode(ByteBuffer buffer) {
+        Transaction transaction = new Transaction();
+        transaction.setId(buffer.getLong());
+        transaction.setTransType(TYPES[buffer.get()]);
+        transaction.setUnit(buffer.getLong());
+        transaction.setPrice(getDecimal(buffer));
+        transaction.setAmount(getDecimal(buffer));
+        transaction.setBalance(getDecimal(buffer));
+        transaction.setTransDate(LocalDate.ofEpochDay(buffer.getInt()));
+        long epochSecond = buffer.getLong();
+        transaction.setTimestamp(LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(), ZoneOffset.UTC));
+        transaction.setAccountNumber(getString(buffer));
+        transaction.setSecurityCode(getString(buffer));
+        transaction.setCurrency(getString(buffer));
+        transaction.setDescription(getString(buffer));
+        if (buffer.hasRemaining()) {
+            transaction.setVersion(buffer.getLong());
+        }
+        return transaction;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] unscaled(BigDecimal value) {
+        return value == null ? null : value.unscaledValue().toByteArray();
+    }
+
+    private static int stringSize(byte[] bytes) {
+        return Short.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static int decimalSize(byte[] unscaled) {
+        return 1 + (unscaled == null ? 0 : Short.BYTES + unscaled.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("字段长度超出日志编码上限: " + bytes.length);
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 小数按 scale:byte | length:short | unscaled 编码，null时scale写入-128
+     */
+    private static void putDecimal(ByteBuffer buffer, BigDecimal value, byte[] unscaled) {
+        if (value == null) {
+            buffer.put(Byte.MIN_VALUE);
+            return;
+        }
+        if (value.scale() <= Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("小数精度超出日志编码范围: " + value);
+        }
+        buffer.put((byte) value.scale());
+        buffer.putShort((short) unscaled.length);
+        buffer.put(unscaled);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        byte scale = buffer.get();
+        if (scale == Byte.MIN_VALUE) {
+            return null;
+        }
+        byte[] unscaled = new byte[buffer.getShort()];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
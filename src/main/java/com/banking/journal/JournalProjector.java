@@ -0,0 +1,239 @@
+package com.banking.journal;
+
+import com.banking.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把日志中的写入异步投影到 transactions 表
+ * 单个投影线程按提交顺序批量执行，连续的写入合并为一次JDBC批量MERGE，整批在一个数据库事务中提交；
+ * 数据库暂时不可用时按固定间隔重试同一批操作，投影只落后不丢失。
+ * JDBC写入绕过了Hibernate，每批提交后主动清除涉及的二级缓存实体和查询缓存结果
+ *
+ * @author Kongloih Zhang F
+ */
+public class JournalProjector implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalProjector.class);
+
+    private static final String MERGE_SQL = "MERGE INTO transactions (id, account_number, amount, trans_type, unit, "
+            + "price, trans_date, security_code, description, timestamp, currency, balance, version) "
+            + "KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM transactions WHERE id = ?";
+    private static final String CLEAR_SQL = "DELETE FROM transactions";
+
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache secondLevelCache;
+    private final int batchSize;
+    private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final Counter failures;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * 投影操作：transactions非空为写入，id非空为删除，两者都为空为清空
+     */
+    private record Operation(List<Transaction> transactions, Long id) {
+    }
+
+    public JournalProjector(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Cache secondLevelCache,
+                            int batchSize, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.secondLevelCache = secondLevelCache;
+        this.batchSize = batchSize;
+
+        Gauge.builder("journal.projection.lag", this, JournalProjector::getLag)
+                .description("尚未投影到数据库的日志操作数")
+                .register(meterRegistry);
+        this.failures = Counter.builder("journal.projection.failures")
+                .description("投影写入数据库失败次数")
+                .register(meterRegistry);
+
+        this.worker = Thread.ofPlatform()
+                .name("transaction-journal-projector")
+                .daemon(true)
+                .start(this::run);
+    }
+
+    /**
+     * 投影新增或修改的交易
+     *
+     * @param transactions 交易快照
+     */
+    public void upsert(List<Transaction> transactions) {
+        if (!transactions.isEmpty()) {
+            enqueue(new Operation(transactions, null));
+        }
+    }
+
+    /**
+     * 投影删除
+     *
+     * @param id 交易ID
+     */
+    public void delete(Long id) {
+        enqueue(new Operation(null, id));
+    }
+
+    /**
+     * 投影清空
+     */
+    public void clear() {
+        enqueue(new Operation(null, null));
+    }
+
+    /**
+     * 尚未投影的操作数
+     *
+     * @return 落后的操作数
+     */
+    public long getLag() {
+        return submitted.get() - applied.get();
+    }
+
+    /**
+     * 等待此前提交的操作全部投影完成
+     *
+     * @param timeout 最长等待时间
+     * @return 是否已追上
+     * @throws InterruptedException 等待被中断
+     */
+    public boolean awaitCaughtUp(Duration timeout) throws InterruptedException {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (applied.get() < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void enqueue(Operation operation) {
+        submitted.incrementAndGet();
+        queue.add(operation);
+    }
+
+    private void run() {
+        List<Operation> operations = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                Operation first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                operations.add(first);
+                queue.drainTo(operations);
+                applyWithRetry(operations);
+                applied.addAndGet(operations.size());
+                operations.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void applyWithRetry(List<Operation> operations) throws InterruptedException {
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(operations));
+                evictCaches(operations);
+                return;
+            } catch (RuntimeException ex) {
+                failures.increment();
+                log.warn("交易日志投影失败，{}ms后重试", RETRY_BACKOFF_MILLIS, ex);
+                if (!running) {
+                    return;
+                }
+                Thread.sleep(RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void apply(List<Operation> operations) {
+        List<Transaction> pending = new ArrayList<>();
+        for (Operation operation : operations) {
+            if (operation.transactions() != null) {
+                pending.addAll(operation.transactions());
+                continue;
+            }
+            // 删除和清空必须在之前的写入之后执行
+            merge(pending);
+            pending.clear();
+            if (operation.id() != null) {
+                jdbcTemplate.update(DELETE_SQL, operation.id());
+            } else {
+                jdbcTemplate.update(CLEAR_SQL);
+            }
+        }
+        merge(pending);
+    }
+
+    private void evictCaches(List<Operation> operations) {
+        for (Operation operation : operations) {
+            if (operation.transactions() != null) {
+                operation.transactions().forEach(t -> secondLevelCache.evictEntityData(Transaction.class, t.getId()));
+            } else if (operation.id() != null) {
+                secondLevelCache.evictEntityData(Transaction.class, operation.id());
+            } else {
+                secondLevelCache.evictEntityData(Transaction.class);
+            }
+        }
+        secondLevelCache.evictQueryRegions();
+    }
+
+    private void merge(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(MERGE_SQL, transactions, batchSize, (ps, transaction) -> {
+            ps.setLong(1, transaction.getId());
+            ps.setString(2, transaction.getAccountNumber());
+            ps.setBigDecimal(3, transaction.getAmount());
+            ps.setString(4, transaction.getTransType().name());
+            ps.setLong(5, transaction.getUnit());
+            ps.setBigDecimal(6, transaction.getPrice());
+            ps.setDate(7, Date.valueOf(transaction.getTransDate()));
+            ps.setString(8, transaction.getSecurityCode());
+            ps.setString(9, transaction.getDescription());
+            ps.setTimestamp(10, Timestamp.valueOf(transaction.getTimestamp()));
+            ps.setString(11, transaction.getCurrency());
+            if (transaction.getBalance() != null) {
+                ps.setBigDecimal(12, transaction.getBalance());
+            } else {
+                ps.setNull(12, Types.DECIMAL);
+            }
+            ps.setLong(13, transaction.getVersion());
+        });
+    }
+}
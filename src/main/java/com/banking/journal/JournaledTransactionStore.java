@@ -0,0 +1,220 @@
+package com.banking.journal;
+
+import com.banking.model.Transaction;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 以日志为准的交易存储
+ * 每次写入先追加到 {@link TransactionJournal}，再更新内存中的交易表并交给 {@link JournalProjector} 异步投影到数据库；
+ * 启动时回放日志重建内存交易表和ID序列，并把全部交易重新投影一次
+ * 写入在同一把锁内完成，保证日志顺序、内存状态和投影顺序一致；
+ * 覆盖已有交易时按版本号做乐观锁检查，与JPA模式的 {@code @Version} 行为一致
+ *
+ * @author Kongloih Zhang F
+ */
+public class JournaledTransactionStore {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte CLEAR = 3;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final TransactionJournal journal;
+    private final JournalProjector projector;
+    private final Map<Long, Transaction> transactions = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    /**
+     * 写入锁；等待该锁的虚拟线程会让出载体线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public JournaledTransactionStore(TransactionJournal journal, JournalProjector projector) {
+        this.journal = journal;
+        this.projector = projector;
+    }
+
+    /**
+     * 回放日志并重新投影全部交易
+     *
+     * @return 回放的记录数
+     */
+    public long recover() {
+        lock.lock();
+        try {
+            long records = journal.replay((type, payload) -> {
+                switch (type) {
+                    case PUT -> {
+                        Transaction transaction = JournalCodec.decode(payload);
+                        transactions.put(transaction.getId(), transaction);
+                        idSequence.accumulateAndGet(transaction.getId(), Math::max);
+                    }
+                    case DELETE -> transactions.remove(payload.getLong());
+                    case CLEAR -> transactions.clear();
+                    default -> throw new IllegalStateException("未知的日志记录类型: " + type);
+                }
+            });
+            projector.clear();
+            projector.upsert(List.copyOf(transactions.values()));
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 保存交易，ID为空时分配新ID
+     *
+     * @param transaction 交易
+     * @return 传入的交易（已设置ID）
+     */
+    public Transaction save(Transaction transaction) {
+        return saveAll(Collections.singletonList(transaction)).get(0);
+    }
+
+    /**
+     * 批量保存交易
+     * 覆盖已有交易时版本号必须与当前版本一致，写入后版本号加1；任一交易版本不符时整批都不写入
+     *
+     * @param batch 交易列表
+     * @return 传入的交易（已设置ID和新版本号），顺序与入参一致
+     * @throws ObjectOptimisticLockingFailureException 覆盖的交易版本号与当前版本不一致
+     */
+    public List<Transaction> saveAll(List<Transaction> batch) {
+        lock.lock();
+        try {
+            for (Transaction transaction : batch) {
+                Transaction current = transaction.getId() == null ? null : transactions.get(transaction.getId());
+                if (current != null && current.getVersion() != transaction.getVersion()) {
+                    throw new ObjectOptimisticLockingFailureException(Transaction.class, transaction.getId());
+                }
+            }
+            List<Transaction> snapshots = new ArrayList<>(batch.size());
+            try {
+                for (Transaction transaction : batch) {
+                    if (transaction.getId() == null) {
+                        transaction.setId(idSequence.incrementAndGet());
+                    } else {
+                        idSequence.accumulateAndGet(transaction.getId(), Math::max);
+                        if (transactions.containsKey(transaction.getId())) {
+                            transaction.setVersion(transaction.getVersion() + 1);
+                        }
+                    }
+                    if (transaction.getTimestamp() == null) {
+                        transaction.setTimestamp(LocalDateTime.now());
+                    }
+                    // 内存中保存副本，调用方后续修改传入对象不会影响已提交状态
+                    Transaction snapshot = new Transaction(transaction);
+                    journal.append(PUT, JournalCodec.encode(snapshot));
+                    transactions.put(snapshot.getId(), snapshot);
+                    snapshots.add(snapshot);
+                }
+            } finally {
+                // 中途失败时，已写入日志的交易同样需要投影
+                if (!snapshots.isEmpty()) {
+                    projector.upsert(snapshots);
+                }
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 条件替换：交易存在、仍属于 transaction 的账户且版本号等于 expectedVersion 时整行替换，版本号加1
+     * 时间戳和余额沿用原值；成功时 transaction 被补全为替换后的完整状态
+     *
+     * @param transaction 新的交易内容（ID不能为空）
+     * @param expectedVersion 期望的当前版本号
+     * @return 替换前的交易；条件不满足时为空
+     */
+    public Optional<Transaction> replaceIfVersion(Transaction transaction, long expectedVersion) {
+        lock.lock();
+        try {
+            Transaction previous = transactions.get(transaction.getId());
+            if (previous == null || previous.getVersion() != expectedVersion
+                    || !previous.getAccountNumber().equals(transaction.getAccountNumber())) {
+                return Optional.empty();
+            }
+            transaction.setTimestamp(previous.getTimestamp());
+            transaction.setBalance(previous.getBalance());
+            transaction.setVersion(expectedVersion + 1);
+            Transaction snapshot = new Transaction(transaction);
+            journal.append(PUT, JournalCodec.encode(snapshot));
+            transactions.put(snapshot.getId(), snapshot);
+            projector.upsert(List.of(snapshot));
+            return Optional.of(previous);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除交易
+     *
+     * @param id 交易ID
+     * @return 是否删除
+     */
+    public boolean delete(Long id) {
+        lock.lock();
+        try {
+            if (!transactions.containsKey(id)) {
+                return false;
+            }
+            journal.append(DELETE, ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+            transactions.remove(id);
+            projector.delete(id);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空全部交易
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            journal.append(CLEAR, EMPTY);
+            transactions.clear();
+            projector.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<Transaction> findById(Long id) {
+        return Optional.ofNullable(transactions.get(id));
+    }
+
+    public boolean exists(Long id) {
+        return transactions.containsKey(id);
+    }
+
+    public long count() {
+        return transactions.size();
+    }
+
+    /**
+     * 当前全部交易的只读视图
+     *
+     * @return 交易集合
+     */
+    public Collection<Transaction> values() {
+        return Collections.unmodifiableCollection(transactions.values());
+    }
+}
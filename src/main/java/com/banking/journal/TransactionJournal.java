@@ -0,0 +1,322 @@
+package com.banking.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 只追加的内存映射日志
+ * 日志由固定大小的段文件组成，写满后滚动到下一个段；每条记录格式为
+ * {@code length:int | type:byte | crc32c:int | payload}，length为type和payload的总字节数，为0表示段内已无记录
+ * <p>
+ * 追加只写入映射内存（进程崩溃不丢数据），刷盘按批进行：累计 fsyncBatchSize 条未刷盘记录时立即刷盘，
+ * 否则由后台线程每 fsyncIntervalMillis 毫秒刷盘一次；fsyncBatchSize 为1时每条记录都同步刷盘
+ *
+ * @author Kongloih Zhang F
+ */
+public class TransactionJournal implements AutoCloseable {
+
+    /**
+     * 记录头长度：length + type + crc
+     */
+    static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES;
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int fsyncBatchSize;
+    private final ScheduledExecutorService flusher;
+    /**
+     * 使用ReentrantLock而非synchronized：持锁期间可能刷盘，虚拟线程阻塞在synchronized内会钉住载体线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int unsynced;
+    private boolean closed;
+
+    /**
+     * 回放时逐条接收记录
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        /**
+         * @param type 记录类型
+         * @param payload 记录内容（只读，position位于内容起始处）
+         */
+        void handle(byte type, ByteBuffer payload);
+    }
+
+    /**
+     * @param directory 段文件目录
+     * @param segmentSize 单个段文件大小（字节）
+     * @param fsyncBatchSize 累计多少条未刷盘记录时立即刷盘
+     * @param fsyncIntervalMillis 后台刷盘间隔，0表示不启用后台刷盘
+     */
+    public TransactionJournal(Path directory, int segmentSize, int fsyncBatchSize, long fsyncIntervalMillis) {
+        if (segmentSize <= HEADER_BYTES || fsyncBatchSize <= 0 || fsyncIntervalMillis < 0) {
+            throw new IllegalArgumentException("日志段大小、刷盘批次必须大于0，刷盘间隔不能为负数");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncBatchSize = fsyncBatchSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("无法创建日志目录: " + directory, ex);
+        }
+
+        if (fsyncIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "transaction-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::sync, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * 按顺序回放全部记录，并把写入位置定位到最后一条完整记录之后
+     * 最后一个段末尾不完整或校验失败的记录视为崩溃时写了一半，会被清除；更早的段损坏时抛出异常
+     * 必须在第一次追加之前调用
+     *
+     * @param handler 记录处理器
+     * @return 回放的记录数
+     */
+    public long replay(RecordHandler handler) {
+        lock.lock();
+        try {
+            if (segment != null) {
+                throw new IllegalStateException("日志已开始写入，不能再回放");
+            }
+            List<Path> segments = listSegments();
+            long records = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                boolean last = i == segments.size() - 1;
+                MappedByteBuffer buffer = map(segments.get(i));
+                records += replaySegment(buffer, handler, last, segments.get(i));
+                if (last) {
+                    segmentIndex = indexOf(segments.get(i));
+                    openSegment(segmentIndex, buffer.position());
+                }
+            }
+            if (segment == null) {
+                openSegment(0, 0);
+            }
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param type 记录类型
+     * @param payload 记录内容
+     */
+    public void append(byte type, byte[] payload) {
+        lock.lock();
+        try {
+            ensureOpen();
+            int recordSize = HEADER_BYTES + payload.length;
+            if (recordSize > segmentSize) {
+                throw new IllegalArgumentException("日志记录超过段大小: " + recordSize);
+            }
+            if (segment.remaining() < recordSize) {
+                roll();
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(type);
+            crc.update(payload);
+
+            segment.putInt(payload.length + 1);
+            segment.put(type);
+            segment.putInt((int) crc.getValue());
+            segment.put(payload);
+
+            if (++unsynced >= fsyncBatchSize) {
+                force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把尚未刷盘的记录写入磁盘
+     */
+    public void sync() {
+        lock.lock();
+        try {
+            if (segment != null && !closed && unsynced > 0) {
+                force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前活动段的序号
+     *
+     * @return 段序号
+     */
+    public int getSegmentIndex() {
+        lock.lock();
+        try {
+            return segmentIndex;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (flusher != null) {
+                flusher.shutdown();
+            }
+            if (segment != null) {
+                force();
+                closeChannel();
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long replaySegment(MappedByteBuffer buffer, RecordHandler handler, boolean last, Path file) {
+        long records = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                buffer.position(start);
+                return records;
+            }
+            if (length < 1 || buffer.remaining() < 1 + Integer.BYTES + length - 1) {
+                return truncate(buffer, start, last, file, records);
+            }
+            byte type = buffer.get();
+            int expectedCrc = buffer.getInt();
+            ByteBuffer payload = buffer.slice(buffer.position(), length - 1).asReadOnlyBuffer();
+
+            CRC32C crc = new CRC32C();
+            crc.update(type);
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                return truncate(buffer, start, last, file, records);
+            }
+
+            handler.handle(type, payload);
+            buffer.position(buffer.position() + length - 1);
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * 清除不完整的尾部记录
+     */
+    private long truncate(MappedByteBuffer buffer, int start, boolean last, Path file, long records) {
+        if (!last) {
+            throw new IllegalStateException("日志段已损坏: " + file + "，位置 " + start);
+        }
+        for (int i = start; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+        buffer.position(start);
+        return records;
+    }
+
+    private void roll() {
+        force();
+        closeChannel();
+        openSegment(segmentIndex + 1, 0);
+    }
+
+    private void openSegment(int index, int position) {
+        segmentIndex = index;
+        Path file = directory.resolve(String.format("%010d%s", index, SEGMENT_SUFFIX));
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("无法打开日志段: " + file, ex);
+        }
+        segment.position(position);
+    }
+
+    private MappedByteBuffer map(Path file) {
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return readChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(readChannel.size(), segmentSize));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("无法读取日志段: " + file, ex);
+        }
+    }
+
+    private void force() {
+        segment.force();
+        unsynced = 0;
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("关闭日志段失败", ex);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("日志已关闭");
+        }
+        if (segment == null) {
+            throw new IllegalStateException("日志尚未回放，不能追加");
+        }
+    }
+
+    private List<Path> listSegments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("无法读取日志目录: " + directory, ex);
+        }
+    }
+
+    private static int indexOf(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,35 @@
+package com.banking.model;
+
+/**
+ * 卖出时结转持仓成本的方法
+ *
+ * @author Kongloih Zhang F
+ */
+public enum CostMethod {
+
+    /**
+     * 先进先出：卖出依次消耗最早买入的批次
+     */
+    FIFO,
+
+    /**
+     * 加权平均：卖出按当前持仓的平均成本结转
+     */
+    AVERAGE;
+
+    /**
+     * 解析成本计算方法（不区分大小写）
+     *
+     * @param value 方法名称
+     * @return 成本计算方法
+     * @throws IllegalArgumentException 不支持的方法
+     */
+    public static CostMethod from(String value) {
+        for (CostMethod method : values()) {
+            if (method.name().equalsIgnoreCase(value)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("不支持的成本计算方法: " + value + "，可选值为 fifo 或 average");
+    }
+}
@@ -0,0 +1,148 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+
+/**
+ * 定点金额，以固定4位小数的long表示（1元 = 10000）
+ * 用于金额校验和统计累加等热点路径，避免每次运算都分配BigDecimal；只在API边界与BigDecimal互转
+ * 所有运算溢出时抛出 {@link ArithmeticException}
+ *
+ * @author Kongloih Zhang F
+ */
+public final class Money implements Comparable<Money> {
+
+    /**
+     * 小数位数，与价格字段精度一致
+     */
+    public static final int SCALE = 4;
+
+    private static final long FACTOR = 10_000L;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long scaled;
+
+    private Money(long scaled) {
+        this.scaled = scaled;
+    }
+
+    /**
+     * 由BigDecimal精确转换
+     *
+     * @param value 金额
+     * @return 定点金额
+     * @throws IllegalArgumentException 小数位超过4位或超出long范围
+     */
+    public static Money of(BigDecimal value) {
+        return of(value, "金额");
+    }
+
+    /**
+     * 由BigDecimal精确转换，转换失败时的错误信息使用调用方给出的字段名
+     *
+     * @param value 金额或价格
+     * @param field 字段名（如“交易价格”），用于错误信息
+     * @return 定点金额
+     * @throws IllegalArgumentException 小数位超过4位或超出long范围
+     */
+    public static Money of(BigDecimal value, String field) {
+        try {
+            return new Money(value.setScale(SCALE).unscaledValue().longValueExact());
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException(field + "最多保留" + SCALE + "位小数且不能超出范围: " + value.toPlainString());
+        }
+    }
+
+    /**
+     * 由已按4位小数放大的long构造
+     *
+     * @param scaled 放大后的值
+     * @return 定点金额
+     */
+    public static Money ofScaled(long scaled) {
+        return scaled == 0 ? ZERO : new Money(scaled);
+    }
+
+    public Money plus(Money other) {
+        return ofScaled(Math.addExact(scaled, other.scaled));
+    }
+
+    public Money minus(Money other) {
+        return ofScaled(Math.subtractExact(scaled, other.scaled));
+    }
+
+    public Money negate() {
+        return ofScaled(Math.negateExact(scaled));
+    }
+
+    /**
+     * 乘以数量（如 价格 * 股数）
+     *
+     * @param quantity 数量
+     * @return 乘积
+     */
+    public Money times(long quantity) {
+        return ofScaled(Math.multiplyExact(scaled, quantity));
+    }
+
+    /**
+     * 除以数量并按HALF_UP舍入到4位小数（如 总金额 / 总股数 = 均价）
+     *
+     * @param divisor 除数（不能为0）
+     * @return 商
+     */
+    public Money dividedBy(long divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("除数不能为0");
+        }
+        long quotient = scaled / divisor;
+        long remainder = scaled % divisor;
+        // 余数的两倍不小于除数时进位（远离零），比较取绝对值避免溢出
+        if (Math.abs(remainder) >= Math.abs(divisor) - Math.abs(remainder)) {
+            quotient += Long.signum(scaled) * Long.signum(divisor);
+        }
+        return ofScaled(quotient);
+    }
+
+    public int signum() {
+        return Long.signum(scaled);
+    }
+
+    /**
+     * 放大后的long值
+     *
+     * @return 金额 * 10000
+     */
+    public long scaledValue() {
+        return scaled;
+    }
+
+    /**
+     * 转换为4位小数的BigDecimal（API边界使用）
+     *
+     * @return BigDecimal金额
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(scaled, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(scaled, other.scaled);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && scaled == other.scaled);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(scaled);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -6,6 +6,9 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -14,15 +17,28 @@ import java.util.Objects;
 
 /**
  * 交易实体类
+ * 放入Hibernate二级缓存（读写策略），按ID加载、合并更新时先查缓存区域 {@link #CACHE_REGION}
+ * 使用版本号做乐观锁：每次更新版本号加1，合并更新时版本号与数据库不一致会失败
  * 
  * @author Kongloih Zhang F
  */
 @Entity
-@Table(name = "transactions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Transaction.CACHE_REGION)
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_timestamp_id", columnList = "timestamp DESC, id DESC"),
+        @Index(name = "idx_transactions_account_timestamp_id", columnList = "account_number, timestamp DESC, id DESC")
+})
 public class Transaction {
     
+    /**
+     * 二级缓存区域名
+     */
+    public static final String CACHE_REGION = "transactions";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "account_number", nullable = false, length = 50)
@@ -76,6 +92,11 @@ public class Transaction {
     @Column(name = "balance", precision = 19, scale = 2)
     private BigDecimal balance; // Balance after transaction (kept for compatibility)
     
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private long version;
+    
     // Constructors
     public Transaction() {
         this.timestamp = LocalDateTime.now();
@@ -96,7 +117,28 @@ public class Transaction {
         this.price = price;
         this.securityCode = securityCode;
     }
-    
+
+    /**
+     * 复制构造函数，用于在修改前保留交易快照
+     *
+     * @param other 源交易
+     */
+    public Transaction(Transaction other) {
+        this.id = other.id;
+        this.accountNumber = other.accountNumber;
+        this.amount = other.amount;
+        this.transType = other.transType;
+        this.unit = other.unit;
+        this.price = other.price;
+        this.transDate = other.transDate;
+        this.securityCode = other.securityCode;
+        this.description = other.description;
+        this.timestamp = other.timestamp;
+        this.currency = other.currency;
+        this.balance = other.balance;
+        this.version = other.version;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -205,6 +247,14 @@ public class Transaction {
         this.balance = balance;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -233,6 +283,7 @@ public class Transaction {
                 ", timestamp=" + timestamp +
                 ", currency='" + currency + '\'' +
                 ", balance=" + balance +
+                ", version=" + version +
                 '}';
     }
 } 
\ No newline at end of file
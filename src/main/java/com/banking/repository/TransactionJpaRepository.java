@@ -1,32 +1,51 @@
 package com.banking.repository;
 
+import com.banking.dto.TransactionResponse;
 import com.banking.model.Transaction;
 import com.banking.model.TransactionType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * 股票交易JPA Repository接口
+ * 按账户的查询结果进入Hibernate查询缓存，transactions表经Hibernate写入后自动失效
  * 
  * @author Kongloih Zhang F
  */
 @Repository
 public interface TransactionJpaRepository extends JpaRepository<Transaction, Long> {
     
+    /**
+     * 交易响应投影的查询前缀：结果列直接构造 {@link TransactionResponse}，
+     * 不创建托管实体，也就没有脏检查快照和持久化上下文开销
+     */
+    String RESPONSE_SELECT = "SELECT new com.banking.dto.TransactionResponse(t.id, t.accountNumber, t.amount, " +
+            "t.transType, t.unit, t.price, t.transDate, t.securityCode, t.description, t.timestamp, t.currency, " +
+            "t.balance, t.version) FROM Transaction t ";
+    
     /**
      * 根据账户号码查找交易
      * 
      * @param accountNumber 账户号码
      * @return 交易列表
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Transaction> findByAccountNumberOrderByTimestampDesc(String accountNumber);
     
     /**
@@ -62,9 +81,92 @@ public interface TransactionJpaRepository extends JpaRepository<Transaction, Lon
      * @param type 交易类型
      * @return 交易列表
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Transaction> findByAccountNumberAndTransTypeOrderByTimestampDesc(String accountNumber, TransactionType type);
     
-
+    /**
+     * 按时间戳、ID倒序读取全部交易响应
+     * 
+     * @return 交易响应列表
+     */
+    @Query(RESPONSE_SELECT + "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionResponse> findAllResponses();
+    
+    /**
+     * 按时间戳、ID倒序分页读取交易响应（不执行count查询）
+     * 
+     * @param pageable 页码和每页大小
+     * @return 交易响应列表
+     */
+    @Query(RESPONSE_SELECT + "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionResponse> findResponsePage(Pageable pageable);
+    
+    /**
+     * 键集分页：交易响应第一页（按时间戳、ID倒序）
+     * 由索引 idx_transactions_timestamp_id 支撑
+     * 
+     * @param pageable 仅使用每页大小
+     * @return 交易响应列表
+     */
+    @Query(RESPONSE_SELECT + "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionResponse> findResponseKeysetFirstPage(Pageable pageable);
+    
+    /**
+     * 键集分页：指定位置 (timestamp, id) 之后的一页交易响应
+     * 第一个条件使索引可以做范围扫描，第二个条件排除同一时间戳下已返回的记录
+     * 
+     * @param timestamp 上一页最后一条的时间戳
+     * @param id 上一页最后一条的ID
+     * @param pageable 仅使用每页大小
+     * @return 交易响应列表
+     */
+    @Query(RESPONSE_SELECT + "WHERE t.timestamp <= :timestamp " +
+           "AND (t.timestamp < :timestamp OR t.id < :id) ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionResponse> findResponseKeysetPageAfter(@Param("timestamp") LocalDateTime timestamp,
+                                                          @Param("id") Long id,
+                                                          Pageable pageable);
+    
+    /**
+     * 按账户读取交易响应（按时间戳、ID倒序）
+     * 
+     * @param accountNumber 账户号码
+     * @return 交易响应列表
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(RESPONSE_SELECT + "WHERE t.accountNumber = :accountNumber ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionResponse> findResponsesByAccountNumber(@Param("accountNumber") String accountNumber);
+    
+    /**
+     * 按交易类型读取交易响应（按时间戳、ID倒序）
+     * 
+     * @param type 交易类型
+     * @return 交易响应列表
+     */
+    @Query(RESPONSE_SELECT + "WHERE t.transType = :type ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionResponse> findResponsesByTransType(@Param("type") TransactionType type);
+    
+    /**
+     * 流式读取待导出的交易（游标读取，按ID顺序）
+     * 筛选参数为null时不参与过滤；调用方必须在事务中消费并关闭流
+     * 
+     * @param accountNumber 账户号码
+     * @param securityCode 股票代码
+     * @param startDate 开始成交日期（含）
+     * @param endDate 结束成交日期（含）
+     * @return 交易流
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE (:accountNumber IS NULL OR t.accountNumber = :accountNumber) " +
+           "AND (:securityCode IS NULL OR t.securityCode = :securityCode) " +
+           "AND (:startDate IS NULL OR t.transDate >= :startDate) " +
+           "AND (:endDate IS NULL OR t.transDate <= :endDate) ORDER BY t.id")
+    Stream<Transaction> streamForExport(@Param("accountNumber") String accountNumber,
+                                        @Param("securityCode") String securityCode,
+                                        @Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate);
     
     /**
      * 获取账户最近的交易
@@ -107,5 +209,15 @@ public interface TransactionJpaRepository extends JpaRepository<Transaction, Lon
      * @param accountNumber 账户号码
      * @return 交易数量
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Long countByAccountNumber(String accountNumber);
+    
+    /**
+     * 按股票代码、账户、成交日期和交易类型分组统计
+     * 
+     * @return 每行依次为: securityCode, accountNumber, transDate, transType, count, sum(unit), sum(amount)
+     */
+    @Query("SELECT t.securityCode, t.accountNumber, t.transDate, t.transType, COUNT(t), SUM(t.unit), SUM(t.amount) " +
+           "FROM Transaction t GROUP BY t.securityCode, t.accountNumber, t.transDate, t.transType")
+    List<Object[]> aggregateDailyStatistics();
 } 
\ No newline at end of file
@@ -1,35 +1,119 @@
 package com.banking.repository;
 
+import com.banking.config.CacheConfig;
+import com.banking.config.TransactionCacheEvictor;
+import com.banking.dto.SearchCursor;
+import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransactionSearchRequest;
+import com.banking.dto.TransactionSummary;
+import com.banking.journal.JournaledTransactionStore;
+import com.banking.model.Money;
 import com.banking.model.Transaction;
 import com.banking.model.TransactionType;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 股票交易数据访问层
- * 使用JPA和H2数据库存储
+ * 默认使用JPA和H2数据库存储；banking.repository.mode=journal 时以交易日志为准，
+ * 按ID读写、全量读取、计数和统计直接使用日志存储，其余查询读取异步维护的数据库投影（可能略有延迟）
  * 
  * @author Kongloih Zhang F
  */
 @Repository
 public class TransactionRepository {
     
+    /**
+     * 批量保存时每次刷新并清空持久化上下文包含的JDBC批次数
+     */
+    private static final int BATCHES_PER_FLUSH = 20;
+    
+    /**
+     * 条件更新：H2的数据变更增量表在同一条语句内完成版本比较、写入并返回更新前的行
+     * {@code FROM OLD TABLE (UPDATE ...)} 是H2专有语法，换用其他数据库时需要改写为该库的等价语句
+     * （如PostgreSQL的 {@code UPDATE ... RETURNING} 配合自连接取旧值），或改为先读取再执行带版本条件的UPDATE并检查更新行数
+     */
+    private static final String UPDATE_IF_VERSION_SQL = "SELECT id, account_number, amount, trans_type, unit, price, "
+            + "trans_date, security_code, description, timestamp, currency, balance, version FROM OLD TABLE ("
+            + "UPDATE transactions SET amount = ?, trans_type = ?, unit = ?, price = ?, trans_date = ?, "
+            + "security_code = ?, description = ?, currency = ?, version = version + 1 "
+            + "WHERE id = ? AND version = ? AND account_number = ?)";
+    
+    private static final String RETRIEVE_MODE_HINT = "jakarta.persistence.cache.retrieveMode";
+    
+    private static final RowMapper<Transaction> ROW_MAPPER = (rs, rowNum) -> {
+        Transaction transaction = new Transaction();
+        transaction.setId(rs.getLong("id"));
+        transaction.setAccountNumber(rs.getString("account_number"));
+        transaction.setAmount(rs.getBigDecimal("amount"));
+        transaction.setTransType(TransactionType.valueOf(rs.getString("trans_type")));
+        transaction.setUnit(rs.getLong("unit"));
+        transaction.setPrice(rs.getBigDecimal("price"));
+        transaction.setTransDate(rs.getDate("trans_date").toLocalDate());
+        transaction.setSecurityCode(rs.getString("security_code"));
+        transaction.setDescription(rs.getString("description"));
+        transaction.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+        transaction.setCurrency(rs.getString("currency"));
+        transaction.setBalance(rs.getBigDecimal("balance"));
+        transaction.setVersion(rs.getLong("version"));
+        return transaction;
+    };
+    
     private final TransactionJpaRepository jpaRepository;
+    private final TransactionCacheEvictor cacheEvictor;
+    private final int batchSize;
+    private final JournaledTransactionStore journalStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @Autowired
-    public TransactionRepository(TransactionJpaRepository jpaRepository) {
+    public TransactionRepository(TransactionJpaRepository jpaRepository,
+                                 TransactionCacheEvictor cacheEvictor,
+                                 @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+                                 ObjectProvider<JournaledTransactionStore> journalStore,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager) {
         this.jpaRepository = jpaRepository;
+        this.cacheEvictor = cacheEvictor;
+        this.batchSize = batchSize;
+        this.journalStore = journalStore.getIfAvailable();
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     /**
@@ -38,47 +122,242 @@ public class TransactionRepository {
      * @param transaction 交易对象
      * @return 保存后的交易对象
      */
-    @CacheEvict(value = "transactions", allEntries = true)
+    @CacheEvict(value = CacheConfig.TRANSACTION_ENTITIES, key = "#transaction.id", condition = "#transaction.id != null")
     public Transaction save(Transaction transaction) {
         // 设置时间戳
         if (transaction.getTimestamp() == null) {
             transaction.setTimestamp(LocalDateTime.now());
         }
+        if (journalStore != null) {
+            return journalStore.save(transaction);
+        }
         return jpaRepository.save(transaction);
     }
     
+    /**
+     * 批量保存交易
+     * 整批在一个事务中提交，任一交易写入失败时整批回滚，调用方不会看到只写入一部分的批次；
+     * 按JDBC批大小的整数倍分块刷新并清空持久化上下文，避免持久化上下文无限增长
+     * 
+     * @param transactions 交易对象列表
+     * @return 保存后的交易对象列表（顺序与入参一致）
+     */
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        if (journalStore != null) {
+            List<Transaction> saved = journalStore.saveAll(transactions);
+            saved.forEach(transaction -> cacheEvictor.evictEntity(transaction.getId()));
+            return saved;
+        }
+        int chunkSize = batchSize * BATCHES_PER_FLUSH;
+        List<Transaction> saved = transactionTemplate.execute(status -> {
+            List<Transaction> result = new ArrayList<>(transactions.size());
+            for (int from = 0; from < transactions.size(); from += chunkSize) {
+                List<Transaction> chunk = transactions.subList(from, Math.min(from + chunkSize, transactions.size()));
+                for (Transaction transaction : chunk) {
+                    if (transaction.getTimestamp() == null) {
+                        transaction.setTimestamp(LocalDateTime.now());
+                    }
+                }
+                result.addAll(jpaRepository.saveAll(chunk));
+                entityManager.flush();
+                entityManager.clear();
+            }
+            return result;
+        });
+        // 提交后再失效；只有已存在的交易才可能被缓存，新插入的交易无需失效
+        for (Transaction transaction : saved) {
+            cacheEvictor.evictEntity(transaction.getId());
+        }
+        return saved;
+    }
+    
+    /**
+     * 按版本号条件更新交易，不预先读取
+     * 只有交易仍属于 transaction 的账户且当前版本号等于 expectedVersion 时才写入，版本号加1；
+     * 时间戳和余额沿用原值。更新成功时 transaction 被补全为更新后的完整状态
+     * JPA模式下语句绕过Hibernate执行，写入前后都清除该交易的二级缓存和查询缓存；
+     * 语句使用H2专有的数据变更增量表，只支持H2（见 {@code UPDATE_IF_VERSION_SQL}）
+     * 
+     * @param transaction 新的交易内容（ID不能为空）
+     * @param expectedVersion 期望的当前版本号
+     * @return 更新前的交易；交易不存在、版本号不符或不属于该账户时为空
+     */
+    @CacheEvict(value = CacheConfig.TRANSACTION_ENTITIES, key = "#transaction.id")
+    public Optional<Transaction> updateIfVersion(Transaction transaction, long expectedVersion) {
+        if (journalStore != null) {
+            return journalStore.replaceIfVersion(transaction, expectedVersion);
+        }
+        // 先清除一次，避免语句执行期间读到旧行的会话在语句提交后再把旧行放回缓存
+        evictSecondLevelCache(transaction.getId());
+        List<Transaction> previous = jdbcTemplate.query(UPDATE_IF_VERSION_SQL, ROW_MAPPER,
+                transaction.getAmount(), transaction.getTransType().name(), transaction.getUnit(),
+                transaction.getPrice(), Date.valueOf(transaction.getTransDate()), transaction.getSecurityCode(),
+                transaction.getDescription(), transaction.getCurrency(),
+                transaction.getId(), expectedVersion, transaction.getAccountNumber());
+        if (previous.isEmpty()) {
+            return Optional.empty();
+        }
+        evictSecondLevelCache(transaction.getId());
+        Transaction before = previous.get(0);
+        transaction.setTimestamp(before.getTimestamp());
+        transaction.setBalance(before.getBalance());
+        transaction.setVersion(expectedVersion + 1);
+        return Optional.of(before);
+    }
+    
+    private void evictSecondLevelCache(Long id) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        cache.evictEntityData(Transaction.class, id);
+        cache.evictQueryRegions();
+    }
+    
     /**
      * 根据ID查找交易
      * 
      * @param id 交易ID
      * @return 交易对象（如果存在）
      */
-    @Cacheable(value = "transactions", key = "#id")
+    @Cacheable(value = CacheConfig.TRANSACTION_ENTITIES, key = "#id")
     public Optional<Transaction> findById(Long id) {
+        if (journalStore != null) {
+            return journalStore.findById(id);
+        }
         return jpaRepository.findById(id);
     }
     
     /**
-     * 查找所有交易
+     * 根据ID读取交易的当前状态，不经过Spring实体缓存和Hibernate二级缓存
+     * 用于在账户锁内读取作为写操作基础的交易：缓存中的条目可能被并发读取放回旧值
+     * 
+     * @param id 交易ID
+     * @return 交易对象（如果存在）
+     */
+    public Optional<Transaction> findCurrentById(Long id) {
+        if (journalStore != null) {
+            return journalStore.findById(id);
+        }
+        return Optional.ofNullable(entityManager.find(Transaction.class, id,
+                Map.of(RETRIEVE_MODE_HINT, CacheRetrieveMode.BYPASS)));
+    }
+    
+    /**
+     * 查找所有交易（按时间戳倒序）
+     * 结果集可能很大，不再放入缓存；大批量读取请使用 {@link #streamForExport}
+     * 日志模式下读取日志存储而不是投影，启动时投影尚未追上也能得到完整的交易
      * 
      * @return 所有交易列表
      */
-    @Cacheable(value = "transactions")
     public List<Transaction> findAll() {
+        if (journalStore != null) {
+            return journalStore.values().stream()
+                    .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
+                    .toList();
+        }
         return jpaRepository.findAll(Sort.by(Sort.Direction.DESC, "timestamp"));
     }
     
     /**
-     * 分页查询交易
+     * 按时间戳、ID倒序读取全部交易响应（投影查询，不加载实体）
+     * 
+     * @return 交易响应列表
+     */
+    public List<TransactionResponse> findAllResponses() {
+        return jpaRepository.findAllResponses();
+    }
+    
+    /**
+     * 分页查询交易响应（投影查询，不加载实体）
      * 
      * @param page 页码（从0开始）
      * @param size 每页大小
-     * @return 交易列表
+     * @return 交易响应列表
+     */
+    public List<TransactionResponse> findResponses(int page, int size) {
+        return jpaRepository.findResponsePage(PageRequest.of(page, size));
+    }
+    
+    /**
+     * 键集分页查询交易响应（按时间戳、ID倒序，投影查询，不加载实体）
+     * 
+     * @param afterTimestamp 上一页最后一条的时间戳，为null时返回第一页
+     * @param afterId 上一页最后一条的ID
+     * @param size 每页大小
+     * @return 交易响应列表
+     */
+    public List<TransactionResponse> findResponsePageAfter(LocalDateTime afterTimestamp, Long afterId, int size) {
+        Pageable limit = PageRequest.of(0, size);
+        if (afterTimestamp == null) {
+            return jpaRepository.findResponseKeysetFirstPage(limit);
+        }
+        return jpaRepository.findResponseKeysetPageAfter(afterTimestamp, afterId, limit);
+    }
+    
+    /**
+     * 多条件检索交易，过滤、排序和游标条件编译为一条SQL，在数据库中完成
+     * 
+     * @param request 检索请求
+     * @param cursor 上一页的游标（可选）
+     * @param limit 最多返回条数
+     * @return 交易列表，按请求的排序字段和ID排序
      */
-    public List<Transaction> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "timestamp"));
-        Page<Transaction> pageResult = jpaRepository.findAll(pageable);
-        return pageResult.getContent();
+    public List<Transaction> search(TransactionSearchRequest request, SearchCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> query = cb.createQuery(Transaction.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        query.select(root);
+        return searchQuery(query, root, cb, request, cursor, limit);
+    }
+    
+    /**
+     * 多条件检索交易摘要，只查询 {@link TransactionSummary} 需要的列，不加载实体
+     * 
+     * @param request 检索请求
+     * @param cursor 上一页的游标（可选）
+     * @param limit 最多返回条数
+     * @return 交易摘要列表，按请求的排序字段和ID排序
+     */
+    public List<TransactionSummary> searchSummaries(TransactionSearchRequest request, SearchCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionSummary> query = cb.createQuery(TransactionSummary.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        query.select(cb.construct(TransactionSummary.class,
+                root.get("id"), root.get("accountNumber"), root.get("securityCode"), root.get("transType"),
+                root.get("unit"), root.get("amount"), root.get("transDate"), root.get("timestamp")));
+        return searchQuery(query, root, cb, request, cursor, limit);
+    }
+    
+    private <T> List<T> searchQuery(CriteriaQuery<T> query, Root<Transaction> root, CriteriaBuilder cb,
+                                    TransactionSearchRequest request, SearchCursor cursor, int limit) {
+        Predicate where = TransactionSpecifications.matching(request)
+                .and(TransactionSpecifications.after(cursor))
+                .toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        Path<Object> field = root.get(request.getSortBy().getAttribute());
+        Path<Object> id = root.get("id");
+        if (request.isDescending()) {
+            query.orderBy(cb.desc(field), cb.desc(id));
+        } else {
+            query.orderBy(cb.asc(field), cb.asc(id));
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+    
+    /**
+     * 流式读取交易，每条交易在交给调用方后即从持久化上下文中分离，内存占用与结果集大小无关
+     * 必须在只读事务中调用，并在使用后关闭流
+     * 
+     * @param accountNumber 账户号码（可选）
+     * @param securityCode 股票代码（可选）
+     * @param startDate 开始成交日期（可选，含）
+     * @param endDate 结束成交日期（可选，含）
+     * @return 交易流
+     */
+    public Stream<Transaction> streamForExport(String accountNumber, String securityCode,
+                                               LocalDate startDate, LocalDate endDate) {
+        return jpaRepository.streamForExport(accountNumber, securityCode, startDate, endDate)
+                .peek(entityManager::detach);
     }
     
     /**
@@ -91,6 +370,34 @@ public class TransactionRepository {
         return jpaRepository.findByAccountNumberOrderByTimestampDesc(accountNumber);
     }
     
+    /**
+     * 根据账户号码查找交易响应（投影查询，不加载实体）
+     * 日志模式下读取日志存储：投影异步落后于写入，写入时驱逐的账户列表若从投影重新加载，会把缺少该写入的结果放回缓存
+     * 
+     * @param accountNumber 账户号码
+     * @return 交易响应列表（按时间戳、ID倒序）
+     */
+    public List<TransactionResponse> findResponsesByAccountNumber(String accountNumber) {
+        if (journalStore != null) {
+            return journalStore.values().stream()
+                    .filter(transaction -> accountNumber.equals(transaction.getAccountNumber()))
+                    .sorted(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId).reversed())
+                    .map(TransactionResponse::new)
+                    .toList();
+        }
+        return jpaRepository.findResponsesByAccountNumber(accountNumber);
+    }
+    
+    /**
+     * 根据交易类型查找交易响应（投影查询，不加载实体）
+     * 
+     * @param type 交易类型
+     * @return 交易响应列表
+     */
+    public List<TransactionResponse> findResponsesByType(TransactionType type) {
+        return jpaRepository.findResponsesByTransType(type);
+    }
+    
     /**
      * 根据交易类型查找交易
      * 
@@ -118,8 +425,11 @@ public class TransactionRepository {
      * @param id 交易ID
      * @return 是否删除成功
      */
-    @CacheEvict(value = "transactions", allEntries = true)
+    @CacheEvict(value = CacheConfig.TRANSACTION_ENTITIES, key = "#id")
     public boolean deleteById(Long id) {
+        if (journalStore != null) {
+            return journalStore.delete(id);
+        }
         if (jpaRepository.existsById(id)) {
             jpaRepository.deleteById(id);
             return true;
@@ -134,6 +444,9 @@ public class TransactionRepository {
      * @return 是否存在
      */
     public boolean existsById(Long id) {
+        if (journalStore != null) {
+            return journalStore.exists(id);
+        }
         return jpaRepository.existsById(id);
     }
     
@@ -143,15 +456,22 @@ public class TransactionRepository {
      * @return 交易总数
      */
     public long count() {
+        if (journalStore != null) {
+            return journalStore.count();
+        }
         return jpaRepository.count();
     }
     
     /**
      * 清空所有交易（用于测试）
      */
-    @CacheEvict(value = "transactions", allEntries = true)
     public void deleteAll() {
-        jpaRepository.deleteAll();
+        if (journalStore != null) {
+            journalStore.clear();
+        } else {
+            jpaRepository.deleteAll();
+        }
+        cacheEvictor.clearAll();
     }
     
 
@@ -218,4 +538,40 @@ public class TransactionRepository {
     public Long countTransactionsBetween(LocalDateTime startTime, LocalDateTime endTime) {
         return jpaRepository.countTransactionsBetween(startTime, endTime);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 按股票代码、账户、成交日期和交易类型分组统计
+     * 
+     * @return 分组统计结果
+     */
+    public List<Object[]> aggregateDailyStatistics() {
+        if (journalStore != null) {
+            return aggregateJournal();
+        }
+        return jpaRepository.aggregateDailyStatistics();
+    }
+    
+    /**
+     * 在日志存储上计算与 {@link TransactionJpaRepository#aggregateDailyStatistics()} 相同结构的分组统计
+     * 
+     * @return 分组统计结果
+     */
+    private List<Object[]> aggregateJournal() {
+        Map<List<Object>, Object[]> groups = new HashMap<>();
+        for (Transaction transaction : journalStore.values()) {
+            List<Object> key = List.of(transaction.getSecurityCode(), transaction.getAccountNumber(),
+                    transaction.getTransDate(), transaction.getTransType());
+            Object[] row = groups.computeIfAbsent(key, k -> new Object[]{
+                    k.get(0), k.get(1), k.get(2), k.get(3), 0L, 0L, Money.ZERO});
+            row[4] = (Long) row[4] + 1;
+            row[5] = (Long) row[5] + transaction.getUnit();
+            row[6] = ((Money) row[6]).plus(Money.of(transaction.getAmount()));
+        }
+        List<Object[]> rows = new ArrayList<>(groups.size());
+        for (Object[] row : groups.values()) {
+            row[6] = ((Money) row[6]).toBigDecimal();
+            rows.add(row);
+        }
+        return rows;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.banking.repository;
+
+import com.banking.dto.SearchCursor;
+import com.banking.dto.TransactionSearchRequest;
+import com.banking.model.Transaction;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易多条件检索的查询条件
+ * 把 {@link TransactionSearchRequest} 中非空的过滤条件和键集游标编译为一个WHERE子句，由数据库完成过滤
+ *
+ * @author Kongloih Zhang F
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    /**
+     * 过滤条件
+     *
+     * @param request 检索请求
+     * @return 所有非空条件的“且”，没有条件时匹配全部交易
+     */
+    public static Specification<Transaction> matching(TransactionSearchRequest request) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (request.getAccountNumber() != null) {
+                predicates.add(cb.equal(root.get("accountNumber"), request.getAccountNumber()));
+            }
+            if (request.getSecurityCode() != null) {
+                predicates.add(cb.equal(root.get("securityCode"), request.getSecurityCode()));
+            }
+            if (request.getTransType() != null) {
+                predicates.add(cb.equal(root.get("transType"), request.getTransType()));
+            }
+            if (request.getCurrency() != null) {
+                predicates.add(cb.equal(root.get("currency"), request.getCurrency()));
+            }
+            if (request.getTransDateFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("transDate"), request.getTransDateFrom()));
+            }
+            if (request.getTransDateTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("transDate"), request.getTransDateTo()));
+            }
+            if (request.getMinAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), request.getMinAmount()));
+            }
+            if (request.getMaxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), request.getMaxAmount()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * 键集游标条件：只返回排在游标之后的交易
+     * 倒序时为 (f &lt; v) OR (f = v AND id &lt; lastId)，正序时相反；
+     * 额外的 f &lt;= v（正序为 f &gt;= v）使数据库可以直接在排序列的索引上做范围扫描
+     *
+     * @param cursor 游标，为null时不加条件
+     * @return 游标条件
+     */
+    public static Specification<Transaction> after(SearchCursor cursor) {
+        return (root, query, cb) -> cursor == null ? null : keyset(root, cb, cursor);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate keyset(Root<Transaction> root, CriteriaBuilder cb, SearchCursor cursor) {
+        Path<Comparable> field = root.get(cursor.getSortBy().getAttribute());
+        Comparable value = cursor.getValue();
+        Path<Long> id = root.get("id");
+        if (cursor.isDescending()) {
+            return cb.and(cb.lessThanOrEqualTo(field, value),
+                    cb.or(cb.lessThan(field, value), cb.lessThan(id, cursor.getId())));
+        }
+        return cb.and(cb.greaterThanOrEqualTo(field, value),
+                cb.or(cb.greaterThan(field, value), cb.greaterThan(id, cursor.getId())));
+    }
+}
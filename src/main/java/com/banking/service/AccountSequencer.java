@@ -0,0 +1,154 @@
+package com.banking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * 按账户串行化写操作的分段锁
+ * 账户号码按哈希映射到固定数量的锁分段：同一账户的写操作在同一分段上按到达顺序依次执行（公平锁），
+ * 不同分段的写操作完全并行。涉及多个账户的写操作按分段下标升序加锁，避免死锁。
+ * 使用 {@link ReentrantLock} 而不是 synchronized，虚拟线程等待时不会钉住载体线程
+ *
+ * @author Kongloih Zhang F
+ */
+@Component
+public class AccountSequencer {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    private final Counter acquisitions;
+    private final Counter contended;
+    private final Timer waitTime;
+
+    public AccountSequencer(MeterRegistry meterRegistry,
+                            @Value("${banking.sequencer.stripes:256}") int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("账户锁分段数必须是2的幂");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = stripeCount - 1;
+
+        Gauge.builder("sequencer.queue.depth", this, AccountSequencer::getQueueDepth)
+                .description("等待账户锁的写操作数（全部分段合计）")
+                .register(meterRegistry);
+        Gauge.builder("sequencer.queue.depth.max", this, AccountSequencer::getMaxQueueDepth)
+                .description("排队最长的分段上等待的写操作数")
+                .register(meterRegistry);
+        this.acquisitions = Counter.builder("sequencer.acquisitions")
+                .description("获取账户锁的次数")
+                .register(meterRegistry);
+        this.contended = Counter.builder("sequencer.contended")
+                .description("获取账户锁时需要等待的次数")
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("sequencer.wait")
+                .description("发生争用时等待账户锁的耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在账户的锁内执行写操作
+     *
+     * @param accountNumber 账户号码
+     * @param action 写操作
+     * @return 写操作的结果
+     */
+    public <T> T execute(String accountNumber, Supplier<T> action) {
+        return execute(List.of(accountNumber), action);
+    }
+
+    /**
+     * 同时持有多个账户的锁执行写操作
+     *
+     * @param accountNumbers 账户号码
+     * @param action 写操作
+     * @return 写操作的结果
+     */
+    public <T> T execute(Collection<String> accountNumbers, Supplier<T> action) {
+        int[] indexes = accountNumbers.stream()
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        return execute(indexes, action);
+    }
+
+    /**
+     * 持有全部分段的锁执行操作，期间所有账户的写操作都等待（如重建内存索引）
+     *
+     * @param action 操作
+     * @return 操作的结果
+     */
+    public <T> T executeAll(Supplier<T> action) {
+        return execute(IntStream.range(0, stripes.length).toArray(), action);
+    }
+
+    private <T> T execute(int[] indexes, Supplier<T> action) {
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                lock(stripes[index]);
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * 当前等待账户锁的写操作数
+     *
+     * @return 全部分段的排队数之和
+     */
+    public int getQueueDepth() {
+        return Arrays.stream(stripes).mapToInt(ReentrantLock::getQueueLength).sum();
+    }
+
+    /**
+     * 排队最长的分段上等待的写操作数
+     *
+     * @return 单个分段的最大排队数
+     */
+    public int getMaxQueueDepth() {
+        return Arrays.stream(stripes).mapToInt(ReentrantLock::getQueueLength).max().orElse(0);
+    }
+
+    int stripeOf(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void lock(ReentrantLock lock) {
+        acquisitions.increment();
+        // 带超时的tryLock遵守公平性，有等待者时不会插队
+        try {
+            if (lock.tryLock(0, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        contended.increment();
+        long start = System.nanoTime();
+        lock.lock();
+        waitTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -2,7 +2,7 @@ package com.banking.service;
 
 import com.banking.model.Transaction;
 import com.banking.model.TransactionType;
-import com.banking.repository.TransactionJpaRepository;
+import com.banking.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
@@ -26,7 +26,7 @@ import java.util.Random;
 @Profile("!test") // Only run in non-test environment
 public class DataInitializationService implements CommandLineRunner {
     
-    private final TransactionJpaRepository transactionRepository;
+    private final TransactionRepository transactionRepository;
     private final Random random = new Random();
     
     // Test account numbers
@@ -64,7 +64,7 @@ public class DataInitializationService implements CommandLineRunner {
     };
     
     @Autowired
-    public DataInitializationService(TransactionJpaRepository transactionRepository) {
+    public DataInitializationService(TransactionRepository transactionRepository) {
         this.transactionRepository = transactionRepository;
     }
     
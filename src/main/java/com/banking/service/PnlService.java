@@ -0,0 +1,100 @@
+package com.banking.service;
+
+import com.banking.dto.PnlResponse;
+import com.banking.index.LotBook;
+import com.banking.model.CostMethod;
+import com.banking.model.Money;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 盈亏查询服务
+ * 已实现盈亏和未平仓成本直接读取批次簿；浮动盈亏按调用方上传的价格快照计算，
+ * 不接入外部行情。价格快照只保存在内存中，每次上传与已有价格合并后整体替换；
+ * 合并以比较并交换方式提交，并发上传不同股票的价格时互不覆盖
+ *
+ * @author Kongloih Zhang F
+ */
+@Service
+public class PnlService {
+
+    private final LotBook lotBook;
+
+    private final AtomicReference<PriceSnapshot> prices = new AtomicReference<>(new PriceSnapshot(Map.of(), null));
+
+    public PnlService(LotBook lotBook, MeterRegistry meterRegistry) {
+        this.lotBook = lotBook;
+
+        Gauge.builder("lots.size", lotBook, LotBook::size)
+                .description("批次簿中先进先出口径的未平仓批次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 账户各持仓在指定成本口径下的盈亏，按股票代码排序
+     *
+     * @param accountNumber 账户号码
+     * @param method 成本计算方法
+     * @return 盈亏列表
+     */
+    public List<PnlResponse> getPnl(String accountNumber, CostMethod method) {
+        if (StringUtils.isBlank(accountNumber)) {
+            throw new IllegalArgumentException("账户号码不能为空");
+        }
+
+        Map<String, Money> current = prices.get().prices();
+        return lotBook.get(accountNumber, method).stream()
+                .map(position -> new PnlResponse(accountNumber, position, current.get(position.securityCode())))
+                .toList();
+    }
+
+    /**
+     * 合并上传的价格到价格快照
+     *
+     * @param updates 股票代码到价格的映射
+     */
+    public void updatePrices(Map<String, BigDecimal> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("价格快照不能为空");
+        }
+
+        Map<String, Money> validated = new HashMap<>();
+        updates.forEach((securityCode, price) -> {
+            if (StringUtils.isBlank(securityCode)) {
+                throw new IllegalArgumentException("股票代码不能为空");
+            }
+            if (price == null || price.signum() <= 0) {
+                throw new IllegalArgumentException("股票价格必须大于0: " + securityCode);
+            }
+            validated.put(securityCode, Money.of(price, "股票价格"));
+        });
+
+        // 校验在合并之前完成，合并函数无副作用，比较并交换失败时可安全重试
+        prices.updateAndGet(snapshot -> {
+            Map<String, Money> merged = new HashMap<>(snapshot.prices());
+            merged.putAll(validated);
+            return new PriceSnapshot(Map.copyOf(merged), LocalDateTime.now());
+        });
+    }
+
+    /**
+     * 最近一次上传价格的时间
+     *
+     * @return 上传时间，尚未上传时为null
+     */
+    public LocalDateTime getPriceTime() {
+        return prices.get().updatedAt();
+    }
+
+    private record PriceSnapshot(Map<String, Money> prices, LocalDateTime updatedAt) {
+    }
+}
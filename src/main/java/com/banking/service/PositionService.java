@@ -0,0 +1,113 @@
+package com.banking.service;
+
+import com.banking.dto.PositionResponse;
+import com.banking.index.LotBook;
+import com.banking.index.PositionBook;
+import com.banking.model.CostMethod;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 持仓查询服务
+ * 实时持仓直接读取持仓簿；另按 banking.positions.snapshot-interval-ms 定时保存一份全量快照，
+ * 供需要同一时点口径的场景（对账、日终报表）读取。快照只保存在内存中，重启后由持仓簿从交易表重建。
+ * 持仓均价和持仓成本取自批次簿的加权平均口径，与 /api/pnl?method=average 一致
+ *
+ * @author Kongloih Zhang F
+ */
+@Service
+public class PositionService {
+
+    private final PositionBook positionBook;
+
+    private final LotBook lotBook;
+
+    private volatile Snapshot snapshot;
+
+    public PositionService(PositionBook positionBook, LotBook lotBook, MeterRegistry meterRegistry) {
+        this.positionBook = positionBook;
+        this.lotBook = lotBook;
+
+        Gauge.builder("positions.size", positionBook, PositionBook::size)
+                .description("持仓簿中的持仓数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 账户的实时持仓，按股票代码排序
+     *
+     * @param accountNumber 账户号码
+     * @return 持仓列表
+     */
+    public List<PositionResponse> getPositions(String accountNumber) {
+        if (StringUtils.isBlank(accountNumber)) {
+            throw new IllegalArgumentException("账户号码不能为空");
+        }
+
+        return toResponses(accountNumber, positionBook.get(accountNumber));
+    }
+
+    /**
+     * 最近一次快照中账户的持仓
+     *
+     * @param accountNumber 账户号码
+     * @return 持仓列表，尚未生成快照时为空
+     */
+    public List<PositionResponse> getSnapshotPositions(String accountNumber) {
+        if (StringUtils.isBlank(accountNumber)) {
+            throw new IllegalArgumentException("账户号码不能为空");
+        }
+
+        Snapshot current = snapshot;
+        if (current == null) {
+            return List.of();
+        }
+        return current.positions().getOrDefault(accountNumber, List.of());
+    }
+
+    /**
+     * 最近一次快照的生成时间
+     *
+     * @return 生成时间，尚未生成快照时为null
+     */
+    public LocalDateTime getSnapshotTime() {
+        Snapshot current = snapshot;
+        return current == null ? null : current.takenAt();
+    }
+
+    /**
+     * 定时保存持仓簿的全量快照
+     * 持仓簿逐个账户复制，不暂停写入；每个账户的持仓成本紧接着从批次簿读取
+     */
+    @Scheduled(fixedDelayString = "${banking.positions.snapshot-interval-ms:60000}")
+    public void takeSnapshot() {
+        Map<String, List<PositionBook.Position>> positions = positionBook.snapshot();
+        Map<String, List<PositionResponse>> responses = new HashMap<>(positions.size() * 2);
+        positions.forEach((accountNumber, list) -> responses.put(accountNumber, toResponses(accountNumber, list)));
+        snapshot = new Snapshot(LocalDateTime.now(), responses);
+    }
+
+    private List<PositionResponse> toResponses(String accountNumber, List<PositionBook.Position> positions) {
+        if (positions.isEmpty()) {
+            return List.of();
+        }
+        Map<String, LotBook.LotPosition> averageLots = lotBook.get(accountNumber, CostMethod.AVERAGE).stream()
+                .collect(Collectors.toMap(LotBook.LotPosition::securityCode, Function.identity()));
+        return positions.stream()
+                .map(position -> new PositionResponse(accountNumber, position, averageLots.get(position.securityCode())))
+                .toList();
+    }
+
+    private record Snapshot(LocalDateTime takenAt, Map<String, List<PositionResponse>> positions) {
+    }
+}
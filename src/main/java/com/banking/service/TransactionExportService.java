@@ -0,0 +1,133 @@
+package com.banking.service;
+
+import com.banking.dto.ExportFormat;
+import com.banking.dto.TransactionResponse;
+import com.banking.model.Transaction;
+import com.banking.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 股票交易流式导出服务
+ * 通过数据库游标逐行读取并直接写入输出流，内存占用与导出行数无关
+ *
+ * @author Kongloih Zhang F
+ */
+@Service
+public class TransactionExportService {
+
+    private static final String CSV_HEADER = "id,accountNumber,transType,securityCode,unit,price,amount,"
+            + "currency,transDate,timestamp,description";
+
+    /**
+     * 每写出多少行刷新一次输出流
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectWriter responseWriter;
+
+    public TransactionExportService(TransactionRepository transactionRepository, ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.responseWriter = objectMapper.writerFor(TransactionResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * 按条件导出交易
+     *
+     * @param format 导出格式
+     * @param accountNumber 账户号码（可选）
+     * @param securityCode 股票代码（可选）
+     * @param startDate 开始成交日期（可选，含）
+     * @param endDate 结束成交日期（可选，含）
+     * @param outputStream 输出流
+     * @return 导出行数
+     */
+    @Transactional(readOnly = true)
+    public long exportTransactions(ExportFormat format, String accountNumber, String securityCode,
+                                   LocalDate startDate, LocalDate endDate, OutputStream outputStream) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (Stream<Transaction> transactions = transactionRepository.streamForExport(
+                accountNumber, securityCode, startDate, endDate)) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, transaction);
+                } else {
+                    responseWriter.writeValue(writer, new TransactionResponse(transaction));
+                    writer.write('\n');
+                }
+                if (++rows % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("导出交易失败", ex);
+        }
+        return rows;
+    }
+
+    private void writeCsvRow(Writer writer, Transaction transaction) throws IOException {
+        writer.write(String.valueOf(transaction.getId()));
+        writer.write(',');
+        writer.write(csv(transaction.getAccountNumber()));
+        writer.write(',');
+        writer.write(transaction.getTransType().name());
+        writer.write(',');
+        writer.write(csv(transaction.getSecurityCode()));
+        writer.write(',');
+        writer.write(String.valueOf(transaction.getUnit()));
+        writer.write(',');
+        writer.write(transaction.getPrice().toPlainString());
+        writer.write(',');
+        writer.write(transaction.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(csv(transaction.getCurrency()));
+        writer.write(',');
+        writer.write(String.valueOf(transaction.getTransDate()));
+        writer.write(',');
+        writer.write(String.valueOf(transaction.getTimestamp()));
+        writer.write(',');
+        writer.write(csv(transaction.getDescription()));
+        writer.write('\n');
+    }
+
+    /**
+     * 按RFC 4180转义CSV字段
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,203 @@
+package com.banking.service;
+
+import com.banking.dto.TransactionRequest;
+import com.banking.dto.TransactionResponse;
+import com.banking.exception.IngestionQueueFullException;
+import com.banking.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 股票交易异步写入服务（write-behind）
+ * 校验通过的交易进入有界队列，由单个写入线程按组提交：凑满 batch-size 条或等待 max-wait-ms 后即提交一次，
+ * 用一次事务的提交开销分摊到整组交易上；队列已满时直接拒绝，由调用方退避重试
+ *
+ * @author Kongloih Zhang F
+ */
+@Service
+public class TransactionIngestionService {
+
+    /**
+     * 写入线程空闲时检查停止标志的间隔
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final TransactionService transactionService;
+    private final BlockingQueue<PendingTransaction> queue;
+    private final int groupSize;
+    private final long maxWaitNanos;
+
+    private final Counter rejected;
+    private final Counter committed;
+    private final Counter failed;
+    private final DistributionSummary groupSizes;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TransactionIngestionService(TransactionService transactionService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${banking.ingestion.queue-capacity:10000}") int queueCapacity,
+                                       @Value("${banking.ingestion.batch-size:500}") int groupSize,
+                                       @Value("${banking.ingestion.max-wait-ms:5}") long maxWaitMillis) {
+        if (queueCapacity <= 0 || groupSize <= 0 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException("异步写入队列容量和批次大小必须大于0，等待时间不能为负数");
+        }
+        this.transactionService = transactionService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.groupSize = groupSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+
+        Gauge.builder("ingestion.queue.size", queue, BlockingQueue::size)
+                .description("等待写入的交易数")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("ingestion.rejected")
+                .description("因队列已满被拒绝的交易数")
+                .register(meterRegistry);
+        this.committed = Counter.builder("ingestion.committed")
+                .description("已提交的交易数")
+                .register(meterRegistry);
+        this.failed = Counter.builder("ingestion.failed")
+                .description("提交失败的交易数")
+                .register(meterRegistry);
+        this.groupSizes = DistributionSummary.builder("ingestion.group.size")
+                .description("每次组提交的交易数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动写入线程
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform()
+                .name("transaction-ingestion-writer")
+                .daemon(true)
+                .start(this::drainLoop);
+    }
+
+    /**
+     * 停止接收新交易，等待写入线程把队列中已受理的交易提交完
+     *
+     * @throws InterruptedException 等待被中断
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+
+        // 停止过程中仍可能有极少量交易在写入线程退出后入队
+        List<PendingTransaction> stranded = new ArrayList<>();
+        queue.drainTo(stranded);
+        transactionService.cancelPrepared(stranded.stream().map(PendingTransaction::transaction).toList());
+        stranded.forEach(pending -> pending.future().completeExceptionally(
+                new IllegalStateException("服务正在停止，交易未写入")));
+    }
+
+    /**
+     * 提交一笔交易到写入队列
+     * 业务校验（含卖出的可卖股数预占）在调用线程同步完成，校验失败直接抛出；写入在后台完成后结果通过返回的Future通知
+     *
+     * @param request 交易请求
+     * @return 写入完成后携带交易ID的响应
+     * @throws IngestionQueueFullException 队列已满
+     */
+    public CompletableFuture<TransactionResponse> submit(TransactionRequest request) {
+        Transaction transaction = transactionService.prepareTransaction(request);
+        PendingTransaction pending = new PendingTransaction(transaction, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            transactionService.cancelPrepared(List.of(transaction));
+            rejected.increment();
+            throw new IngestionQueueFullException("交易写入队列已满，请稍后重试");
+        }
+        return pending.future();
+    }
+
+    /**
+     * 当前排队等待写入的交易数
+     *
+     * @return 队列长度
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<PendingTransaction> group = new ArrayList<>(groupSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingTransaction first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                fillGroup(group);
+                commit(group);
+                group.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在等待窗口内尽量凑满一组
+     */
+    private void fillGroup(List<PendingTransaction> group) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (group.size() < groupSize) {
+            queue.drainTo(group, groupSize - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= groupSize || remaining <= 0) {
+                return;
+            }
+            PendingTransaction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<PendingTransaction> group) {
+        List<Transaction> transactions = new ArrayList<>(group.size());
+        for (PendingTransaction pending : group) {
+            transactions.add(pending.transaction());
+        }
+
+        List<Transaction> saved;
+        try {
+            saved = transactionService.persistTransactions(transactions);
+        } catch (RuntimeException ex) {
+            failed.increment(group.size());
+            group.forEach(pending -> pending.future().completeExceptionally(ex));
+            return;
+        }
+
+        committed.increment(saved.size());
+        groupSizes.record(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            group.get(i).future().complete(new TransactionResponse(saved.get(i)));
+        }
+    }
+
+    /**
+     * 排队中的交易及其写入结果
+     */
+    private record PendingTransaction(Transaction transaction, CompletableFuture<TransactionResponse> future) {
+    }
+}
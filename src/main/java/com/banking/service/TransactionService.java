@@ -1,24 +1,56 @@
 package com.banking.service;
 
+import com.banking.config.CacheConfig;
+import com.banking.config.TransactionCacheEvictor;
+import com.banking.dto.AttributeFilter;
+import com.banking.dto.BatchItemResult;
+import com.banking.dto.CursorPage;
+import com.banking.dto.KeysetCursor;
+import com.banking.dto.SearchCursor;
 import com.banking.dto.TransactionRequest;
 import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransactionSearchRequest;
+import com.banking.dto.TransactionSortField;
+import com.banking.dto.TransactionSummary;
 import com.banking.exception.TransactionNotFoundException;
+import com.banking.exception.TransactionVersionConflictException;
 import com.banking.exception.DuplicateTransactionException;
+import com.banking.index.AmountIndex;
+import com.banking.index.BitmapIndex;
+import com.banking.index.DailyStatisticsIndex;
+import com.banking.index.DescriptionIndex;
+import com.banking.index.LotBook;
+import com.banking.index.PositionBook;
+import com.banking.index.TimeBucketIndex;
+import com.banking.model.Money;
 import com.banking.model.Transaction;
 import com.banking.model.TransactionType;
 import com.banking.repository.TransactionRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -29,77 +61,315 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionService {
     
+    /**
+     * 单次批量创建允许的最大交易数
+     */
+    public static final int MAX_BATCH_SIZE = 10000;
+    
+    /**
+     * 索引查询和多条件检索单次允许返回的最大条数
+     */
+    public static final int MAX_QUERY_LIMIT = 1000;
+    
+    /**
+     * 交易金额允许的小数位数，与 transactions.amount 列的 scale 一致
+     */
+    private static final int AMOUNT_SCALE = 2;
+    
     private final TransactionRepository transactionRepository;
-
+    private final DailyStatisticsIndex statisticsIndex;
+    private final DescriptionIndex descriptionIndex;
+    private final AmountIndex amountIndex;
+    private final TimeBucketIndex timeBucketIndex;
+    private final BitmapIndex bitmapIndex;
+    private final PositionBook positionBook;
+    private final LotBook lotBook;
+    private final AccountSequencer accountSequencer;
+    private final TransactionCacheEvictor cacheEvictor;
+    private final Validator validator;
     
-    public TransactionService(TransactionRepository transactionRepository) {
+    public TransactionService(TransactionRepository transactionRepository,
+                              DailyStatisticsIndex statisticsIndex,
+                              DescriptionIndex descriptionIndex,
+                              AmountIndex amountIndex,
+                              TimeBucketIndex timeBucketIndex,
+                              BitmapIndex bitmapIndex,
+                              PositionBook positionBook,
+                              LotBook lotBook,
+                              AccountSequencer accountSequencer,
+                              TransactionCacheEvictor cacheEvictor,
+                              Validator validator) {
         this.transactionRepository = transactionRepository;
+        this.statisticsIndex = statisticsIndex;
+        this.descriptionIndex = descriptionIndex;
+        this.amountIndex = amountIndex;
+        this.timeBucketIndex = timeBucketIndex;
+        this.bitmapIndex = bitmapIndex;
+        this.positionBook = positionBook;
+        this.lotBook = lotBook;
+        this.accountSequencer = accountSequencer;
+        this.cacheEvictor = cacheEvictor;
+        this.validator = validator;
+    }
+    
+    /**
+     * 应用启动完成后，用分组统计重建统计索引
+     * 重建期间持有全部账户锁，启动过程中已受理的写操作要么包含在统计中，要么等重建完成后再计入
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildStatisticsIndex() {
+        accountSequencer.executeAll(() -> {
+            statisticsIndex.rebuild(transactionRepository.aggregateDailyStatistics());
+            return null;
+        });
+    }
+    
+    /**
+     * 应用启动完成后，读取一次全部交易（日志模式下读取日志存储），
+     * 重建描述倒排索引、金额索引、分钟前缀和索引、属性位图索引、持仓簿和批次簿
+     * 与 {@link #rebuildStatisticsIndex()} 一样在全部账户锁内读取和重建，不会丢失启动过程中写入的交易
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildTransactionIndexes() {
+        accountSequencer.executeAll(() -> {
+            List<Transaction> transactions = transactionRepository.findAll();
+            descriptionIndex.rebuild(transactions);
+            amountIndex.rebuild(transactions);
+            timeBucketIndex.rebuild(transactions);
+            bitmapIndex.rebuild(transactions);
+            positionBook.rebuild(transactions);
+            lotBook.rebuild(transactions);
+            return null;
+        });
     }
     
     /**
      * 创建新股票交易
+     * 写入和索引维护在账户锁内完成，同一账户的写操作按顺序执行
      * 
      * @param request 交易请求
      * @return 交易响应
      */
-    @CacheEvict(value = "transactions", allEntries = true)
+    @Caching(
+            put = @CachePut(value = CacheConfig.TRANSACTION_RESPONSES, key = "#result.id"),
+            evict = @CacheEvict(value = CacheConfig.ACCOUNT_TRANSACTIONS, key = "#request.accountNumber")
+    )
     public TransactionResponse createTransaction(TransactionRequest request) {
-        validateTransactionRequest(request);
+        Transaction transaction = prepareTransaction(request);
         
-        Transaction transaction = new Transaction();
-        transaction.setAccountNumber(request.getAccountNumber());
-        transaction.setAmount(request.getAmount());
-        transaction.setTransType(request.getTransType());
-        transaction.setUnit(request.getUnit());
-        transaction.setPrice(request.getPrice());
-        transaction.setTransDate(request.getTransDate() != null ? request.getTransDate() : LocalDate.now());
-        transaction.setSecurityCode(request.getSecurityCode());
-        transaction.setDescription(request.getDescription());
-        transaction.setCurrency(request.getCurrency());
-        transaction.setTimestamp(LocalDateTime.now());
+        Transaction savedTransaction = accountSequencer.execute(transaction.getAccountNumber(), () -> {
+            Transaction saved;
+            try {
+                saved = transactionRepository.save(transaction);
+            } catch (RuntimeException ex) {
+                cancelPrepared(List.of(transaction));
+                throw ex;
+            }
+            positionBook.add(saved, reservedUnits(saved));
+            statisticsIndex.add(saved);
+            descriptionIndex.add(saved);
+            amountIndex.add(saved);
+            timeBucketIndex.add(saved);
+            bitmapIndex.add(saved);
+            lotBook.add(saved);
+            return saved;
+        });
+        return new TransactionResponse(savedTransaction);
+    }
+    
+    /**
+     * 批量创建股票交易
+     * 逐条校验，校验通过的交易按JDBC批次写入，返回与请求顺序一致的逐条结果；
+     * 卖出按批次提交前已入账的持仓校验可卖股数，同一批次中的买入不计入
+     * 
+     * @param requests 交易请求列表
+     * @return 逐条处理结果
+     */
+    public List<BatchItemResult> createTransactions(List<TransactionRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("批量交易请求不能为空");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("单次批量交易数不能超过" + MAX_BATCH_SIZE);
+        }
         
-        // 验证价格和金额的一致性：amount = unit * price
-        BigDecimal calculatedAmount = BigDecimal.valueOf(transaction.getUnit()).multiply(transaction.getPrice());
-        if (transaction.getAmount().compareTo(calculatedAmount) != 0) {
-            throw new IllegalArgumentException("交易金额必须等于股数 * 价格");
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<Integer> acceptedIndexes = new ArrayList<>(requests.size());
+        List<Transaction> accepted = new ArrayList<>(requests.size());
+        
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            try {
+                validateConstraints(request);
+                accepted.add(prepareTransaction(request));
+                acceptedIndexes.add(i);
+            } catch (IllegalArgumentException ex) {
+                results[i] = BatchItemResult.failed(i, ex.getMessage());
+            }
         }
         
-        Transaction savedTransaction = transactionRepository.save(transaction);
-        return new TransactionResponse(savedTransaction);
+        if (!accepted.isEmpty()) {
+            List<Transaction> saved = persistTransactions(accepted);
+            for (int j = 0; j < saved.size(); j++) {
+                int index = acceptedIndexes.get(j);
+                results[index] = BatchItemResult.succeeded(index, new TransactionResponse(saved.get(j)));
+            }
+        }
+        
+        return List.of(results);
+    }
+    
+    /**
+     * 校验交易请求并转换为待写入的交易实体
+     * 卖出交易在持仓簿中预占可卖股数，可卖股数不足时拒绝；预占在 {@link #persistTransactions(List)}
+     * 写入后随交易计入持仓簿转为已卖出，写入失败时由其释放，未写入就放弃的交易需要调用 {@link #cancelPrepared(Collection)} 释放
+     * 
+     * @param request 交易请求
+     * @return 未持久化的交易实体
+     */
+    public Transaction prepareTransaction(TransactionRequest request) {
+        validateTransactionRequest(request);
+        Transaction transaction = toTransaction(request);
+        reserveHoldings(transaction);
+        return transaction;
+    }
+    
+    /**
+     * 释放 {@link #prepareTransaction(TransactionRequest)} 为卖出交易预占的可卖股数
+     * 
+     * @param transactions 已写入或放弃写入的交易
+     */
+    public void cancelPrepared(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            long reserved = reservedUnits(transaction);
+            if (reserved > 0) {
+                positionBook.release(transaction.getAccountNumber(), transaction.getSecurityCode(), reserved);
+            }
+        }
+    }
+    
+    /**
+     * 批量写入已校验的交易，并同步统计索引和账户缓存
+     * 写入期间持有涉及的全部账户的锁；写入成功时卖出预占随交易计入持仓簿转为已卖出，写入失败时释放预占
+     * 
+     * @param transactions 由 {@link #prepareTransaction(TransactionRequest)} 生成的交易实体
+     * @return 已保存的交易，顺序与入参一致
+     */
+    public List<Transaction> persistTransactions(List<Transaction> transactions) {
+        Set<String> accounts = transactions.stream()
+                .map(Transaction::getAccountNumber)
+                .collect(Collectors.toSet());
+        return accountSequencer.execute(accounts, () -> {
+            List<Transaction> saved;
+            try {
+                saved = transactionRepository.saveAll(transactions);
+            } catch (RuntimeException ex) {
+                cancelPrepared(transactions);
+                throw ex;
+            }
+            saved.forEach(transaction -> positionBook.add(transaction, reservedUnits(transaction)));
+            cacheEvictor.evictAccounts(accounts);
+            saved.forEach(statisticsIndex::add);
+            saved.forEach(descriptionIndex::add);
+            saved.forEach(amountIndex::add);
+            saved.forEach(timeBucketIndex::add);
+            saved.forEach(bitmapIndex::add);
+            saved.forEach(lotBook::add);
+            return saved;
+        });
     }
     
     /**
      * 更新交易
+     * 更新和删除是对已入账交易的更正，不做卖出可卖股数校验；
+     * 读取、修改和索引维护在原账户和新账户的锁内完成，同一交易的并发更新不会互相覆盖
      * 
      * @param id 交易ID
      * @param request 交易请求
      * @return 交易响应
      */
-    @CachePut(value = "transactions", key = "#id")
+    @CachePut(value = CacheConfig.TRANSACTION_RESPONSES, key = "#id")
     public TransactionResponse updateTransaction(Long id, TransactionRequest request) {
-        Transaction existingTransaction = transactionRepository.findById(id)
-                .orElseThrow(() -> new TransactionNotFoundException("交易ID " + id + " 不存在"));
+        return sequenced(id, request.getAccountNumber(), existingTransaction -> update(existingTransaction, request));
+    }
+    
+    /**
+     * 按版本号条件更新交易（If-Match）
+     * 交易仍属于请求中的账户时，在该账户的锁内由一条条件更新语句完成版本比较和写入，不预先读取交易；
+     * 未更新时再读取一次，区分交易不存在和版本冲突；交易要改到其他账户时按读取路径在两个账户的锁内更新
+     * 
+     * @param id 交易ID
+     * @param request 交易请求
+     * @param expectedVersion 客户端持有的交易版本号
+     * @return 交易响应
+     * @throws TransactionVersionConflictException 交易当前版本号与 expectedVersion 不一致
+     */
+    @CachePut(value = CacheConfig.TRANSACTION_RESPONSES, key = "#id")
+    public TransactionResponse updateTransaction(Long id, TransactionRequest request, long expectedVersion) {
+        validateTransactionRequest(request);
+        
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        applyRequest(transaction, request);
+        validateAmount(transaction.getUnit(), transaction.getPrice(), transaction.getAmount());
         
+        Optional<TransactionResponse> updated = accountSequencer.execute(transaction.getAccountNumber(), () ->
+                transactionRepository.updateIfVersion(transaction, expectedVersion)
+                        .map(previous -> reindex(previous, transaction)));
+        if (updated.isPresent()) {
+            return updated.get();
+        }
+        return sequenced(id, request.getAccountNumber(), existingTransaction -> {
+            if (existingTransaction.getVersion() != expectedVersion) {
+                throw new TransactionVersionConflictException("交易ID " + id + " 已被修改：当前版本 "
+                        + existingTransaction.getVersion() + "，请求版本 " + expectedVersion);
+            }
+            return update(existingTransaction, request);
+        });
+    }
+    
+    private TransactionResponse update(Transaction existingTransaction, TransactionRequest request) {
         validateTransactionRequest(request);
         
-        // 更新交易信息
-        existingTransaction.setAccountNumber(request.getAccountNumber());
-        existingTransaction.setAmount(request.getAmount());
-        existingTransaction.setTransType(request.getTransType());
-        existingTransaction.setUnit(request.getUnit());
-        existingTransaction.setPrice(request.getPrice());
-        existingTransaction.setTransDate(request.getTransDate() != null ? request.getTransDate() : LocalDate.now());
-        existingTransaction.setSecurityCode(request.getSecurityCode());
-        existingTransaction.setDescription(request.getDescription());
-        existingTransaction.setCurrency(request.getCurrency());
+        // 在副本上修改，避免校验失败时污染实体缓存中的共享对象
+        Transaction transaction = new Transaction(existingTransaction);
+        applyRequest(transaction, request);
         
         // 验证价格和金额的一致性
-        BigDecimal calculatedAmount = BigDecimal.valueOf(existingTransaction.getUnit()).multiply(existingTransaction.getPrice());
-        if (existingTransaction.getAmount().compareTo(calculatedAmount) != 0) {
-            throw new IllegalArgumentException("交易金额必须等于股数 * 价格");
-        }
+        validateAmount(transaction.getUnit(), transaction.getPrice(), transaction.getAmount());
         
-        Transaction updatedTransaction = transactionRepository.save(existingTransaction);
+        return reindex(existingTransaction, transactionRepository.save(transaction));
+    }
+    
+    /**
+     * 把请求中可由客户端修改的字段写入交易；创建、更新和条件更新共用同一份映射
+     */
+    private static void applyRequest(Transaction transaction, TransactionRequest request) {
+        transaction.setAccountNumber(request.getAccountNumber());
+        transaction.setAmount(request.getAmount());
+        transaction.setTransType(request.getTransType());
+        transaction.setUnit(request.getUnit());
+        transaction.setPrice(request.getPrice());
+        transaction.setTransDate(request.getTransDate() != null ? request.getTransDate() : LocalDate.now());
+        transaction.setSecurityCode(request.getSecurityCode());
+        transaction.setDescription(request.getDescription());
+        transaction.setCurrency(request.getCurrency());
+    }
+    
+    /**
+     * 用更新前后的交易维护内存索引和账户缓存
+     */
+    private TransactionResponse reindex(Transaction existingTransaction, Transaction updatedTransaction) {
+        statisticsIndex.remove(existingTransaction);
+        statisticsIndex.add(updatedTransaction);
+        descriptionIndex.add(updatedTransaction);
+        amountIndex.add(updatedTransaction);
+        timeBucketIndex.remove(existingTransaction);
+        timeBucketIndex.add(updatedTransaction);
+        bitmapIndex.add(updatedTransaction);
+        positionBook.replace(existingTransaction, updatedTransaction);
+        lotBook.replace(existingTransaction, updatedTransaction);
+        cacheEvictor.evictAccounts(accountsOf(existingTransaction, updatedTransaction));
         return new TransactionResponse(updatedTransaction);
     }
     
@@ -109,7 +379,7 @@ public class TransactionService {
      * @param id 交易ID
      * @return 交易响应
      */
-    @Cacheable(value = "transactions", key = "#id")
+    @Cacheable(value = CacheConfig.TRANSACTION_RESPONSES, key = "#id", sync = true)
     public TransactionResponse getTransaction(Long id) {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new TransactionNotFoundException("交易ID " + id + " 不存在"));
@@ -118,15 +388,12 @@ public class TransactionService {
     
     /**
      * 获取所有交易
+     * 结果集可能很大，不放入缓存；大批量读取请使用 {@link TransactionExportService}
      * 
      * @return 交易响应列表
      */
-    @Cacheable(value = "transactions")
     public List<TransactionResponse> getAllTransactions() {
-        return transactionRepository.findAll()
-                .stream()
-                .map(TransactionResponse::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findAllResponses();
     }
     
     /**
@@ -141,7 +408,200 @@ public class TransactionService {
             throw new IllegalArgumentException("页码必须非负，每页大小必须大于0");
         }
         
-        return transactionRepository.findAll(page, size)
+        return transactionRepository.findResponses(page, size);
+    }
+    
+    /**
+     * 键集分页获取交易（按时间戳、ID倒序）
+     * 通过 (timestamp, id) 定位下一页，深分页与首页开销相同，且不需要count查询
+     * 
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     * @param size 每页大小
+     * @return 分页结果
+     */
+    public CursorPage<TransactionResponse> getTransactionsAfter(String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("每页大小必须大于0");
+        }
+        
+        KeysetCursor after = StringUtils.isBlank(cursor) ? null : KeysetCursor.decode(cursor);
+        // 多取一条用于判断是否还有下一页
+        List<TransactionResponse> rows = after == null
+                ? transactionRepository.findResponsePageAfter(null, null, size + 1)
+                : transactionRepository.findResponsePageAfter(after.getTimestamp(), after.getId(), size + 1);
+        
+        boolean hasMore = rows.size() > size;
+        List<TransactionResponse> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionResponse last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        
+        return new CursorPage<>(page, nextCursor);
+    }
+    
+    /**
+     * 按交易描述检索交易（键集分页，按时间戳、ID倒序）
+     * 走内存倒排索引，不执行 LIKE '%x%' 全表扫描
+     * 
+     * @param query 查询文本，多个词项之间为“且”关系
+     * @param prefix 为true时最后一个词项按前缀匹配
+     * @param cursor 上一页返回的游标，为空时返回第一页
+     * @param size 每页大小
+     * @return 分页结果
+     */
+    public CursorPage<TransactionResponse> searchByDescription(String query, boolean prefix, String cursor, int size) {
+        if (StringUtils.isBlank(query)) {
+            throw new IllegalArgumentException("检索内容不能为空");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("每页大小必须大于0");
+        }
+        
+        KeysetCursor after = StringUtils.isBlank(cursor) ? null : KeysetCursor.decode(cursor);
+        // 多取一条用于判断是否还有下一页
+        List<Long> ids = after == null
+                ? descriptionIndex.search(query, prefix, null, null, size + 1)
+                : descriptionIndex.search(query, prefix, after.getTimestamp(), after.getId(), size + 1);
+        
+        boolean hasMore = ids.size() > size;
+        List<Transaction> page = loadInOrder(hasMore ? ids.subList(0, size) : ids);
+        String nextCursor = null;
+        if (hasMore && !page.isEmpty()) {
+            Transaction last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        
+        return new CursorPage<>(page.stream()
+                .map(TransactionResponse::new)
+                .collect(Collectors.toList()), nextCursor);
+    }
+    
+    /**
+     * 按交易类型、币种、股票代码、成交日期的任意 AND/OR/NOT 组合过滤交易，按ID倒序分页
+     * 条件在位图索引上求值，只加载当前页的交易
+     * 
+     * @param filter 过滤条件
+     * @param cursor 上一页返回的游标（最后一条交易ID），为空时返回第一页
+     * @param size 每页大小
+     * @return 分页结果，包含匹配总数
+     */
+    public CursorPage<TransactionResponse> filterTransactions(AttributeFilter filter, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("每页大小必须大于0");
+        }
+        Long beforeId = null;
+        if (StringUtils.isNotBlank(cursor)) {
+            try {
+                beforeId = Long.parseLong(cursor);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        }
+        
+        BitmapIndex.Match match = bitmapIndex.match(filter, beforeId, size + 1);
+        boolean hasMore = match.ids().size() > size;
+        List<Long> ids = hasMore ? match.ids().subList(0, size) : match.ids();
+        String nextCursor = hasMore ? String.valueOf(ids.get(ids.size() - 1)) : null;
+        
+        return new CursorPage<>(loadInOrder(ids).stream()
+                .map(TransactionResponse::new)
+                .collect(Collectors.toList()), nextCursor, match.total());
+    }
+    
+    /**
+     * 多条件检索交易
+     * 过滤、排序和键集分页整体下推到数据库，一次查询只读取一页（多取一条判断是否还有下一页）；
+     * 请求摘要投影时只查询摘要列，不加载实体
+     * 
+     * @param request 检索请求
+     * @return 一页交易响应或交易摘要
+     */
+    public CursorPage<?> searchTransactions(TransactionSearchRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("检索条件不能为空");
+        }
+        validateLimit(request.getSize());
+        if (request.getSortBy() == null) {
+            throw new IllegalArgumentException("排序字段不能为空");
+        }
+        if (request.getMinAmount() != null && request.getMaxAmount() != null
+                && request.getMinAmount().compareTo(request.getMaxAmount()) > 0) {
+            throw new IllegalArgumentException("最小金额不能大于最大金额");
+        }
+        if (request.getTransDateFrom() != null && request.getTransDateTo() != null
+                && request.getTransDateFrom().isAfter(request.getTransDateTo())) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        SearchCursor cursor = StringUtils.isBlank(request.getCursor()) ? null
+                : SearchCursor.decode(request.getCursor(), request.getSortBy(), request.isDescending());
+        
+        int size = request.getSize();
+        TransactionSortField sortBy = request.getSortBy();
+        if (request.getProjection() == TransactionSearchRequest.Projection.SUMMARY) {
+            List<TransactionSummary> rows = transactionRepository.searchSummaries(request, cursor, size + 1);
+            boolean hasMore = rows.size() > size;
+            List<TransactionSummary> items = hasMore ? rows.subList(0, size) : rows;
+            String nextCursor = null;
+            if (hasMore) {
+                TransactionSummary last = items.get(items.size() - 1);
+                nextCursor = new SearchCursor(sortBy, request.isDescending(), sortBy.valueOf(last), last.getId()).encode();
+            }
+            return new CursorPage<>(items, nextCursor);
+        }
+        
+        List<Transaction> rows = transactionRepository.search(request, cursor, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<Transaction> items = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Transaction last = items.get(items.size() - 1);
+            nextCursor = new SearchCursor(sortBy, request.isDescending(), sortBy.valueOf(last), last.getId()).encode();
+        }
+        return new CursorPage<>(items.stream()
+                .map(TransactionResponse::new)
+                .collect(Collectors.toList()), nextCursor);
+    }
+    
+    /**
+     * 金额区间查询，按金额、ID升序
+     * 读取内存金额索引，不在数据库中排序整个结果集
+     * 
+     * @param minAmount 最小金额（含）
+     * @param maxAmount 最大金额（含）
+     * @param limit 最多返回条数
+     * @return 交易响应列表
+     */
+    public List<TransactionResponse> getTransactionsByAmountRange(BigDecimal minAmount, BigDecimal maxAmount, int limit) {
+        if (minAmount == null || maxAmount == null) {
+            throw new IllegalArgumentException("最小金额和最大金额不能为空");
+        }
+        if (minAmount.compareTo(maxAmount) > 0) {
+            throw new IllegalArgumentException("最小金额不能大于最大金额");
+        }
+        validateLimit(limit);
+        
+        return loadInOrder(amountIndex.findBetween(minAmount, maxAmount, limit))
+                .stream()
+                .map(TransactionResponse::new)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 大额交易Top-N：金额大于阈值的交易中金额最大的前N笔，按金额、ID降序
+     * 
+     * @param threshold 金额阈值（不含）
+     * @param limit 最多返回条数
+     * @return 交易响应列表
+     */
+    public List<TransactionResponse> getLargestTransactions(BigDecimal threshold, int limit) {
+        if (threshold == null) {
+            throw new IllegalArgumentException("金额阈值不能为空");
+        }
+        validateLimit(limit);
+        
+        return loadInOrder(amountIndex.findLargest(threshold, limit))
                 .stream()
                 .map(TransactionResponse::new)
                 .collect(Collectors.toList());
@@ -153,15 +613,13 @@ public class TransactionService {
      * @param accountNumber 账户号码
      * @return 交易响应列表
      */
+    @Cacheable(value = CacheConfig.ACCOUNT_TRANSACTIONS, key = "#accountNumber", sync = true)
     public List<TransactionResponse> getTransactionsByAccount(String accountNumber) {
         if (StringUtils.isBlank(accountNumber)) {
             throw new IllegalArgumentException("账户号码不能为空");
         }
         
-        return transactionRepository.findByAccountNumber(accountNumber)
-                .stream()
-                .map(TransactionResponse::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findResponsesByAccountNumber(accountNumber);
     }
     
     /**
@@ -171,10 +629,7 @@ public class TransactionService {
      * @return 交易响应列表
      */
     public List<TransactionResponse> getTransactionsByType(TransactionType type) {
-        return transactionRepository.findByType(type)
-                .stream()
-                .map(TransactionResponse::new)
-                .collect(Collectors.toList());
+        return transactionRepository.findResponsesByType(type);
     }
     
     /**
@@ -182,23 +637,32 @@ public class TransactionService {
      * 
      * @param id 交易ID
      */
-    @CacheEvict(value = "transactions", allEntries = true)
+    @CacheEvict(value = CacheConfig.TRANSACTION_RESPONSES, key = "#id")
     public void deleteTransaction(Long id) {
-        Transaction transaction = transactionRepository.findById(id)
-                .orElseThrow(() -> new TransactionNotFoundException("交易ID " + id + " 不存在"));
-        
-        transactionRepository.deleteById(id);
+        sequenced(id, null, transaction -> {
+            if (transactionRepository.deleteById(id)) {
+                statisticsIndex.remove(transaction);
+                descriptionIndex.remove(transaction);
+                amountIndex.remove(transaction);
+                timeBucketIndex.remove(transaction);
+                bitmapIndex.remove(transaction);
+                positionBook.remove(transaction);
+                lotBook.remove(transaction);
+                cacheEvictor.evictAccounts(List.of(transaction.getAccountNumber()));
+            }
+            return Boolean.TRUE;
+        });
     }
     
     /**
      * 获取股票交易统计
      * 计算同一个客户账户当天成交的股票股数和成交总金额，按照买入/卖出累加，按照股票代码分组
+     * 直接读取增量维护的统计索引，不扫描交易表
      * 
      * @param securityCode 股票代码
      * @param accountNumber 账户号码
      * @return 股票交易统计
      */
-    @Cacheable(value = "transactions", key = "'security_stats_' + #securityCode + '_' + #accountNumber")
     public Map<String, Object> getSecurityStatistics(String securityCode, String accountNumber) {
         if (StringUtils.isBlank(securityCode)) {
             throw new IllegalArgumentException("股票代码不能为空");
@@ -208,16 +672,8 @@ public class TransactionService {
         }
         
         LocalDate today = LocalDate.now();
-        List<Transaction> todayTransactions = transactionRepository.findAll()
-                .stream()
-                .filter(t -> t.getSecurityCode().equals(securityCode))
-                .filter(t -> t.getAccountNumber().equals(accountNumber))
-                .filter(t -> t.getTransDate().equals(today))
-                .collect(Collectors.toList());
-        
-        // 按买入/卖出分组计算
-        Map<TransactionType, List<Transaction>> groupedByType = todayTransactions.stream()
-                .collect(Collectors.groupingBy(Transaction::getTransType));
+        DailyStatisticsIndex.Aggregate buy = statisticsIndex.get(securityCode, accountNumber, today, TransactionType.BUY);
+        DailyStatisticsIndex.Aggregate sell = statisticsIndex.get(securityCode, accountNumber, today, TransactionType.SELL);
         
         Map<String, Object> statistics = new ConcurrentHashMap<>();
         statistics.put("securityCode", securityCode);
@@ -225,46 +681,58 @@ public class TransactionService {
         statistics.put("transDate", today);
         
         // 买入统计
-        List<Transaction> buyTransactions = groupedByType.getOrDefault(TransactionType.BUY, List.of());
-        long totalBuyUnits = buyTransactions.stream().mapToLong(Transaction::getUnit).sum();
-        BigDecimal totalBuyAmount = buyTransactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        statistics.put("buyStatistics", Map.of(
-                "totalUnits", totalBuyUnits,
-                "totalAmount", totalBuyAmount,
-                "transactionCount", buyTransactions.size(),
-                "averagePrice", totalBuyUnits > 0 ? totalBuyAmount.divide(BigDecimal.valueOf(totalBuyUnits), 4, BigDecimal.ROUND_HALF_UP) : BigDecimal.ZERO
-        ));
+        statistics.put("buyStatistics", toSideStatistics(buy));
         
         // 卖出统计
-        List<Transaction> sellTransactions = groupedByType.getOrDefault(TransactionType.SELL, List.of());
-        long totalSellUnits = sellTransactions.stream().mapToLong(Transaction::getUnit).sum();
-        BigDecimal totalSellAmount = sellTransactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        statistics.put("sellStatistics", Map.of(
-                "totalUnits", totalSellUnits,
-                "totalAmount", totalSellAmount,
-                "transactionCount", sellTransactions.size(),
-                "averagePrice", totalSellUnits > 0 ? totalSellAmount.divide(BigDecimal.valueOf(totalSellUnits), 4, BigDecimal.ROUND_HALF_UP) : BigDecimal.ZERO
-        ));
+        statistics.put("sellStatistics", toSideStatistics(sell));
         
         // 净持仓统计
-        long netUnits = totalBuyUnits - totalSellUnits;
-        BigDecimal netAmount = totalBuyAmount.subtract(totalSellAmount);
+        long netUnits = buy.totalUnits() - sell.totalUnits();
+        BigDecimal netAmount = toAmount(buy.totalAmount().minus(sell.totalAmount()));
         
         statistics.put("netPosition", Map.of(
                 "netUnits", netUnits,
                 "netAmount", netAmount,
-                "totalTransactions", todayTransactions.size()
+                "totalTransactions", buy.transactionCount() + sell.transactionCount()
         ));
         
         return statistics;
     }
     
+    /**
+     * 获取时间区间 [start, end) 内的成交统计，按买入/卖出分别累计
+     * 读取分钟级前缀和索引，不扫描交易表；区间边界必须是整分钟
+     * 
+     * @param securityCode 股票代码，为空时统计全部股票
+     * @param start 开始时间（含）
+     * @param end 结束时间（不含）
+     * @return 区间成交统计
+     */
+    public Map<String, Object> getRangeStatistics(String securityCode, LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("开始时间和结束时间不能为空");
+        }
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("开始时间必须早于结束时间");
+        }
+        if (!isWholeMinute(start) || !isWholeMinute(end)) {
+            throw new IllegalArgumentException("时间区间边界必须是整分钟");
+        }
+        
+        String code = StringUtils.isBlank(securityCode) ? null : securityCode;
+        DailyStatisticsIndex.Aggregate buy = timeBucketIndex.get(code, TransactionType.BUY, start, end);
+        DailyStatisticsIndex.Aggregate sell = timeBucketIndex.get(code, TransactionType.SELL, start, end);
+        
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("securityCode", code);
+        statistics.put("start", start);
+        statistics.put("end", end);
+        statistics.put("buyStatistics", toSideStatistics(buy));
+        statistics.put("sellStatistics", toSideStatistics(sell));
+        statistics.put("totalTransactions", buy.transactionCount() + sell.transactionCount());
+        return statistics;
+    }
+    
     /**
      * 获取交易总数
      * 
@@ -274,6 +742,202 @@ public class TransactionService {
         return transactionRepository.count();
     }
     
+    /**
+     * 将单边累计值转换为统计响应
+     * 
+     * @param aggregate 累计值
+     * @return 单边统计
+     */
+    private Map<String, Object> toSideStatistics(DailyStatisticsIndex.Aggregate aggregate) {
+        long totalUnits = aggregate.totalUnits();
+        Money totalAmount = aggregate.totalAmount();
+        return Map.of(
+                "totalUnits", totalUnits,
+                "totalAmount", toAmount(totalAmount),
+                "transactionCount", aggregate.transactionCount(),
+                "averagePrice", totalUnits > 0 ? totalAmount.dividedBy(totalUnits).toBigDecimal() : BigDecimal.ZERO
+        );
+    }
+    
+    /**
+     * 统计金额在API边界按金额列的2位小数返回；均价保持4位小数
+     * 
+     * @param amount 定点金额
+     * @return 2位小数的金额
+     */
+    private static BigDecimal toAmount(Money amount) {
+        return amount.toBigDecimal().setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * 按索引返回的顺序加载交易，查询与加载之间被删除的交易直接跳过
+     * 
+     * @param ids 交易ID列表
+     * @return 交易列表
+     */
+    private List<Transaction> loadInOrder(List<Long> ids) {
+        List<Transaction> transactions = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            transactionRepository.findById(id).ifPresent(transactions::add);
+        }
+        return transactions;
+    }
+    
+    /**
+     * 校验索引查询的返回条数
+     * 
+     * @param limit 最多返回条数
+     */
+    private static void validateLimit(int limit) {
+        if (limit <= 0 || limit > MAX_QUERY_LIMIT) {
+            throw new IllegalArgumentException("返回条数必须在1到" + MAX_QUERY_LIMIT + "之间");
+        }
+    }
+    
+    /**
+     * 是否为整分钟（分钟桶边界）
+     * 
+     * @param time 时间
+     * @return 秒和纳秒均为0时返回true
+     */
+    private static boolean isWholeMinute(LocalDateTime time) {
+        return time.getSecond() == 0 && time.getNano() == 0;
+    }
+    
+    /**
+     * 在交易所属账户（以及另一个涉及的账户）的锁内读取交易并执行写操作
+     * 加锁前先读取一次交易以确定账户（可以来自缓存），拿到锁后绕过缓存读取当前状态作为写操作的基础；
+     * 账户与加锁时不同（等锁期间被改到其他账户，或缓存中的账户已过时）时按锁内读到的账户重新加锁
+     * 
+     * @param id 交易ID
+     * @param otherAccount 另一个需要加锁的账户，可为null
+     * @param action 对锁内读到的交易执行的写操作
+     * @return 写操作的结果
+     */
+    private <T> T sequenced(Long id, String otherAccount, Function<Transaction, T> action) {
+        String[] account = {findExisting(id, transactionRepository::findById).getAccountNumber()};
+        while (true) {
+            Set<String> accounts = new HashSet<>(2);
+            accounts.add(account[0]);
+            if (otherAccount != null) {
+                accounts.add(otherAccount);
+            }
+            Optional<T> result = accountSequencer.execute(accounts, () -> {
+                Transaction existing = findExisting(id, transactionRepository::findCurrentById);
+                if (accounts.contains(existing.getAccountNumber())) {
+                    return Optional.of(action.apply(existing));
+                }
+                account[0] = existing.getAccountNumber();
+                return Optional.empty();
+            });
+            if (result.isPresent()) {
+                return result.get();
+            }
+        }
+    }
+    
+    private static Transaction findExisting(Long id, Function<Long, Optional<Transaction>> finder) {
+        return finder.apply(id)
+                .orElseThrow(() -> new TransactionNotFoundException("交易ID " + id + " 不存在"));
+    }
+    
+    /**
+     * 收集一次更新涉及的账户（账户号码可能被修改）
+     * 
+     * @param before 更新前的交易
+     * @param after 更新后的交易
+     * @return 账户号码集合
+     */
+    private static Set<String> accountsOf(Transaction before, Transaction after) {
+        Set<String> accounts = new HashSet<>(2);
+        accounts.add(before.getAccountNumber());
+        accounts.add(after.getAccountNumber());
+        return accounts;
+    }
+    
+    /**
+     * 将交易请求转换为交易实体，并校验金额一致性
+     * 
+     * @param request 交易请求
+     * @return 交易实体
+     */
+    private Transaction toTransaction(TransactionRequest request) {
+        Transaction transaction = new Transaction();
+        applyRequest(transaction, request);
+        transaction.setTimestamp(LocalDateTime.now());
+        
+        // 验证价格和金额的一致性：amount = unit * price
+        validateAmount(transaction.getUnit(), transaction.getPrice(), transaction.getAmount());
+        return transaction;
+    }
+    
+    /**
+     * 用定点数校验 amount = unit * price，同时保证金额能被统计索引以定点数精确表示
+     * 金额最多保留2位小数：数据库按列的 scale 舍入，更多位数会使内存索引与持久化的金额不一致
+     * 
+     * @param unit 股数
+     * @param price 价格
+     * @param amount 金额
+     */
+    private static void validateAmount(long unit, BigDecimal price, BigDecimal amount) {
+        if (amount.stripTrailingZeros().scale() > AMOUNT_SCALE) {
+            throw new IllegalArgumentException("交易金额最多保留" + AMOUNT_SCALE + "位小数");
+        }
+        Money calculatedAmount;
+        try {
+            calculatedAmount = Money.of(price, "交易价格").times(unit);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("交易金额超出范围");
+        }
+        if (!calculatedAmount.equals(Money.of(amount, "交易金额"))) {
+            throw new IllegalArgumentException("交易金额必须等于股数 * 价格");
+        }
+    }
+    
+    /**
+     * 执行Bean Validation注解校验（批量接口无法依赖控制器的@Valid）
+     * 
+     * @param request 交易请求
+     */
+    private void validateConstraints(TransactionRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("交易请求不能为空");
+        }
+        Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+    
+    /**
+     * 卖出交易预占可卖股数（净持仓 - 其他未完成卖出的预占）
+     * 只读取内存持仓簿中该账户的持仓，不查询交易历史
+     * 
+     * @param transaction 待写入的交易
+     */
+    private void reserveHoldings(Transaction transaction) {
+        if (transaction.getTransType() != TransactionType.SELL) {
+            return;
+        }
+        String accountNumber = transaction.getAccountNumber();
+        String securityCode = transaction.getSecurityCode();
+        if (!positionBook.reserve(accountNumber, securityCode, transaction.getUnit())) {
+            throw new IllegalArgumentException("可卖股数不足：账户 " + accountNumber + " 股票 " + securityCode
+                    + " 可卖 " + positionBook.available(accountNumber, securityCode) + " 股，卖出 "
+                    + transaction.getUnit() + " 股");
+        }
+    }
+    
+    /**
+     * 交易在 {@link #reserveHoldings(Transaction)} 中预占的股数：卖出为卖出股数，买入不预占
+     */
+    private static long reservedUnits(Transaction transaction) {
+        return transaction.getTransType() == TransactionType.SELL ? transaction.getUnit() : 0;
+    }
+    
     /**
      * 验证交易请求
      * 
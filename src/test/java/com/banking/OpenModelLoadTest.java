@@ -0,0 +1,52 @@
+package com.banking;
+
+import com.banking.load.OpenModelLoadGenerator;
+import com.banking.load.OpenModelLoadGenerator.LoadProfile;
+import com.banking.load.OpenModelLoadGenerator.LoadResult;
+import com.banking.load.OpenModelLoadGenerator.Operation;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 开放模型压测：对随机端口上的内嵌服务按固定到达率发送混合请求
+ * 报告写入 target/load-reports，可与其他构建的报告对比
+ *
+ * @author Kongloih Zhang F
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class OpenModelLoadTest {
+
+    private static final int RATE_PER_SECOND = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void testFixedArrivalRateMixedWorkload() throws Exception {
+        LoadProfile profile = new LoadProfile("mixed", RATE_PER_SECOND, Duration.ofSeconds(5),
+                OpenModelLoadGenerator.parseMix("create:30,read:50,stats:15,delete:5"), 50, 42L);
+
+        LoadResult result = new OpenModelLoadGenerator("http://localhost:" + port).run(profile);
+        Path report = result.writeReport(Path.of("target", "load-reports"));
+
+        System.out.println("=== 开放模型压测（" + RATE_PER_SECOND + " 请求/秒） ===");
+        System.out.println(Files.readString(report));
+
+        assertEquals(profile.totalRequests(), result.getRequestCount());
+        assertEquals(0, result.getErrorCount());
+        for (Operation operation : Operation.values()) {
+            assertTrue(result.getCorrectedHistogram(operation).getTotalCount() > 0, operation + " 未被调度");
+        }
+        assertTrue(Files.exists(report));
+        assertTrue(Files.exists(Path.of(report.toString().replace(".json", ".hgrm"))));
+    }
+}
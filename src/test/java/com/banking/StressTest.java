@@ -11,14 +11,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -45,6 +51,7 @@ public class StressTest {
     private static final int CONCURRENT_USERS = 100;
     private static final int TRANSACTIONS_PER_USER = 10;
     private static final int TOTAL_TRANSACTIONS = CONCURRENT_USERS * TRANSACTIONS_PER_USER;
+    private static final int BENCHMARK_ROWS = 2000;
     
     // 测试用股票代码
     private static final String[] SECURITY_CODES = {
@@ -145,13 +152,14 @@ public class StressTest {
         createStockTestData(20);
         
         ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_USERS);
+        AtomicInteger requests = new AtomicInteger();
         long startTime = System.currentTimeMillis();
         
         // 创建混合操作任务
         CompletableFuture<?>[] futures = IntStream.range(0, CONCURRENT_USERS)
                 .mapToObj(userId -> CompletableFuture.runAsync(() -> {
                     try {
-                        performMixedOperations(userId);
+                        requests.addAndGet(performMixedOperations(userId));
                     } catch (Exception e) {
                         throw new RuntimeException("用户 " + userId + " 混合操作失败", e);
                     }
@@ -167,12 +175,157 @@ public class StressTest {
         System.out.println("=== 混合操作测试结果 ===");
         System.out.println("并发用户数: " + CONCURRENT_USERS);
         System.out.println("总耗时: " + duration + "ms");
+        System.out.println("请求数: " + requests.get() + ", 吞吐量: " + (requests.get() * 1000L / Math.max(duration, 1)) + " 请求/秒");
         System.out.println("========================");
         
         executor.shutdown();
         executor.awaitTermination(30, TimeUnit.SECONDS);
     }
     
+    @Test
+    void testBatchInsertThroughput() throws Exception {
+        // 预热，避免首次请求的类加载和JIT影响结果
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createBenchmarkRequests("WARM", 100))))
+                .andExpect(status().isOk());
+        
+        // 单条写入
+        List<TransactionRequest> singleRequests = createBenchmarkRequests("SGL", BENCHMARK_ROWS);
+        long singleStart = System.nanoTime();
+        for (TransactionRequest request : singleRequests) {
+            mockMvc.perform(post("/api/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+        long singleNanos = System.nanoTime() - singleStart;
+        
+        // 批量写入
+        List<TransactionRequest> batchRequests = createBenchmarkRequests("BAT", BENCHMARK_ROWS);
+        long batchStart = System.nanoTime();
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.summary.succeeded").value(BENCHMARK_ROWS))
+                .andExpect(jsonPath("$.summary.failed").value(0));
+        long batchNanos = System.nanoTime() - batchStart;
+        
+        System.out.println("=== 批量写入对比测试结果 ===");
+        System.out.println("写入行数: " + BENCHMARK_ROWS);
+        System.out.println("单条写入: " + (singleNanos / 1_000_000) + "ms, " + rowsPerSecond(singleNanos) + " rows/sec");
+        System.out.println("批量写入: " + (batchNanos / 1_000_000) + "ms, " + rowsPerSecond(batchNanos) + " rows/sec");
+        System.out.println("===========================");
+    }
+    
+    @Test
+    void testSyncVsAsyncIngestionThroughput() throws Exception {
+        // 预热两条写入路径
+        runIngestionBenchmark(createBenchmarkRequests("WSY", 200), false);
+        runIngestionBenchmark(createBenchmarkRequests("WAS", 200), true);
+        
+        long[] syncLatencies = new long[BENCHMARK_ROWS];
+        long syncNanos = runIngestionBenchmark(createBenchmarkRequests("SYN", BENCHMARK_ROWS), false, syncLatencies);
+        
+        long[] asyncLatencies = new long[BENCHMARK_ROWS];
+        long asyncNanos = runIngestionBenchmark(createBenchmarkRequests("ASY", BENCHMARK_ROWS), true, asyncLatencies);
+        
+        System.out.println("=== 同步/异步写入对比测试结果 ===");
+        System.out.println("并发用户数: " + CONCURRENT_USERS + ", 写入行数: " + BENCHMARK_ROWS);
+        System.out.println("同步写入: " + rowsPerSecond(syncNanos) + " rows/sec, p50="
+                + percentileMillis(syncLatencies, 50) + "ms, p99=" + percentileMillis(syncLatencies, 99) + "ms");
+        System.out.println("异步组提交(等待提交完成): " + rowsPerSecond(asyncNanos) + " rows/sec, p50="
+                + percentileMillis(asyncLatencies, 50) + "ms, p99=" + percentileMillis(asyncLatencies, 99) + "ms");
+        System.out.println("================================");
+    }
+    
+    private long runIngestionBenchmark(List<TransactionRequest> requests, boolean async) throws Exception {
+        return runIngestionBenchmark(requests, async, new long[requests.size()]);
+    }
+    
+    /**
+     * 多个用户并发写入同一批请求，记录每个请求的耗时
+     * 异步模式使用 wait=true，耗时包含排队和组提交，与同步写入的语义一致
+     * 
+     * @return 总耗时（纳秒）
+     */
+    private long runIngestionBenchmark(List<TransactionRequest> requests, boolean async, long[] latencies)
+            throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_USERS);
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = IntStream.range(0, CONCURRENT_USERS)
+                .mapToObj(userId -> CompletableFuture.runAsync(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests.size()) {
+                        try {
+                            long requestStart = System.nanoTime();
+                            postTransaction(requests.get(i), async);
+                            latencies[i] = System.nanoTime() - requestStart;
+                        } catch (Exception e) {
+                            throw new RuntimeException("写入第 " + i + " 笔交易失败", e);
+                        }
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).get();
+        long elapsed = System.nanoTime() - start;
+        
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        return elapsed;
+    }
+    
+    private void postTransaction(TransactionRequest request, boolean async) throws Exception {
+        String content = objectMapper.writeValueAsString(request);
+        if (!async) {
+            mockMvc.perform(post("/api/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(content))
+                    .andExpect(status().isCreated());
+            return;
+        }
+        MvcResult result = mockMvc.perform(post("/api/transactions/async")
+                        .param("wait", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.id").isNumber());
+    }
+    
+    private double percentileMillis(long[] latencies, int percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+    
+    private List<TransactionRequest> createBenchmarkRequests(String prefix, int count) {
+        List<TransactionRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TransactionRequest request = new TransactionRequest();
+            request.setAccountNumber(prefix + String.format("%013d", i % 100)); // 16位账户号
+            request.setSecurityCode(SECURITY_CODES[i % SECURITY_CODES.length]);
+            request.setTransType(TransactionType.BUY);
+            request.setUnit(100L);
+            request.setPrice(new BigDecimal("12.50"));
+            request.setAmount(new BigDecimal("1250.00"));
+            request.setTransDate(LocalDate.now());
+            request.setDescription("批量写入测试 " + i);
+            request.setCurrency("CNY");
+            requests.add(request);
+        }
+        return requests;
+    }
+    
+    private long rowsPerSecond(long nanos) {
+        return BENCHMARK_ROWS * 1_000_000_000L / Math.max(nanos, 1);
+    }
+    
     private void performUserStockTransactions(int userId) throws Exception {
         String accountNumber = "ACC" + String.format("%016d", userId); // 16位账户号
         
@@ -180,16 +333,16 @@ public class StressTest {
             TransactionRequest request = new TransactionRequest();
             request.setAccountNumber(accountNumber);
             
-            // 随机选择股票
-            String securityCode = SECURITY_CODES[i % SECURITY_CODES.length];
-            request.setSecurityCode(securityCode);
-            
-            // 随机选择买入或卖出
+            // 买入和卖出交替，卖出上一笔买入的股票和股数，不超过可卖股数
             TransactionType transType = i % 2 == 0 ? TransactionType.BUY : TransactionType.SELL;
             request.setTransType(transType);
+            int leg = transType == TransactionType.BUY ? i : i - 1;
+            
+            String securityCode = SECURITY_CODES[leg % SECURITY_CODES.length];
+            request.setSecurityCode(securityCode);
             
             // 设置股数和价格
-            Long unit = (long) ((1 + (i % 10)) * 100); // 100-1000股
+            Long unit = (long) ((1 + (leg % 10)) * 100); // 100-1000股
             BigDecimal price = new BigDecimal("10.00").add(new BigDecimal(i % 50)); // 10-60元
             request.setUnit(unit);
             request.setPrice(price);
@@ -217,13 +370,33 @@ public class StressTest {
         }
     }
     
-    private void performReadOperations() throws Exception {
+    /**
+     * 一轮读取操作
+     * 
+     * @return 发出的请求数
+     */
+    private int performReadOperations() throws Exception {
         // 查询交易列表
         mockMvc.perform(get("/api/transactions")
                         .param("page", "0")
                         .param("size", "10"))
                 .andExpect(status().isOk());
         
+        // 游标分页查询交易列表（首页 + 下一页）
+        String firstPage = mockMvc.perform(get("/api/transactions")
+                        .param("cursor", "")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).path("pagination").path("nextCursor").asText(null);
+        if (nextCursor != null) {
+            mockMvc.perform(get("/api/transactions")
+                            .param("cursor", nextCursor)
+                            .param("size", "10"))
+                    .andExpect(status().isOk());
+        }
+        int requests = nextCursor != null ? 3 : 2;
+        
         // 查询统计信息
         mockMvc.perform(get("/api/transactions/statistics"))
                 .andExpect(status().isOk());
@@ -235,36 +408,75 @@ public class StressTest {
         // 查询股票交易统计
         mockMvc.perform(get("/api/transactions/security/000001/account/ACC0000000000000001/statistics"))
                 .andExpect(status().isOk());
+        return requests + 3;
     }
     
-    private void performMixedOperations(int userId) throws Exception {
+    /**
+     * 一个用户的混合操作：写入（含卖出和超卖）、读取、账户查询和导出
+     * 
+     * @return 发出的请求数
+     */
+    private int performMixedOperations(int userId) throws Exception {
         String accountNumber = "MIX" + String.format("%015d", userId); // 16位账户号
+        int requests = 0;
         
         // 50% 创建交易
         if (userId % 2 == 0) {
-            TransactionRequest request = new TransactionRequest();
-            request.setAccountNumber(accountNumber);
-            request.setSecurityCode("000001");
-            request.setTransType(TransactionType.BUY);
-            request.setUnit(100L);
-            request.setPrice(new BigDecimal("50.00"));
-            request.setAmount(new BigDecimal("5000.00"));
-            request.setTransDate(LocalDate.now());
-            request.setDescription("混合测试买入平安银行");
-            request.setCurrency("CNY");
-            
-            mockMvc.perform(post("/api/transactions")
-                            .contentType(MediaType.APPLICATION_JSON)
-                            .content(objectMapper.writeValueAsString(request)))
+            postMixedTransaction(accountNumber, TransactionType.BUY, 100L, "混合测试买入平安银行")
                     .andExpect(status().isCreated());
+            requests++;
+        }
+        
+        // 其中一半随后卖出部分持仓，再尝试超卖（剩余40股，卖出60股被可卖股数校验拒绝）
+        if (userId % 4 == 0) {
+            postMixedTransaction(accountNumber, TransactionType.SELL, 60L, "混合测试卖出平安银行")
+                    .andExpect(status().isCreated());
+            postMixedTransaction(accountNumber, TransactionType.SELL, 60L, "混合测试超卖平安银行")
+                    .andExpect(status().isBadRequest());
+            requests += 2;
         }
         
         // 执行读取操作
-        performReadOperations();
+        requests += performReadOperations();
         
         // 查询账户交易
         mockMvc.perform(get("/api/transactions/account/" + accountNumber))
                 .andExpect(status().isOk());
+        
+        // 流式导出账户交易
+        MvcResult exportResult = mockMvc.perform(get("/api/transactions/export")
+                        .param("format", "ndjson")
+                        .param("accountNumber", accountNumber)
+                        .param("startDate", LocalDate.now().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String exported = mockMvc.perform(asyncDispatch(exportResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long exportedRows = exported.lines().count();
+        if (exportedRows != (userId % 4 == 0 ? 2 : userId % 2 == 0 ? 1 : 0)) {
+            throw new IllegalStateException("账户 " + accountNumber + " 导出行数不正确: " + exportedRows);
+        }
+        return requests + 2;
+    }
+    
+    private ResultActions postMixedTransaction(String accountNumber, TransactionType type, long unit,
+                                               String description) throws Exception {
+        BigDecimal price = new BigDecimal("50.00");
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(accountNumber);
+        request.setSecurityCode("000001");
+        request.setTransType(type);
+        request.setUnit(unit);
+        request.setPrice(price);
+        request.setAmount(price.multiply(BigDecimal.valueOf(unit)));
+        request.setTransDate(LocalDate.now());
+        request.setDescription(description);
+        request.setCurrency("CNY");
+        
+        return mockMvc.perform(post("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
     }
     
     private void createStockTestData(int count) throws Exception {
@@ -0,0 +1,239 @@
+package com.banking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 平台线程与虚拟线程执行模式对比
+ * 以 {@link StressTest} 10倍的并发用户数，经真实HTTP（内嵌Tomcat随机端口）分别运行创建、读取、混合三个场景；
+ * StressTest使用MockMvc不经过Servlet容器，无法体现请求线程模型的差异。
+ * 运行耗时较长，需显式开启：mvn test -Dtest=ThreadModeComparisonTest -Dstress.thread-modes=true
+ *
+ * @author Kongloih Zhang F
+ */
+@EnabledIfSystemProperty(named = "stress.thread-modes", matches = "true")
+class ThreadModeComparisonTest {
+
+    /**
+     * StressTest.CONCURRENT_USERS 的10倍
+     */
+    private static final int CONCURRENT_USERS = 1000;
+
+    private static final int TRANSACTIONS_PER_USER = 10;
+
+    private static final int WARMUP_USERS = 200;
+
+    private static final String[] SECURITY_CODES = {"000001", "000002", "600036", "600519", "300015"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testPlatformVersusVirtualThreads() throws Exception {
+        Map<String, ScenarioResult> platform = runAll(false);
+        Map<String, ScenarioResult> virtual = runAll(true);
+
+        System.out.println("=== 执行模式对比（并发用户数 " + CONCURRENT_USERS + "） ===");
+        System.out.printf("%-8s %-8s %10s %10s %10s %10s %8s %10s%n",
+                "场景", "模式", "请求数", "耗时ms", "请求/秒", "p99 ms", "错误", "峰值连接");
+        for (String scenario : platform.keySet()) {
+            print(scenario, "platform", platform.get(scenario));
+            print(scenario, "virtual", virtual.get(scenario));
+        }
+
+        for (Map<String, ScenarioResult> results : List.of(platform, virtual)) {
+            for (ScenarioResult result : results.values()) {
+                assertEquals(0, result.errors.get());
+                assertTrue(result.peakActiveConnections <= result.maximumPoolSize,
+                        "活动连接数超过连接池上限: " + result.peakActiveConnections);
+            }
+        }
+    }
+
+    private Map<String, ScenarioResult> runAll(boolean virtualThreads) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TransactionManagementApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:threadmode" + virtualThreads,
+                        "logging.level.root=WARN")
+                .run();
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HikariDataSource dataSource = context.getBean(HikariDataSource.class);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+
+            // 预热：先跑一轮不计入结果的创建，避免先运行的模式承担JIT编译开销
+            runScenario(dataSource, WARMUP_USERS, (userId, result) -> {
+                for (int i = 0; i < TRANSACTIONS_PER_USER; i++) {
+                    send(client, result, createRequest(baseUrl, "WARM" + String.format("%012d", userId), i), 201);
+                }
+            });
+
+            Map<String, ScenarioResult> results = new LinkedHashMap<>();
+            results.put("create", runScenario(dataSource, CONCURRENT_USERS, (userId, result) -> {
+                for (int i = 0; i < TRANSACTIONS_PER_USER; i++) {
+                    send(client, result, createRequest(baseUrl, "TM" + String.format("%014d", userId), i), 201);
+                }
+            }));
+            results.put("read", runScenario(dataSource, CONCURRENT_USERS, (userId, result) -> {
+                send(client, result, get(baseUrl, "/api/transactions?page=0&size=10"), 200);
+                send(client, result, get(baseUrl, "/api/transactions?cursor=&size=10"), 200);
+                send(client, result, get(baseUrl, "/api/transactions/statistics"), 200);
+                send(client, result, get(baseUrl, "/api/transactions/security/000001/account/TM00000000000000/statistics"), 200);
+            }));
+            results.put("mixed", runScenario(dataSource, CONCURRENT_USERS, (userId, result) -> {
+                String accountNumber = "MIX" + String.format("%013d", userId);
+                if (userId % 2 == 0) {
+                    send(client, result, createRequest(baseUrl, accountNumber, userId), 201);
+                }
+                send(client, result, get(baseUrl, "/api/transactions/account/" + accountNumber), 200);
+                send(client, result, get(baseUrl, "/api/transactions/statistics"), 200);
+            }));
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            for (Timer pinned : meterRegistry.find("jvm.threads.virtual.pinned").timers()) {
+                System.out.println("钉住位置 " + pinned.getId().getTag("site") + ": " + pinned.count() + " 次, 最长 "
+                        + pinned.max(TimeUnit.MILLISECONDS) + " ms");
+            }
+            return results;
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * 每个用户一个客户端虚拟线程，全部用户同时开始；期间采样连接池活动连接数
+     */
+    private ScenarioResult runScenario(HikariDataSource dataSource, int concurrentUsers, UserScript script) throws Exception {
+        ScenarioResult result = new ScenarioResult(dataSource.getMaximumPoolSize());
+        AtomicInteger peak = new AtomicInteger();
+        Thread sampler = Thread.ofVirtual().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(dataSource.getHikariPoolMXBean().getActiveConnections(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(concurrentUsers);
+            for (int userId = 0; userId < concurrentUsers; userId++) {
+                int id = userId;
+                futures.add(users.submit(() -> {
+                    try {
+                        script.run(id, result);
+                    } catch (Exception ex) {
+                        if (result.errors.incrementAndGet() == 1) {
+                            System.err.println("用户 " + id + " 请求失败: " + ex);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        result.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        sampler.interrupt();
+        sampler.join();
+        result.peakActiveConnections = peak.get();
+        return result;
+    }
+
+    private void send(HttpClient client, ScenarioResult result, HttpRequest request, int expectedStatus)
+            throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        result.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        result.requests.incrementAndGet();
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.uri() + " 返回 " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private HttpRequest createRequest(String baseUrl, String accountNumber, int i) throws Exception {
+        // 奇数笔卖出上一笔买入的股票和股数，不超过可卖股数
+        int leg = i % 2 == 0 ? i : i - 1;
+        long unit = (1 + (leg % 10)) * 100L;
+        BigDecimal price = new BigDecimal("10.00").add(new BigDecimal(i % 50));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("accountNumber", accountNumber);
+        body.put("transType", i % 2 == 0 ? "BUY" : "SELL");
+        body.put("unit", unit);
+        body.put("price", price);
+        body.put("amount", price.multiply(BigDecimal.valueOf(unit)));
+        body.put("securityCode", SECURITY_CODES[leg % SECURITY_CODES.length]);
+        body.put("currency", "CNY");
+        body.put("description", "执行模式对比");
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions"))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private static HttpRequest get(String baseUrl, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofMinutes(2)).GET().build();
+    }
+
+    private static void print(String scenario, String mode, ScenarioResult result) {
+        System.out.printf("%-8s %-8s %10d %10d %10.1f %10.1f %8d %10d%n",
+                scenario, mode, result.requests.get(), result.elapsedMillis,
+                result.requests.get() * 1000.0 / Math.max(1, result.elapsedMillis),
+                result.latencies.getValueAtPercentile(99) / 1000.0,
+                result.errors.get(), result.peakActiveConnections);
+    }
+
+    @FunctionalInterface
+    private interface UserScript {
+        void run(int userId, ScenarioResult result) throws Exception;
+    }
+
+    private static class ScenarioResult {
+        final int maximumPoolSize;
+        final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        long elapsedMillis;
+        int peakActiveConnections;
+
+        ScenarioResult(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.banking.benchmark;
+
+import com.banking.index.PositionBook;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 卖出可卖股数校验基准：预占 + 释放一次的耗时
+ * hotAccount 所有线程争用同一账户同一持仓，spreadAccounts 线程分散在1000个账户上
+ *
+ * @author Kongloih Zhang F
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class HoldingsCheckBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+
+    private static final String SECURITY_CODE = "600036";
+
+    private final PositionBook positionBook = new PositionBook();
+
+    private String[] accounts;
+
+    @Setup
+    public void setUp() {
+        accounts = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = String.format("%016d", i);
+            Transaction opening = new Transaction();
+            opening.setId((long) i);
+            opening.setAccountNumber(accounts[i]);
+            opening.setSecurityCode(SECURITY_CODE);
+            opening.setTransType(TransactionType.BUY);
+            opening.setUnit(1_000_000L);
+            opening.setAmount(new BigDecimal("10000000.00"));
+            opening.setTimestamp(LocalDateTime.of(2024, 3, 4, 9, 30));
+            positionBook.add(opening);
+        }
+    }
+
+    @Benchmark
+    public boolean hotAccount() {
+        return reserveAndRelease(accounts[0]);
+    }
+
+    @Benchmark
+    public boolean spreadAccounts() {
+        return reserveAndRelease(accounts[ThreadLocalRandom.current().nextInt(ACCOUNTS)]);
+    }
+
+    private boolean reserveAndRelease(String accountNumber) {
+        boolean reserved = positionBook.reserve(accountNumber, SECURITY_CODE, 100);
+        if (reserved) {
+            positionBook.release(accountNumber, SECURITY_CODE, 100);
+        }
+        return reserved;
+    }
+}
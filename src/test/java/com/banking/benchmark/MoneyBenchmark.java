@@ -0,0 +1,108 @@
+package com.banking.benchmark;
+
+import com.banking.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 金额运算基准：BigDecimal与定点数 {@link Money} 对比
+ * 覆盖两个热点：创建/更新交易时的 amount = unit * price 校验，以及统计累加
+ * 使用 -prof gc 查看每次操作的分配字节数（gc.alloc.rate.norm）
+ *
+ * @author Kongloih Zhang F
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    private long unit;
+    private BigDecimal price;
+    private BigDecimal amount;
+
+    private BigDecimal[] amounts;
+    private long[] scaledAmounts;
+
+    @Setup
+    public void setUp() {
+        unit = 1300L;
+        price = new BigDecimal("12.3400");
+        amount = new BigDecimal("16042.00");
+
+        Random random = new Random(42);
+        amounts = new BigDecimal[AMOUNTS];
+        scaledAmounts = new long[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts[i] = BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2);
+            scaledAmounts[i] = Money.of(amounts[i]).scaledValue();
+        }
+    }
+
+    /**
+     * 原实现：每次校验分配BigDecimal乘积
+     */
+    @Benchmark
+    public boolean validateAmountBigDecimal() {
+        BigDecimal calculatedAmount = BigDecimal.valueOf(unit).multiply(price);
+        return amount.compareTo(calculatedAmount) == 0;
+    }
+
+    /**
+     * 定点数实现：API边界转换一次，乘法和比较都在long上完成
+     */
+    @Benchmark
+    public boolean validateAmountMoney() {
+        return Money.of(price).times(unit).equals(Money.of(amount));
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal value : amounts) {
+            total = total.add(value);
+        }
+        return total;
+    }
+
+    /**
+     * 统计索引的累加方式：在放大后的long上累加，只在输出时转换为Money
+     */
+    @Benchmark
+    public Money sumScaled() {
+        long total = 0;
+        for (long value : scaledAmounts) {
+            total = Math.addExact(total, value);
+        }
+        return Money.ofScaled(total);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,61 @@
+package com.banking.benchmark;
+
+import com.banking.dto.TransactionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 读路径基准：按账户读取预置的10000笔交易，托管实体再逐条复制为 {@link TransactionResponse}
+ * 与 select new 直接构造响应对比；直接调用数据访问层，绕开服务层的账户缓存
+ * 使用 -prof gc 查看每次操作的分配字节数（gc.alloc.rate.norm），即每10000行的分配量
+ *
+ * @author Kongloih Zhang F
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReadProjectionBenchmark {
+
+    /**
+     * 原读路径：加载托管实体（持久化上下文、脏检查快照），再复制为响应
+     */
+    @Benchmark
+    public List<TransactionResponse> entities(ServiceBenchmarkState state) {
+        return state.transactionRepository.findByAccountNumber(ServiceBenchmarkState.ACCOUNT_NUMBER)
+                .stream()
+                .map(TransactionResponse::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 投影读路径：结果列直接构造响应，不创建实体
+     */
+    @Benchmark
+    public List<TransactionResponse> projection(ServiceBenchmarkState state) {
+        return state.transactionRepository.findResponsesByAccountNumber(ServiceBenchmarkState.ACCOUNT_NUMBER);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ReadProjectionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
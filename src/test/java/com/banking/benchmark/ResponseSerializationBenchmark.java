@@ -0,0 +1,79 @@
+package com.banking.benchmark;
+
+import com.banking.dto.TransactionResponse;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应构建与序列化基准：TransactionResponse构造，以及控制器 success/message/data 响应体的Jackson序列化
+ * ObjectMapper由Jackson2ObjectMapperBuilder构建，与Spring Boot默认配置一致（含JavaTimeModule）
+ *
+ * @author Kongloih Zhang F
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class ResponseSerializationBenchmark {
+
+    private Transaction transaction;
+
+    private TransactionResponse response;
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        transaction = new Transaction();
+        transaction.setId(123456L);
+        transaction.setAccountNumber(ServiceBenchmarkState.ACCOUNT_NUMBER);
+        transaction.setTransType(TransactionType.BUY);
+        transaction.setUnit(1300L);
+        transaction.setPrice(new BigDecimal("12.34"));
+        transaction.setAmount(new BigDecimal("16042.00"));
+        transaction.setTransDate(LocalDate.of(2024, 1, 2));
+        transaction.setTimestamp(LocalDateTime.of(2024, 1, 2, 9, 30, 15));
+        transaction.setSecurityCode(ServiceBenchmarkState.SECURITY_CODE);
+        transaction.setCurrency("CNY");
+        transaction.setDescription("买入招商银行");
+
+        response = new TransactionResponse(transaction);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public TransactionResponse buildResponse() {
+        return new TransactionResponse(transaction);
+    }
+
+    @Benchmark
+    public String serializeEnvelope() throws JsonProcessingException {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("message", "获取交易详情成功");
+        result.put("data", response);
+        return objectMapper.writeValueAsString(result);
+    }
+}
@@ -0,0 +1,123 @@
+package com.banking.benchmark;
+
+import com.banking.TransactionManagementApplication;
+import com.banking.config.CacheConfig;
+import com.banking.dto.TransactionRequest;
+import com.banking.dto.TransactionResponse;
+import com.banking.model.TransactionType;
+import com.banking.repository.TransactionRepository;
+import com.banking.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * 服务层基准共享状态：每个fork启动一次不含Web层的Spring上下文（H2内存库 + Caffeine缓存）
+ * 使用test profile跳过随机Mock数据，改为用固定种子预置交易，保证各次运行数据一致
+ *
+ * @author Kongloih Zhang F
+ */
+@State(Scope.Benchmark)
+public class ServiceBenchmarkState {
+
+    static final int PRELOADED_TRANSACTIONS = 10_000;
+
+    static final String ACCOUNT_NUMBER = "1234567890123456";
+
+    static final String SECURITY_CODE = "600036";
+
+    /**
+     * 建仓股数，远大于预置交易和基准运行期间可能卖出的总股数
+     */
+    static final long OPENING_UNITS = 1_000_000_000L;
+
+    /**
+     * 描述取值，“招商银行”的命中率约为1/4
+     */
+    static final String[] DESCRIPTIONS = {
+            "基准测试 建仓买入招商银行", "基准测试 减仓卖出招商银行", "Benchmark rebalance portfolio",
+            "Benchmark dividend reinvestment", "基准测试 网格交易", "Benchmark stop loss order",
+            "基准测试 定投", "Benchmark index tracking"
+    };
+
+    ConfigurableApplicationContext context;
+
+    TransactionService transactionService;
+
+    TransactionRepository transactionRepository;
+
+    Cache transactionEntities;
+
+    Cache transactionResponses;
+
+    EntityManagerFactory entityManagerFactory;
+
+    long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(TransactionManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark", "logging.level.root=WARN")
+                .run();
+        transactionService = context.getBean(TransactionService.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        CacheManager cacheManager = context.getBean(CacheManager.class);
+        transactionEntities = cacheManager.getCache(CacheConfig.TRANSACTION_ENTITIES);
+        transactionResponses = cacheManager.getCache(CacheConfig.TRANSACTION_RESPONSES);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+        // 建仓，使随机生成的卖出始终在可卖股数以内
+        TransactionRequest opening = newRequest(new Random(42));
+        opening.setTransType(TransactionType.BUY);
+        opening.setUnit(OPENING_UNITS);
+        opening.setAmount(opening.getPrice().multiply(BigDecimal.valueOf(OPENING_UNITS)));
+        transactionService.createTransaction(opening);
+
+        Random random = new Random(42);
+        ids = new long[PRELOADED_TRANSACTIONS];
+        for (int i = 0; i < PRELOADED_TRANSACTIONS; i++) {
+            TransactionResponse response = transactionService.createTransaction(newRequest(random));
+            ids[i] = response.getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 生成一笔合法的交易请求（amount = unit * price）
+     *
+     * @param random 随机源
+     * @return 交易请求
+     */
+    static TransactionRequest newRequest(Random random) {
+        long unit = 100L * (1 + random.nextInt(50));
+        BigDecimal price = BigDecimal.valueOf(500 + random.nextInt(5000), 2);
+
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(ACCOUNT_NUMBER);
+        request.setTransType(random.nextBoolean() ? TransactionType.BUY : TransactionType.SELL);
+        request.setUnit(unit);
+        request.setPrice(price);
+        request.setAmount(price.multiply(BigDecimal.valueOf(unit)));
+        request.setSecurityCode(SECURITY_CODE);
+        request.setCurrency("CNY");
+        request.setDescription(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]);
+        return request;
+    }
+}
@@ -0,0 +1,190 @@
+package com.banking.benchmark;
+
+import com.banking.dto.AttributeFilter;
+import com.banking.dto.CursorPage;
+import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransactionSearchRequest;
+import com.banking.dto.TransactionSortField;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交易服务热点路径基准：创建、按ID查询（缓存命中/未命中）、当天统计、描述检索、大额交易Top-N、区间成交统计、属性组合过滤、多条件检索
+ * 调用经过Spring缓存代理，与线上请求走相同路径（不含HTTP层）
+ *
+ * @author Kongloih Zhang F
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class TransactionServiceBenchmark {
+
+    private static final BigDecimal LARGE_THRESHOLD = new BigDecimal("100000");
+
+    private static final AttributeFilter BUYS_IN_CNY = AttributeFilter.allOf(
+            AttributeFilter.in("securityCode", ServiceBenchmarkState.SECURITY_CODE),
+            AttributeFilter.in("transType", "BUY"),
+            AttributeFilter.not(AttributeFilter.in("currency", "USD", "HKD")));
+
+    private static final TransactionSearchRequest LARGE_BUYS = new TransactionSearchRequest();
+
+    static {
+        LARGE_BUYS.setAccountNumber(ServiceBenchmarkState.ACCOUNT_NUMBER);
+        LARGE_BUYS.setTransType(TransactionType.BUY);
+        LARGE_BUYS.setMinAmount(new BigDecimal("50000"));
+        LARGE_BUYS.setSortBy(TransactionSortField.AMOUNT);
+    }
+
+    private Random random;
+
+    private int cursor;
+
+    private LocalDateTime rangeStart;
+
+    private LocalDateTime rangeEnd;
+
+    @Setup
+    public void setUp() {
+        random = new Random(7);
+        rangeEnd = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        rangeStart = rangeEnd.minusHours(1);
+    }
+
+    @Benchmark
+    public TransactionResponse createTransaction(ServiceBenchmarkState state) {
+        return state.transactionService.createTransaction(ServiceBenchmarkState.newRequest(random));
+    }
+
+    /**
+     * 反复查询同一个ID，首次之后全部命中缓存
+     */
+    @Benchmark
+    public TransactionResponse getTransactionCacheHit(ServiceBenchmarkState state) {
+        return state.transactionService.getTransaction(state.ids[0]);
+    }
+
+    /**
+     * 每次先驱逐响应缓存、实体缓存和Hibernate二级缓存再查询，强制走数据库；结果包含三次缓存驱逐的开销
+     */
+    @Benchmark
+    public TransactionResponse getTransactionCacheMiss(ServiceBenchmarkState state) {
+        long id = state.ids[cursor++ % state.ids.length];
+        state.transactionResponses.evict(id);
+        state.transactionEntities.evict(id);
+        state.entityManagerFactory.getCache().evict(Transaction.class, id);
+        return state.transactionService.getTransaction(id);
+    }
+
+    @Benchmark
+    public Map<String, Object> getSecurityStatistics(ServiceBenchmarkState state) {
+        return state.transactionService.getSecurityStatistics(
+                ServiceBenchmarkState.SECURITY_CODE, ServiceBenchmarkState.ACCOUNT_NUMBER);
+    }
+
+    /**
+     * 倒排索引检索首页（20条）
+     */
+    @Benchmark
+    public CursorPage<TransactionResponse> searchByDescription(ServiceBenchmarkState state) {
+        return state.transactionService.searchByDescription("招商银行", false, null, 20);
+    }
+
+    /**
+     * 对照：原 LIKE '%x%' 查询，全表扫描并返回全部命中
+     */
+    @Benchmark
+    public List<Transaction> findByDescriptionContaining(ServiceBenchmarkState state) {
+        return state.transactionRepository.findByDescriptionContaining("招商银行");
+    }
+
+    /**
+     * 金额索引取阈值以上金额最大的100笔
+     */
+    @Benchmark
+    public List<TransactionResponse> getLargestTransactions(ServiceBenchmarkState state) {
+        return state.transactionService.getLargestTransactions(LARGE_THRESHOLD, 100);
+    }
+
+    /**
+     * 对照：原数据库查询，返回阈值以上的全部交易并在数据库中排序
+     */
+    @Benchmark
+    public List<Transaction> findLargeTransactions(ServiceBenchmarkState state) {
+        return state.transactionRepository.findLargeTransactions(LARGE_THRESHOLD);
+    }
+
+    /**
+     * 分钟前缀和索引统计最近一小时的买入/卖出笔数、股数、金额
+     */
+    @Benchmark
+    public Map<String, Object> getRangeStatistics(ServiceBenchmarkState state) {
+        return state.transactionService.getRangeStatistics(ServiceBenchmarkState.SECURITY_CODE, rangeStart, rangeEnd);
+    }
+
+    /**
+     * 对照：原数据库区间计数（只有笔数）
+     */
+    @Benchmark
+    public Long countTransactionsBetween(ServiceBenchmarkState state) {
+        return state.transactionRepository.countTransactionsBetween(rangeStart, rangeEnd);
+    }
+
+    /**
+     * 位图索引求值 股票代码 AND 买入 AND NOT 外币，取首页20条
+     */
+    @Benchmark
+    public CursorPage<TransactionResponse> filterTransactions(ServiceBenchmarkState state) {
+        return state.transactionService.filterTransactions(BUYS_IN_CNY, null, 20);
+    }
+
+    /**
+     * 对照：原派生查询（账户 + 类型），返回全部命中
+     */
+    @Benchmark
+    public List<Transaction> findByAccountNumberAndType(ServiceBenchmarkState state) {
+        return state.transactionRepository.findByAccountNumberAndType(ServiceBenchmarkState.ACCOUNT_NUMBER, TransactionType.BUY);
+    }
+
+    /**
+     * 多条件检索下推到数据库：账户 AND 买入 AND 金额下限，按金额倒序取首页20条
+     */
+    @Benchmark
+    public CursorPage<?> searchTransactions(ServiceBenchmarkState state) {
+        return state.transactionService.searchTransactions(LARGE_BUYS);
+    }
+
+    /**
+     * 对照：按账户和类型取出全部交易，在内存中过滤金额、排序后截取首页
+     */
+    @Benchmark
+    public List<Transaction> searchTransactionsInMemory(ServiceBenchmarkState state) {
+        return state.transactionRepository.findByAccountNumberAndType(ServiceBenchmarkState.ACCOUNT_NUMBER, TransactionType.BUY)
+                .stream()
+                .filter(t -> t.getAmount().compareTo(LARGE_BUYS.getMinAmount()) >= 0)
+                .sorted(Comparator.comparing(Transaction::getAmount).thenComparing(Transaction::getId).reversed())
+                .limit(LARGE_BUYS.getSize())
+                .toList();
+    }
+}
@@ -0,0 +1,70 @@
+package com.banking.config;
+
+import com.banking.dto.TransactionRequest;
+import com.banking.model.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 方法耗时、查询行数和缓存指标经Prometheus端点暴露的集成测试
+ *
+ * @author Kongloih Zhang F
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testServiceRepositoryAndCacheMetricsAreExported() throws Exception {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber("5555666677778888");
+        request.setTransType(TransactionType.BUY);
+        request.setUnit(100L);
+        request.setPrice(new BigDecimal("10.00"));
+        request.setAmount(new BigDecimal("1000.00"));
+        request.setSecurityCode("000001");
+
+        mockMvc.perform(post("/api/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+        // 未命中后命中
+        mockMvc.perform(get("/api/transactions/account/5555666677778888")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/transactions/account/5555666677778888")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "banking_method_seconds_bucket{class=\"TransactionService\",exception=\"none\",layer=\"service\",method=\"createTransaction\"")))
+                .andExpect(content().string(containsString(
+                        "banking_method_seconds_count{class=\"TransactionRepository\",exception=\"none\",layer=\"repository\",method=\"findResponsesByAccountNumber\"")))
+                .andExpect(content().string(containsString(
+                        "banking_repository_rows_count{method=\"findResponsesByAccountNumber\"")))
+                .andExpect(content().string(containsString(
+                        "cache_gets_total{cache=\"accountTransactions\",cache_manager=\"cacheManager\",name=\"accountTransactions\",result=\"hit\"")))
+                .andExpect(content().string(containsString("cache_evictions_total{cache=\"accountTransactions\"")))
+                .andExpect(content().string(containsString("cache_load_latency_seconds_bucket{cache=\"accountTransactions\"")))
+                .andExpect(content().string(containsString("cache_clears_total{cache=\"transactionResponses\"")));
+    }
+}
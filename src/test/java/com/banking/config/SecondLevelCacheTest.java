@@ -0,0 +1,172 @@
+package com.banking.config;
+
+import com.banking.dto.TransactionRequest;
+import com.banking.dto.TransactionResponse;
+import com.banking.exception.TransactionVersionConflictException;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import com.banking.repository.TransactionJpaRepository;
+import com.banking.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Hibernate二级缓存和查询缓存集成测试：命中、更新和删除后的失效、指标导出
+ *
+ * @author Kongloih Zhang F
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    private static final String ACCOUNT = "L2CACHE000000001";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionJpaRepository jpaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testEntityAndQueryCacheHitsAndInvalidation() throws Exception {
+        TransactionResponse created = transactionService.createTransaction(request(100L));
+        Long id = created.getId();
+
+        // 插入提交后实体已在缓存中，按ID加载不访问数据库
+        long entityHits = regionHits();
+        assertEquals(new BigDecimal("1000.00"), jpaRepository.findById(id).orElseThrow().getAmount());
+        assertEquals(entityHits + 1, regionHits());
+
+        // 相同参数的查询第二次读取查询缓存
+        long queryHits = statistics.getQueryCacheHitCount();
+        assertEquals(1, jpaRepository.findByAccountNumberOrderByTimestampDesc(ACCOUNT).size());
+        assertEquals(1, jpaRepository.findByAccountNumberOrderByTimestampDesc(ACCOUNT).size());
+        assertEquals(1L, jpaRepository.countByAccountNumber(ACCOUNT));
+        assertEquals(1L, jpaRepository.countByAccountNumber(ACCOUNT));
+        assertEquals(queryHits + 2, statistics.getQueryCacheHitCount());
+
+        // 更新时合并读取的旧状态来自二级缓存；更新后查询缓存失效，读到新值
+        entityHits = regionHits();
+        transactionService.updateTransaction(id, request(200L));
+        assertTrue(regionHits() > entityHits);
+        queryHits = statistics.getQueryCacheHitCount();
+        List<Transaction> updated = jpaRepository.findByAccountNumberOrderByTimestampDesc(ACCOUNT);
+        assertEquals(queryHits, statistics.getQueryCacheHitCount());
+        assertEquals(new BigDecimal("2000.00"), updated.get(0).getAmount());
+        assertEquals(new BigDecimal("2000.00"), jpaRepository.findById(id).orElseThrow().getAmount());
+
+        // 删除后实体和查询结果都不再命中
+        transactionService.deleteTransaction(id);
+        assertTrue(jpaRepository.findById(id).isEmpty());
+        assertTrue(jpaRepository.findByAccountNumberOrderByTimestampDesc(ACCOUNT).isEmpty());
+        assertEquals(0L, jpaRepository.countByAccountNumber(ACCOUNT));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests_total{")))
+                .andExpect(content().string(containsString("region=\"transactions\",result=\"hit\"")))
+                .andExpect(content().string(containsString("hibernate_cache_query_requests_total{")));
+    }
+
+    @Test
+    void testConditionalUpdateInvalidatesCaches() {
+        TransactionResponse created = transactionService.createTransaction(request(100L));
+        Long id = created.getId();
+        assertEquals(0L, created.getVersion());
+        jpaRepository.findById(id).orElseThrow();
+        assertEquals(1, jpaRepository.findByAccountNumberOrderByTimestampDesc(ACCOUNT).size());
+
+        // 条件更新绕过Hibernate写入，之后按ID加载和账户查询都读到新值
+        TransactionResponse updated = transactionService.updateTransaction(id, request(300L), 0L);
+        assertEquals(1L, updated.getVersion());
+        Transaction reloaded = jpaRepository.findById(id).orElseThrow();
+        assertEquals(new BigDecimal("3000.00"), reloaded.getAmount());
+        assertEquals(1L, reloaded.getVersion());
+        assertEquals(reloaded.getTimestamp(), updated.getTimestamp());
+        assertEquals(300L, jpaRepository.findByAccountNumberOrderByTimestampDesc(ACCOUNT).get(0).getUnit());
+
+        // 旧版本号被拒绝；不带版本号的更新经Hibernate合并，版本号继续递增
+        assertThrows(TransactionVersionConflictException.class,
+                () -> transactionService.updateTransaction(id, request(400L), 0L));
+        assertEquals(2L, transactionService.updateTransaction(id, request(400L)).getVersion());
+        assertEquals(2L, transactionService.getTransaction(id).getVersion());
+
+        transactionService.deleteTransaction(id);
+    }
+
+    @Test
+    void testLockedReadIgnoresStaleEntityCache() {
+        TransactionResponse created = transactionService.createTransaction(request(100L));
+        Long id = created.getId();
+        Transaction stale = new Transaction(jpaRepository.findById(id).orElseThrow());
+        assertEquals(1L, transactionService.updateTransaction(id, request(200L)).getVersion());
+
+        // 模拟未加锁的读取在写入提交前读到旧行、在失效之后才写回实体缓存
+        Cache entities = cacheManager.getCache(CacheConfig.TRANSACTION_ENTITIES);
+        entities.put(id, Optional.of(stale));
+        assertEquals(2L, transactionService.updateTransaction(id, request(300L)).getVersion());
+
+        // 缓存中的账户已过时：按锁内读到的账户重新加锁后完成更新
+        Transaction moved = new Transaction(stale);
+        moved.setAccountNumber("L2CACHE000000002");
+        entities.put(id, Optional.of(moved));
+        assertEquals(3L, transactionService.updateTransaction(id, request(400L)).getVersion());
+        assertEquals(400L, jpaRepository.findById(id).orElseThrow().getUnit());
+
+        transactionService.deleteTransaction(id);
+    }
+
+    private long regionHits() {
+        return statistics.getDomainDataRegionStatistics(Transaction.CACHE_REGION).getHitCount();
+    }
+
+    private static TransactionRequest request(long unit) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(ACCOUNT);
+        request.setTransType(TransactionType.BUY);
+        request.setUnit(unit);
+        request.setPrice(new BigDecimal("10.00"));
+        request.setAmount(new BigDecimal("10.00").multiply(BigDecimal.valueOf(unit)));
+        request.setSecurityCode("000001");
+        return request;
+    }
+}
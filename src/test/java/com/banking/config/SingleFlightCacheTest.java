@@ -0,0 +1,156 @@
+package com.banking.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SingleFlightCache单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class SingleFlightCacheTest {
+
+    private static final String CACHE_NAME = "test";
+
+    private final AtomicLong ticker = new AtomicLong();
+    private MeterRegistry meterRegistry;
+    private SingleFlightCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .ticker(ticker::get)
+                .recordStats()
+                .build();
+        // 同步执行提前刷新，便于断言
+        cache = new SingleFlightCache(new CaffeineCache(CACHE_NAME, nativeCache), 0.8, Runnable::run, meterRegistry);
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() throws Exception {
+        int callers = 8;
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("key", () -> {
+                loaderCalls.incrementAndGet();
+                loaderEntered.countDown();
+                releaseLoader.await();
+                return "value";
+            })));
+            assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("key", () -> {
+                    loaderCalls.incrementAndGet();
+                    return "other";
+                })));
+            }
+            // 等待其余调用方都挂到同一个加载结果上
+            while (counter("cache.coalesced") < callers - 1) {
+                Thread.sleep(5);
+            }
+            releaseLoader.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, counter("cache.loads"));
+        assertEquals(callers - 1, counter("cache.coalesced"));
+        assertEquals("value", cache.get("key").get());
+    }
+
+    @Test
+    void testLoaderExceptionIsPropagatedAsCause() {
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        Cache.ValueRetrievalException ex = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("key", () -> {
+                    throw failure;
+                }));
+
+        assertSame(failure, ex.getCause());
+        assertNull(cache.get("key"));
+        // 失败的加载不会残留，下一次调用重新加载
+        assertEquals("value", cache.get("key", () -> "value"));
+    }
+
+    @Test
+    void testRefreshAheadWhenEntryIsAging() {
+        cache.get("key", () -> "v1");
+
+        ticker.addAndGet(Duration.ofMinutes(5).toNanos());
+        assertEquals("v1", cache.get("key", () -> "v2"));
+        assertEquals(0, counter("cache.refresh.ahead"));
+
+        ticker.addAndGet(Duration.ofMinutes(4).toNanos());
+        // 仍返回旧值，同时在后台刷新
+        assertEquals("v1", cache.get("key", () -> "v2"));
+        assertEquals(1, counter("cache.refresh.ahead"));
+        assertEquals("v2", cache.get("key").get());
+    }
+
+    @Test
+    void testEvictDuringLoadDiscardsStaleResult() {
+        String value = cache.get("key", () -> {
+            cache.evict("key");
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void testClearsAndLoadLatencyAreRecorded() {
+        cache.get("key", () -> "value");
+        cache.clear();
+        cache.invalidate();
+
+        assertEquals(2, counter("cache.clears"));
+        assertEquals(1, meterRegistry.get("cache.load.latency").tag("cache", CACHE_NAME).timer().count());
+    }
+
+    @Test
+    void testOneMissIsRecordedPerRealMiss() {
+        cache.get("key", () -> "value");
+        cache.get("key", () -> "other");
+
+        // 抢到加载权后的复查不应再记一次未命中，否则命中率指标会被低估
+        assertEquals(1, cache.getNativeCache().stats().missCount());
+        assertEquals(1, cache.getNativeCache().stats().hitCount());
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("cache", CACHE_NAME).counter().count();
+    }
+}
@@ -0,0 +1,88 @@
+package com.banking.controller;
+
+import com.banking.dto.PnlResponse;
+import com.banking.index.LotBook;
+import com.banking.model.CostMethod;
+import com.banking.model.Money;
+import com.banking.service.PnlService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PnlController集成测试
+ *
+ * @author Kongloih Zhang F
+ */
+@WebMvcTest(PnlController.class)
+class PnlControllerTest {
+
+    private static final String ACCOUNT = "1234567890123456";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PnlService pnlService;
+
+    @Test
+    void testGetPnl() throws Exception {
+        // Arrange
+        LotBook.LotPosition position = new LotBook.LotPosition("000001", CostMethod.AVERAGE, 50L,
+                Money.of(new BigDecimal("550.00")), Money.of(new BigDecimal("300.00")), 1, 0L, 3L,
+                LocalDateTime.of(2024, 3, 4, 9, 32));
+        when(pnlService.getPnl(ACCOUNT, CostMethod.AVERAGE))
+                .thenReturn(List.of(new PnlResponse(ACCOUNT, position, Money.of(new BigDecimal("12.00")))));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/pnl/" + ACCOUNT).param("method", "average"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("获取盈亏成功"))
+                .andExpect(jsonPath("$.method").value("AVERAGE"))
+                .andExpect(jsonPath("$.data[0].securityCode").value("000001"))
+                .andExpect(jsonPath("$.data[0].averageCost").value(11.00))
+                .andExpect(jsonPath("$.data[0].realizedPnl").value(300.00))
+                .andExpect(jsonPath("$.data[0].marketValue").value(600.00))
+                .andExpect(jsonPath("$.data[0].unrealizedPnl").value(50.00))
+                .andExpect(jsonPath("$.data[0].lastTradeTime").value("2024-03-04 09:32:00"));
+    }
+
+    @Test
+    void testGetPnl_UnsupportedMethod() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/pnl/" + ACCOUNT).param("method", "lifo"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+        verify(pnlService, never()).getPnl(any(), any());
+    }
+
+    @Test
+    void testUpdatePrices() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/pnl/prices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"000001\": 12.00, \"600036\": 35.50}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("价格快照已更新"));
+        verify(pnlService).updatePrices(Map.of("000001", new BigDecimal("12.00"), "600036", new BigDecimal("35.50")));
+    }
+}
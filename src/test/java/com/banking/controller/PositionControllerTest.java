@@ -0,0 +1,82 @@
+package com.banking.controller;
+
+import com.banking.dto.PositionResponse;
+import com.banking.index.LotBook;
+import com.banking.index.PositionBook;
+import com.banking.model.CostMethod;
+import com.banking.model.Money;
+import com.banking.service.PositionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PositionController集成测试
+ *
+ * @author Kongloih Zhang F
+ */
+@WebMvcTest(PositionController.class)
+class PositionControllerTest {
+
+    private static final String ACCOUNT = "1234567890123456";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PositionService positionService;
+
+    @Test
+    void testGetPositions() throws Exception {
+        // Arrange
+        PositionBook.Position position = new PositionBook.Position("000001", 200L,
+                400L, Money.of(new BigDecimal("4600.00")), 200L, Money.of(new BigDecimal("2600.00")),
+                3L, LocalDateTime.of(2024, 3, 4, 9, 32));
+        LotBook.LotPosition averageLots = new LotBook.LotPosition("000001", CostMethod.AVERAGE, 200L,
+                Money.of(new BigDecimal("2300.00")), Money.of(new BigDecimal("300.00")), 1, 0L, 3L,
+                LocalDateTime.of(2024, 3, 4, 9, 32));
+        when(positionService.getPositions(ACCOUNT))
+                .thenReturn(List.of(new PositionResponse(ACCOUNT, position, averageLots)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/positions/" + ACCOUNT))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("获取持仓成功"))
+                .andExpect(jsonPath("$.data[0].accountNumber").value(ACCOUNT))
+                .andExpect(jsonPath("$.data[0].securityCode").value("000001"))
+                .andExpect(jsonPath("$.data[0].netUnits").value(200))
+                .andExpect(jsonPath("$.data[0].averageCost").value(11.50))
+                .andExpect(jsonPath("$.data[0].costBasis").value(2300.00))
+                .andExpect(jsonPath("$.data[0].lastTradeTime").value("2024-03-04 09:32:00"))
+                .andExpect(jsonPath("$.snapshotTime").doesNotExist());
+        verify(positionService, never()).getSnapshotPositions(ACCOUNT);
+    }
+
+    @Test
+    void testGetSnapshotPositions() throws Exception {
+        // Arrange
+        when(positionService.getSnapshotPositions(ACCOUNT)).thenReturn(List.of());
+        when(positionService.getSnapshotTime()).thenReturn(LocalDateTime.of(2024, 3, 4, 15, 0));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/positions/" + ACCOUNT).param("snapshot", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").isEmpty())
+                .andExpect(jsonPath("$.snapshotTime").exists());
+        verify(positionService, never()).getPositions(ACCOUNT);
+    }
+}
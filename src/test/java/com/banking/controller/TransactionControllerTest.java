@@ -1,8 +1,18 @@
 package com.banking.controller;
 
+import com.banking.dto.AttributeFilter;
+import com.banking.dto.BatchItemResult;
+import com.banking.dto.CursorPage;
+import com.banking.dto.ExportFormat;
 import com.banking.dto.TransactionRequest;
 import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransactionSearchRequest;
+import com.banking.dto.TransactionSortField;
+import com.banking.exception.IngestionQueueFullException;
+import com.banking.exception.TransactionVersionConflictException;
 import com.banking.model.TransactionType;
+import com.banking.service.TransactionExportService;
+import com.banking.service.TransactionIngestionService;
 import com.banking.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,15 +22,27 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,6 +61,12 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
     
+    @MockBean
+    private TransactionExportService transactionExportService;
+    
+    @MockBean
+    private TransactionIngestionService transactionIngestionService;
+    
     @Autowired
     private ObjectMapper objectMapper;
     
@@ -110,6 +138,27 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.fieldErrors").exists());
     }
     
+    @Test
+    void testCreateTransactions_Batch() throws Exception {
+        // Arrange
+        List<BatchItemResult> results = Arrays.asList(
+                BatchItemResult.succeeded(0, sampleResponse),
+                BatchItemResult.failed(1, "交易金额必须等于股数 * 价格"));
+        when(transactionService.createTransactions(anyList())).thenReturn(results);
+        
+        // Act & Assert
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(validRequest, validRequest))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].success").value(true))
+                .andExpect(jsonPath("$.data[0].data.id").value(1))
+                .andExpect(jsonPath("$.data[1].success").value(false))
+                .andExpect(jsonPath("$.summary.succeeded").value(1))
+                .andExpect(jsonPath("$.summary.failed").value(1));
+    }
+    
     @Test
     void testGetTransaction_Success() throws Exception {
         // Arrange
@@ -121,7 +170,8 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("获取交易详情成功"))
                 .andExpect(jsonPath("$.data.id").value(1))
-                .andExpect(jsonPath("$.data.accountNumber").value("1234567890123456"));
+                .andExpect(jsonPath("$.data.accountNumber").value("1234567890123456"))
+                .andExpect(header().string("ETag", "\"0\""));
     }
     
     @Test
@@ -137,6 +187,51 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("交易更新成功"))
                 .andExpect(jsonPath("$.data.id").value(1));
+        verify(transactionService, never()).updateTransaction(anyLong(), any(TransactionRequest.class), anyLong());
+    }
+    
+    @Test
+    void testUpdateTransaction_IfMatchUsesConditionalUpdate() throws Exception {
+        // Arrange
+        sampleResponse.setVersion(3L);
+        when(transactionService.updateTransaction(eq(1L), any(TransactionRequest.class), eq(2L))).thenReturn(sampleResponse);
+        
+        // Act & Assert
+        mockMvc.perform(put("/api/transactions/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.version").value(3))
+                .andExpect(header().string("ETag", "\"3\""));
+        verify(transactionService, never()).updateTransaction(anyLong(), any(TransactionRequest.class));
+    }
+    
+    @Test
+    void testUpdateTransaction_VersionConflict() throws Exception {
+        // Arrange
+        when(transactionService.updateTransaction(eq(1L), any(TransactionRequest.class), eq(2L)))
+                .thenThrow(new TransactionVersionConflictException("交易ID 1 已被修改：当前版本 3，请求版本 2"));
+        
+        // Act & Assert
+        mockMvc.perform(put("/api/transactions/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.errorCode").value("VERSION_CONFLICT"));
+    }
+    
+    @Test
+    void testUpdateTransaction_InvalidIfMatch() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/transactions/1")
+                        .header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_ARGUMENT"));
     }
     
     @Test
@@ -169,6 +264,229 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.pagination.total").value(1));
     }
     
+    @Test
+    void testGetTransactions_CursorMode() throws Exception {
+        // Arrange
+        CursorPage<TransactionResponse> cursorPage = new CursorPage<>(Arrays.asList(sampleResponse), "next-cursor");
+        when(transactionService.getTransactionsAfter("", 10)).thenReturn(cursorPage);
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/transactions")
+                        .param("cursor", "")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.pagination.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.pagination.hasMore").value(true))
+                .andExpect(jsonPath("$.pagination.total").doesNotExist());
+        
+        verify(transactionService, never()).getTransactionCount();
+    }
+    
+    @Test
+    void testSearchTransactions() throws Exception {
+        // Arrange
+        CursorPage<TransactionResponse> cursorPage = new CursorPage<>(Arrays.asList(sampleResponse), "next-cursor");
+        when(transactionService.searchByDescription("平安", true, null, 20)).thenReturn(cursorPage);
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/transactions/search")
+                        .param("q", "平安")
+                        .param("prefix", "true")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.pagination.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.pagination.hasMore").value(true));
+    }
+    
+    @Test
+    void testSearchTransactions_BlankQuery() throws Exception {
+        // Arrange
+        when(transactionService.searchByDescription(null, false, null, 10))
+                .thenThrow(new IllegalArgumentException("检索内容不能为空"));
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/transactions/search"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+    
+    @Test
+    void testGetTransactionsByAmountRange() throws Exception {
+        // Arrange
+        when(transactionService.getTransactionsByAmountRange(new BigDecimal("1000"), new BigDecimal("20000"), 100))
+                .thenReturn(Arrays.asList(sampleResponse));
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/transactions/amount-range")
+                        .param("minAmount", "1000")
+                        .param("maxAmount", "20000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].id").value(1));
+    }
+    
+    @Test
+    void testGetLargestTransactions() throws Exception {
+        // Arrange
+        when(transactionService.getLargestTransactions(new BigDecimal("5000"), 10))
+                .thenReturn(Arrays.asList(sampleResponse));
+        when(transactionService.getLargestTransactions(new BigDecimal("5000"), 0))
+                .thenThrow(new IllegalArgumentException("返回条数必须在1到1000之间"));
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/transactions/large")
+                        .param("threshold", "5000")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value(1));
+        
+        mockMvc.perform(get("/api/transactions/large")
+                        .param("threshold", "5000")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+    
+    @Test
+    void testGetRangeStatistics() throws Exception {
+        // Arrange
+        LocalDateTime start = LocalDateTime.of(2024, 3, 4, 9, 30);
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalTransactions", 3L);
+        when(transactionService.getRangeStatistics("000001", start, start.plusHours(2))).thenReturn(statistics);
+        
+        // Act & Assert
+        mockMvc.perform(get("/api/transactions/statistics/range")
+                        .param("securityCode", "000001")
+                        .param("start", "2024-03-04T09:30")
+                        .param("end", "2024-03-04T11:30:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.totalTransactions").value(3));
+    }
+    
+    @Test
+    void testFilterTransactions() throws Exception {
+        // Arrange
+        CursorPage<TransactionResponse> cursorPage = new CursorPage<>(Arrays.asList(sampleResponse), "1", 7L);
+        when(transactionService.filterTransactions(any(AttributeFilter.class), isNull(), eq(1))).thenAnswer(invocation -> {
+            AttributeFilter filter = invocation.getArgument(0);
+            return filter.getAnd().size() == 2 && "SELL".equals(filter.getAnd().get(1).getNot().getValues().get(0))
+                    ? cursorPage : null;
+        });
+        
+        // Act & Assert
+        mockMvc.perform(post("/api/transactions/filter")
+                        .param("size", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"and\":[{\"field\":\"securityCode\",\"values\":[\"000001\"]},"
+                                + "{\"not\":{\"field\":\"transType\",\"values\":[\"SELL\"]}}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.pagination.total").value(7))
+                .andExpect(jsonPath("$.pagination.nextCursor").value("1"));
+    }
+    
+    @Test
+    void testQueryTransactions() throws Exception {
+        // Arrange
+        CursorPage<TransactionResponse> cursorPage = new CursorPage<>(Arrays.asList(sampleResponse), "next");
+        when(transactionService.searchTransactions(any(TransactionSearchRequest.class))).thenAnswer(invocation -> {
+            TransactionSearchRequest request = invocation.getArgument(0);
+            return request.getTransType() == TransactionType.BUY
+                    && LocalDate.of(2024, 1, 1).equals(request.getTransDateFrom())
+                    && request.getSortBy() == TransactionSortField.AMOUNT && !request.isDescending()
+                    && request.getProjection() == TransactionSearchRequest.Projection.FULL
+                    ? cursorPage : null;
+        });
+        
+        // Act & Assert
+        mockMvc.perform(post("/api/transactions/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"transType\":\"BUY\",\"transDateFrom\":\"2024-01-01\","
+                                + "\"sortBy\":\"AMOUNT\",\"descending\":false,\"size\":1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.pagination.size").value(1))
+                .andExpect(jsonPath("$.pagination.nextCursor").value("next"))
+                .andExpect(jsonPath("$.pagination.hasMore").value(true));
+    }
+    
+    @Test
+    void testCreateTransactionAsync_WaitForCommit() throws Exception {
+        // Arrange
+        when(transactionIngestionService.submit(any(TransactionRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(sampleResponse));
+        
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/api/transactions/async")
+                        .param("wait", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        // Assert
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.id").value(1));
+    }
+    
+    @Test
+    void testCreateTransactionAsync_QueueFull() throws Exception {
+        // Arrange
+        when(transactionIngestionService.submit(any(TransactionRequest.class)))
+                .thenThrow(new IngestionQueueFullException("交易写入队列已满，请稍后重试"));
+        
+        // Act & Assert
+        mockMvc.perform(post("/api/transactions/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.errorCode").value("TOO_MANY_REQUESTS"));
+    }
+    
+    @Test
+    void testExportTransactions_Csv() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(5);
+            out.write("id,accountNumber\n1,1234567890123456\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(transactionExportService).exportTransactions(eq(ExportFormat.CSV), eq("1234567890123456"),
+                isNull(), eq(LocalDate.of(2024, 1, 1)), isNull(), any(OutputStream.class));
+        
+        // Act
+        MvcResult mvcResult = mockMvc.perform(get("/api/transactions/export")
+                        .param("format", "csv")
+                        .param("accountNumber", "1234567890123456")
+                        .param("startDate", "2024-01-01"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        // Assert
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,accountNumber\n1,1234567890123456\n"));
+    }
+    
+    @Test
+    void testExportTransactions_UnsupportedFormat() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/transactions/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_ARGUMENT"));
+    }
+    
     @Test
     void testGetTransactionsByAccount_Success() throws Exception {
         // Arrange
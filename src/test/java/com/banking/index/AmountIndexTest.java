@@ -0,0 +1,86 @@
+package com.banking.index;
+
+import com.banking.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 金额索引单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class AmountIndexTest {
+
+    private AmountIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AmountIndex();
+        index.add(transaction(1L, "1000.00"));
+        index.add(transaction(2L, "25000.50"));
+        index.add(transaction(3L, "1000.00"));
+        index.add(transaction(4L, "999.9999"));
+        index.add(transaction(5L, "880000.00"));
+    }
+
+    @Test
+    void testFindBetween_InclusiveAndOrderedByAmountThenId() {
+        assertEquals(List.of(1L, 3L, 2L), index.findBetween(new BigDecimal("1000"), new BigDecimal("25000.50"), 10));
+        assertEquals(List.of(4L, 1L), index.findBetween(BigDecimal.ZERO, new BigDecimal("1000.00"), 2));
+        assertEquals(List.of(), index.findBetween(new BigDecimal("1000.01"), new BigDecimal("25000.49"), 10));
+    }
+
+    @Test
+    void testFindBetween_BoundsBeyondFourDecimals() {
+        // 最小值向上取整、最大值向下取整
+        assertEquals(List.of(1L, 3L), index.findBetween(new BigDecimal("999.99991"), new BigDecimal("1000.00009"), 10));
+        assertEquals(List.of(), index.findBetween(new BigDecimal("999.99991"), new BigDecimal("999.99999"), 10));
+        assertEquals(List.of(4L, 1L, 3L, 2L, 5L), index.findBetween(new BigDecimal("-1e30"), new BigDecimal("1e30"), 10));
+    }
+
+    @Test
+    void testFindLargest_StrictlyAboveThresholdDescending() {
+        assertEquals(List.of(5L, 2L, 3L, 1L), index.findLargest(new BigDecimal("999.9999"), 10));
+        assertEquals(List.of(5L, 2L), index.findLargest(new BigDecimal("1000.00"), 10));
+        assertEquals(List.of(5L), index.findLargest(new BigDecimal("1000.00"), 1));
+        assertEquals(List.of(5L, 2L, 3L, 1L), index.findLargest(new BigDecimal("999.99995"), 10));
+        assertEquals(List.of(), index.findLargest(new BigDecimal("880000.00"), 10));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        index.add(transaction(5L, "10.00"));
+        assertEquals(List.of(2L), index.findLargest(new BigDecimal("1000.00"), 10));
+        assertEquals(List.of(5L), index.findBetween(BigDecimal.ZERO, BigDecimal.TEN, 10));
+
+        index.remove(transaction(5L, "10.00"));
+        assertEquals(List.of(), index.findBetween(BigDecimal.ZERO, BigDecimal.TEN, 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void testRebuildInParallel() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            transactions.add(transaction(id, id + ".00"));
+        }
+        index.rebuild(transactions);
+
+        assertEquals(5000, index.size());
+        assertEquals(List.of(5000L, 4999L, 4998L), index.findLargest(new BigDecimal("100"), 3));
+        assertEquals(List.of(100L, 101L), index.findBetween(new BigDecimal("99.5"), new BigDecimal("101"), 10));
+    }
+
+    private static Transaction transaction(long id, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
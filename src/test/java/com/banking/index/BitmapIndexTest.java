@@ -0,0 +1,157 @@
+package com.banking.index;
+
+import com.banking.dto.AttributeFilter;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static com.banking.dto.AttributeFilter.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 属性位图索引单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class BitmapIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 4);
+
+    private BitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BitmapIndex();
+        index.add(transaction(1L, TransactionType.BUY, "CNY", "000001", DAY));
+        index.add(transaction(2L, TransactionType.SELL, "CNY", "000001", DAY));
+        index.add(transaction(3L, TransactionType.BUY, "USD", "600036", DAY.plusDays(1)));
+        index.add(transaction(4L, TransactionType.BUY, "CNY", "600519", DAY.plusDays(2)));
+        index.add(transaction(5L, TransactionType.SELL, "HKD", "600036", DAY.plusDays(3)));
+    }
+
+    @Test
+    void testFieldEqualsAnyValue() {
+        assertEquals(List.of(4L, 3L, 1L), ids(in("transType", "BUY")));
+        assertEquals(List.of(5L, 3L, 2L, 1L), ids(in("securityCode", "000001", "600036")));
+        assertEquals(List.of(4L), ids(in("transDate", "2024-03-06")));
+        assertEquals(List.of(), ids(in("currency", "EUR")));
+    }
+
+    @Test
+    void testAndOrNot() {
+        assertEquals(List.of(3L, 1L), ids(allOf(in("transType", "BUY"), not(in("securityCode", "600519")))));
+        assertEquals(List.of(5L, 4L, 3L), ids(anyOf(not(in("currency", "CNY")), in("securityCode", "600519"))));
+        assertEquals(List.of(2L), ids(allOf(in("securityCode", "000001"),
+                not(anyOf(in("transType", "BUY"), in("currency", "USD"))))));
+
+        // 求值在副本上进行，不修改索引中的位图
+        assertEquals(List.of(4L, 3L, 1L), ids(in("transType", "BUY")));
+        assertEquals(List.of(4L, 2L, 1L), ids(in("currency", "CNY")));
+        assertEquals(List.of(2L, 1L), ids(in("securityCode", "000001")));
+    }
+
+    @Test
+    void testTransDateRange() {
+        assertEquals(List.of(4L, 3L), ids(transDateBetween(DAY.plusDays(1), DAY.plusDays(2))));
+        assertEquals(List.of(5L, 4L), ids(transDateBetween(DAY.plusDays(2), null)));
+        assertEquals(List.of(2L, 1L), ids(transDateBetween(null, DAY)));
+    }
+
+    @Test
+    void testPaginationByDescendingId() {
+        BitmapIndex.Match firstPage = index.match(in("transType", "BUY"), null, 2);
+        assertEquals(3, firstPage.total());
+        assertEquals(List.of(4L, 3L), firstPage.ids());
+
+        BitmapIndex.Match secondPage = index.match(in("transType", "BUY"), 3L, 2);
+        assertEquals(3, secondPage.total());
+        assertEquals(List.of(1L), secondPage.ids());
+        assertEquals(List.of(), index.match(in("transType", "BUY"), 1L, 2).ids());
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        index.add(transaction(1L, TransactionType.SELL, "USD", "600036", DAY));
+        assertEquals(List.of(4L, 3L), ids(in("transType", "BUY")));
+        assertEquals(List.of(3L, 1L), ids(in("currency", "USD")));
+
+        index.remove(transaction(1L, TransactionType.SELL, "USD", "600036", DAY));
+        assertEquals(List.of(3L), ids(in("currency", "USD")));
+        assertEquals(List.of(5L, 4L, 3L, 2L), ids(not(in("currency", "EUR"))));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void testInvalidFilters() {
+        assertThrows(IllegalArgumentException.class, () -> ids(in("accountNumber", "1")));
+        assertThrows(IllegalArgumentException.class, () -> ids(in("transType", "HOLD")));
+        assertThrows(IllegalArgumentException.class, () -> ids(in("transDate", "04/03/2024")));
+        assertThrows(IllegalArgumentException.class, () -> ids(new AttributeFilter()));
+        assertThrows(IllegalArgumentException.class, () -> ids(allOf()));
+
+        AttributeFilter twoForms = in("transType", "BUY");
+        twoForms.setNot(in("currency", "CNY"));
+        assertThrows(IllegalArgumentException.class, () -> ids(twoForms));
+
+        AttributeFilter deep = in("transType", "BUY");
+        for (int i = 0; i <= BitmapIndex.MAX_DEPTH; i++) {
+            deep = not(deep);
+        }
+        AttributeFilter tooDeep = deep;
+        assertThrows(IllegalArgumentException.class, () -> ids(tooDeep));
+    }
+
+    @Test
+    void testMatchesBruteForceAfterRebuild() {
+        Random random = new Random(5);
+        String[] securities = {"000001", "000002", "600036", "600519", "300015"};
+        String[] currencies = {"CNY", "USD", "HKD"};
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            transactions.add(transaction(id, random.nextBoolean() ? TransactionType.BUY : TransactionType.SELL,
+                    currencies[random.nextInt(currencies.length)], securities[random.nextInt(securities.length)],
+                    DAY.plusDays(random.nextInt(30))));
+        }
+        index.rebuild(transactions);
+
+        AttributeFilter filter = allOf(
+                anyOf(in("securityCode", "600036", "600519"), in("currency", "HKD")),
+                not(in("transType", "SELL")),
+                transDateBetween(DAY.plusDays(5), DAY.plusDays(20)));
+        Predicate<Transaction> expected = t -> (t.getSecurityCode().startsWith("600") || "HKD".equals(t.getCurrency()))
+                && t.getTransType() == TransactionType.BUY
+                && !t.getTransDate().isBefore(DAY.plusDays(5)) && !t.getTransDate().isAfter(DAY.plusDays(20));
+
+        List<Long> expectedIds = transactions.stream().filter(expected).map(Transaction::getId)
+                .sorted((a, b) -> Long.compare(b, a)).toList();
+        for (int round = 0; round < 2; round++) {
+            BitmapIndex.Match match = index.match(filter, null, Integer.MAX_VALUE);
+            assertEquals(expectedIds.size(), match.total());
+            assertEquals(expectedIds, match.ids());
+        }
+        assertEquals(transactions.stream().filter(t -> t.getTransType() == TransactionType.BUY).count(),
+                index.match(in("transType", "BUY"), null, 1).total());
+    }
+
+    private List<Long> ids(AttributeFilter filter) {
+        return index.match(filter, null, 100).ids();
+    }
+
+    private static Transaction transaction(long id, TransactionType type, String currency, String securityCode,
+                                           LocalDate transDate) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransType(type);
+        transaction.setCurrency(currency);
+        transaction.setSecurityCode(securityCode);
+        transaction.setTransDate(transDate);
+        return transaction;
+    }
+}
@@ -0,0 +1,119 @@
+package com.banking.index;
+
+import com.banking.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 交易描述倒排索引单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class DescriptionIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 2, 9, 30);
+
+    private DescriptionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new DescriptionIndex();
+        index.add(transaction(1L, 0, "测试买入平安银行"));
+        index.add(transaction(2L, 1, "Rebalance PINGAN bank position"));
+        index.add(transaction(3L, 2, "卖出平安银行 partial"));
+        index.add(transaction(4L, 3, "买入贵州茅台"));
+        index.add(transaction(5L, 4, "Rebalancing after dividend"));
+    }
+
+    @Test
+    void testKeywordSearch_NewestFirst() {
+        assertEquals(List.of(3L, 1L), search("平安银行", false));
+        assertEquals(List.of(4L, 1L), search("买入", false));
+        assertEquals(List.of(2L), search("rebalance", false));
+        assertEquals(List.of(3L), search("平安 PARTIAL", false));
+    }
+
+    @Test
+    void testKeywordSearch_CjkBigramsMustBeContiguous() {
+        // “安银”“银行”等二字片段都出现在“平安银行”中，但“平银”不连续
+        assertEquals(List.of(), search("平银", false));
+        assertEquals(List.of(), search("银安", false));
+    }
+
+    @Test
+    void testPrefixSearch() {
+        assertEquals(List.of(5L, 2L), search("reb", true));
+        assertEquals(List.of(5L), search("rebalanci", true));
+        assertEquals(List.of(2L), search("pingan ba", true));
+        // 关键词模式下前缀不匹配
+        assertEquals(List.of(), search("reb", false));
+    }
+
+    @Test
+    void testPrefixSearch_LongerThanIndexedPrefix() {
+        index.add(transaction(6L, 5, "internationalization fund"));
+        index.add(transaction(7L, 6, "internationally listed"));
+        assertEquals(List.of(7L, 6L), search("internation", true));
+        assertEquals(List.of(6L), search("internationaliz", true));
+    }
+
+    @Test
+    void testKeysetPagination() {
+        List<Long> firstPage = index.search("入", false, null, null, 1);
+        assertEquals(List.of(4L), firstPage);
+        List<Long> secondPage = index.search("入", false, BASE.plusMinutes(3), 4L, 1);
+        assertEquals(List.of(1L), secondPage);
+        assertEquals(List.of(), index.search("入", false, BASE, 1L, 1));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        Transaction updated = transaction(1L, 0, "测试卖出招商银行");
+        index.add(updated);
+        assertEquals(List.of(3L), search("平安银行", false));
+        assertEquals(List.of(1L), search("招商", false));
+
+        index.remove(updated);
+        assertEquals(List.of(), search("招商", false));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void testRebuildInParallel() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            transactions.add(transaction(id, (int) id, id % 2 == 0 ? "even batch " + id : "奇数批次 " + id));
+        }
+        index.rebuild(transactions);
+
+        assertEquals(2000, index.size());
+        assertEquals(List.of(2000L, 1998L, 1996L), index.search("even", false, null, null, 3));
+        assertEquals(List.of(1999L), index.search("奇数 1999", false, null, null, 10));
+        assertEquals(List.of(), search("平安", false));
+    }
+
+    @Test
+    void testBlankOrUnknownQuery() {
+        assertEquals(List.of(), search("   ", false));
+        assertEquals(List.of(), search("!!!", true));
+        assertEquals(List.of(), search("unknown", true));
+    }
+
+    private List<Long> search(String query, boolean prefix) {
+        return index.search(query, prefix, null, null, 10);
+    }
+
+    private static Transaction transaction(long id, int minute, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTimestamp(BASE.plusMinutes(minute));
+        transaction.setDescription(description);
+        return transaction;
+    }
+}
@@ -0,0 +1,174 @@
+package com.banking.index;
+
+import com.banking.index.LotBook.LotPosition;
+import com.banking.model.CostMethod;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批次簿单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class LotBookTest {
+
+    private static final String ACCOUNT = "1234567890123456";
+    private static final LocalDateTime OPEN = LocalDateTime.of(2024, 3, 4, 9, 30);
+
+    private final LotBook book = new LotBook();
+
+    @Test
+    void testFifoAndAverageRealizedPnl() {
+        book.add(transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 100, "1000.00"));
+        book.add(transaction(2L, ACCOUNT, "000001", TransactionType.BUY, OPEN.plusMinutes(1), 100, "1200.00"));
+        book.add(transaction(3L, ACCOUNT, "000001", TransactionType.SELL, OPEN.plusMinutes(2), 150, "1950.00"));
+
+        // 先进先出：结转第一批 1000 和第二批一半 600
+        LotPosition fifo = book.get(ACCOUNT, "000001", CostMethod.FIFO);
+        assertEquals(50, fifo.openUnits());
+        assertEquals(new BigDecimal("600.0000"), fifo.costBasis().toBigDecimal());
+        assertEquals(new BigDecimal("350.0000"), fifo.realizedPnl().toBigDecimal());
+        assertEquals(1, fifo.openLots());
+        assertEquals(3, fifo.tradeCount());
+        assertEquals(OPEN.plusMinutes(2), fifo.lastTradeTime());
+
+        // 加权平均：均价 11，结转 1650
+        LotPosition average = book.get(ACCOUNT, "000001", CostMethod.AVERAGE);
+        assertEquals(50, average.openUnits());
+        assertEquals(new BigDecimal("550.0000"), average.costBasis().toBigDecimal());
+        assertEquals(new BigDecimal("300.0000"), average.realizedPnl().toBigDecimal());
+        assertEquals(1, book.size());
+    }
+
+    @Test
+    void testLateTradeReplaysLaterSells() {
+        book.add(transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 100, "1000.00"));
+        book.add(transaction(3L, ACCOUNT, "000001", TransactionType.SELL, OPEN.plusMinutes(2), 100, "1500.00"));
+        assertEquals(new BigDecimal("500.0000"), book.get(ACCOUNT, "000001", CostMethod.AVERAGE).realizedPnl().toBigDecimal());
+
+        // 晚到的买入早于已结转的卖出：加权平均的结转成本随之改变，先进先出仍消耗最早的批次
+        book.add(transaction(2L, ACCOUNT, "000001", TransactionType.BUY, OPEN.plusMinutes(1), 100, "2000.00"));
+
+        LotPosition average = book.get(ACCOUNT, "000001", CostMethod.AVERAGE);
+        assertEquals(0, average.realizedPnl().signum());
+        assertEquals(new BigDecimal("1500.0000"), average.costBasis().toBigDecimal());
+        LotPosition fifo = book.get(ACCOUNT, "000001", CostMethod.FIFO);
+        assertEquals(new BigDecimal("500.0000"), fifo.realizedPnl().toBigDecimal());
+        assertEquals(new BigDecimal("2000.0000"), fifo.costBasis().toBigDecimal());
+        assertEquals(OPEN.plusMinutes(2), fifo.lastTradeTime());
+    }
+
+    @Test
+    void testUnmatchedSellIsNotCosted() {
+        book.add(transaction(1L, ACCOUNT, "000001", TransactionType.SELL, OPEN, 100, "1000.00"));
+        book.add(transaction(2L, ACCOUNT, "000001", TransactionType.BUY, OPEN.plusMinutes(1), 50, "400.00"));
+
+        LotPosition position = book.get(ACCOUNT, "000001", CostMethod.FIFO);
+        assertEquals(50, position.openUnits());
+        assertEquals(100, position.unmatchedSellUnits());
+        assertEquals(0, position.realizedPnl().signum());
+
+        // 只有持仓内的50股结转：卖出金额按股数分摊 960 × 50 / 80 = 600
+        book.add(transaction(3L, ACCOUNT, "000001", TransactionType.SELL, OPEN.plusMinutes(2), 80, "960.00"));
+        position = book.get(ACCOUNT, "000001", CostMethod.FIFO);
+        assertEquals(0, position.openUnits());
+        assertEquals(130, position.unmatchedSellUnits());
+        assertEquals(new BigDecimal("200.0000"), position.realizedPnl().toBigDecimal());
+        assertEquals(0, position.openLots());
+    }
+
+    @Test
+    void testReplaceAndRemoveRecomputeAccounts() {
+        String other = "6543210987654321";
+        Transaction buy = transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 100, "1000.00");
+        Transaction sell = transaction(2L, ACCOUNT, "000001", TransactionType.SELL, OPEN.plusMinutes(1), 100, "1100.00");
+        book.add(buy);
+        book.add(sell);
+        assertEquals(new BigDecimal("100.0000"), book.get(ACCOUNT, "000001", CostMethod.FIFO).realizedPnl().toBigDecimal());
+
+        // 买入改到另一个账户：原账户的卖出不再有可结转的持仓
+        Transaction moved = transaction(1L, other, "000001", TransactionType.BUY, OPEN, 100, "1000.00");
+        book.replace(buy, moved);
+        LotPosition position = book.get(ACCOUNT, "000001", CostMethod.FIFO);
+        assertEquals(0, position.realizedPnl().signum());
+        assertEquals(100, position.unmatchedSellUnits());
+        assertEquals(100, book.get(other, "000001", CostMethod.FIFO).openUnits());
+
+        // 最后一笔成交删除后持仓和账户都不再保留
+        book.remove(sell);
+        assertNull(book.get(ACCOUNT, "000001", CostMethod.FIFO));
+        assertTrue(book.get(ACCOUNT, CostMethod.FIFO).isEmpty());
+        assertEquals(1, book.size());
+        book.remove(moved);
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void testIncrementalMatchesRebuild() {
+        Random random = new Random(42);
+        String[] accounts = {ACCOUNT, "6543210987654321", "1111222233334444"};
+        String[] codes = {"000001", "600036", "000858"};
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            TransactionType type = random.nextInt(3) == 0 ? TransactionType.SELL : TransactionType.BUY;
+            long unit = 100L * (1 + random.nextInt(10));
+            long price = 5 + random.nextInt(20);
+            transactions.add(transaction(id, accounts[random.nextInt(accounts.length)], codes[random.nextInt(codes.length)],
+                    type, OPEN.plusSeconds(random.nextInt(60 * 60 * 24)), unit, unit * price + ".00"));
+        }
+
+        // 乱序增量计入并删除一部分，与按剩余成交重建的结果一致
+        List<Transaction> shuffled = new ArrayList<>(transactions);
+        Collections.shuffle(shuffled, random);
+        shuffled.forEach(book::add);
+        List<Transaction> removed = shuffled.subList(0, 200);
+        removed.forEach(book::remove);
+        List<Transaction> remaining = new ArrayList<>(transactions);
+        remaining.removeAll(removed);
+
+        LotBook rebuilt = new LotBook();
+        rebuilt.rebuild(remaining);
+        for (String account : accounts) {
+            for (CostMethod method : CostMethod.values()) {
+                assertEquals(rebuilt.get(account, method), book.get(account, method));
+            }
+        }
+        assertEquals(rebuilt.size(), book.size());
+    }
+
+    @Test
+    void testProrateRoundsHalfUpAndFallsBackOnOverflow() {
+        assertEquals(3, LotBook.prorate(5, 1, 2));
+        assertEquals(-3, LotBook.prorate(-10, 1, 3));
+        assertEquals(7, LotBook.prorate(7, 4, 4));
+
+        long value = Long.MAX_VALUE / 2;
+        long expected = BigDecimal.valueOf(value).multiply(BigDecimal.valueOf(3))
+                .divide(BigDecimal.valueOf(4), 0, RoundingMode.HALF_UP).longValueExact();
+        assertEquals(expected, LotBook.prorate(value, 3, 4));
+    }
+
+    private static Transaction transaction(long id, String accountNumber, String securityCode, TransactionType type,
+                                           LocalDateTime timestamp, long unit, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAccountNumber(accountNumber);
+        transaction.setSecurityCode(securityCode);
+        transaction.setTransType(type);
+        transaction.setTimestamp(timestamp);
+        transaction.setUnit(unit);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
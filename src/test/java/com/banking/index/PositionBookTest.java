@@ -0,0 +1,213 @@
+package com.banking.index;
+
+import com.banking.index.PositionBook.Position;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 持仓簿单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class PositionBookTest {
+
+    private static final String ACCOUNT = "1234567890123456";
+    private static final LocalDateTime OPEN = LocalDateTime.of(2024, 3, 4, 9, 30);
+
+    private final PositionBook book = new PositionBook();
+
+    @Test
+    void testNetUnitsAndTotals() {
+        book.add(transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 100, "1000.00"));
+        book.add(transaction(2L, ACCOUNT, "000001", TransactionType.BUY, OPEN.plusMinutes(1), 300, "3600.00"));
+        book.add(transaction(3L, ACCOUNT, "000001", TransactionType.SELL, OPEN.plusMinutes(2), 200, "2600.00"));
+        book.add(transaction(4L, ACCOUNT, "600036", TransactionType.BUY, OPEN, 50, "1750.00"));
+        book.add(transaction(5L, "6543210987654321", "000001", TransactionType.BUY, OPEN, 10, "100.00"));
+
+        Position position = book.get(ACCOUNT, "000001");
+        assertEquals(200, position.netUnits());
+        assertEquals(400, position.boughtUnits());
+        assertEquals(new BigDecimal("4600.0000"), position.boughtAmount().toBigDecimal());
+        assertEquals(new BigDecimal("2600.0000"), position.soldAmount().toBigDecimal());
+        assertEquals(3, position.tradeCount());
+        assertEquals(OPEN.plusMinutes(2), position.lastTradeTime());
+
+        List<Position> positions = book.get(ACCOUNT);
+        assertEquals(List.of("000001", "600036"), positions.stream().map(Position::securityCode).toList());
+        assertEquals(3, book.size());
+        assertTrue(book.get("0000000000000000").isEmpty());
+        assertNull(book.get(ACCOUNT, "999999"));
+    }
+
+    @Test
+    void testRemoveRestoresPreviousLastTradeTime() {
+        Transaction first = transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 100, "1000.00");
+        Transaction latest = transaction(2L, ACCOUNT, "000001", TransactionType.BUY, OPEN.plusHours(1), 100, "1200.00");
+        book.add(first);
+        book.add(latest);
+
+        book.remove(latest);
+
+        Position position = book.get(ACCOUNT, "000001");
+        assertEquals(100, position.netUnits());
+        assertEquals(OPEN, position.lastTradeTime());
+
+        // 最后一笔交易删除后持仓和账户都不再保留
+        book.remove(first);
+        assertNull(book.get(ACCOUNT, "000001"));
+        assertTrue(book.get(ACCOUNT).isEmpty());
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void testReplaceMovesTradeBetweenPositions() {
+        Transaction before = transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 100, "1000.00");
+        book.add(before);
+
+        Transaction after = transaction(1L, ACCOUNT, "600036", TransactionType.BUY, OPEN, 200, "7000.00");
+        book.replace(before, after);
+
+        assertNull(book.get(ACCOUNT, "000001"));
+        assertEquals(200, book.get(ACCOUNT, "600036").netUnits());
+        assertEquals(Map.of(ACCOUNT, book.get(ACCOUNT)), book.snapshot());
+    }
+
+    @Test
+    void testReserveAgainstNetUnitsMinusReserved() {
+        book.add(transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 300, "3000.00"));
+        book.add(transaction(2L, ACCOUNT, "000001", TransactionType.SELL, OPEN, 100, "1100.00"));
+
+        assertTrue(book.reserve(ACCOUNT, "000001", 150));
+        assertEquals(50, book.available(ACCOUNT, "000001"));
+        assertFalse(book.reserve(ACCOUNT, "000001", 51));
+        assertFalse(book.reserve(ACCOUNT, "600036", 1));
+        assertFalse(book.reserve("0000000000000000", "000001", 1));
+
+        // 卖出入账时预占同时转为已卖出，可卖股数只扣减一次
+        book.add(transaction(3L, ACCOUNT, "000001", TransactionType.SELL, OPEN, 150, "1650.00"), 150);
+        assertEquals(50, book.available(ACCOUNT, "000001"));
+        assertTrue(book.reserve(ACCOUNT, "000001", 50));
+        book.release(ACCOUNT, "000001", 50);
+        assertEquals(50, book.get(ACCOUNT, "000001").netUnits());
+    }
+
+    @Test
+    void testReservationKeepsHoldingAfterItsTradesAreDeleted() {
+        Transaction buy = transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 100, "1000.00");
+        book.add(buy);
+        assertTrue(book.reserve(ACCOUNT, "000001", 100));
+
+        book.remove(buy);
+        assertNull(book.get(ACCOUNT, "000001"));
+        assertTrue(book.snapshot().isEmpty());
+        assertEquals(0, book.available(ACCOUNT, "000001"));
+
+        book.release(ACCOUNT, "000001", 100);
+        assertEquals(0, book.size());
+        assertFalse(book.reserve(ACCOUNT, "000001", 1));
+    }
+
+    @Test
+    void testConcurrentSellsNeverOversell() throws Exception {
+        book.add(transaction(1L, ACCOUNT, "000001", TransactionType.BUY, OPEN, 1000, "10000.00"));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicLong nextId = new AtomicLong(2);
+        AtomicLong sold = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    // 每轮买入10股、尝试卖出20股：可卖股数会在并发卖出之间被耗尽
+                    book.add(transaction(nextId.getAndIncrement(), ACCOUNT, "000001", TransactionType.BUY, OPEN,
+                            10, "100.00"));
+                    if (book.reserve(ACCOUNT, "000001", 20)) {
+                        book.add(transaction(nextId.getAndIncrement(), ACCOUNT, "000001", TransactionType.SELL, OPEN,
+                                20, "200.00"), 20);
+                        sold.addAndGet(20);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Position position = book.get(ACCOUNT, "000001");
+        assertEquals(1000 + threads * 200 * 10, position.boughtUnits());
+        assertEquals(sold.get(), position.soldUnits());
+        assertTrue(position.netUnits() >= 0);
+        assertEquals(position.netUnits(), book.available(ACCOUNT, "000001"));
+    }
+
+    @Test
+    void testMatchesBruteForceAfterParallelRebuild() {
+        Random random = new Random(17);
+        String[] accounts = {ACCOUNT, "6543210987654321", "1111222233334444"};
+        String[] codes = {"000001", "600036", "600519"};
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            TransactionType type = random.nextInt(3) == 0 ? TransactionType.SELL : TransactionType.BUY;
+            long unit = 100L * (1 + random.nextInt(10));
+            transactions.add(transaction(id, accounts[random.nextInt(accounts.length)], codes[random.nextInt(codes.length)],
+                    type, OPEN.plusSeconds(random.nextInt(60 * 60 * 24)), unit, unit * 10 + ".00"));
+        }
+        book.rebuild(transactions);
+
+        for (String account : accounts) {
+            for (String code : codes) {
+                long netUnits = 0;
+                long tradeCount = 0;
+                LocalDateTime lastTradeTime = null;
+                for (Transaction transaction : transactions) {
+                    if (account.equals(transaction.getAccountNumber()) && code.equals(transaction.getSecurityCode())) {
+                        netUnits += transaction.getTransType() == TransactionType.BUY
+                                ? transaction.getUnit() : -transaction.getUnit();
+                        tradeCount++;
+                        if (lastTradeTime == null || transaction.getTimestamp().isAfter(lastTradeTime)) {
+                            lastTradeTime = transaction.getTimestamp();
+                        }
+                    }
+                }
+                Position position = book.get(account, code);
+                assertEquals(netUnits, position.netUnits());
+                assertEquals(tradeCount, position.tradeCount());
+                assertEquals(lastTradeTime, position.lastTradeTime());
+            }
+        }
+    }
+
+    private static Transaction transaction(long id, String accountNumber, String securityCode, TransactionType type,
+                                           LocalDateTime timestamp, long unit, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAccountNumber(accountNumber);
+        transaction.setSecurityCode(securityCode);
+        transaction.setTransType(type);
+        transaction.setTimestamp(timestamp);
+        transaction.setUnit(unit);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
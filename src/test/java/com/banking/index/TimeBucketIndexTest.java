@@ -0,0 +1,145 @@
+package com.banking.index;
+
+import com.banking.index.DailyStatisticsIndex.Aggregate;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分钟级前缀和索引单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class TimeBucketIndexTest {
+
+    private static final LocalDateTime OPEN = LocalDateTime.of(2024, 3, 4, 9, 30);
+
+    private final TimeBucketIndex index = new TimeBucketIndex();
+
+    @Test
+    void testHalfOpenRangeAtMinuteGranularity() {
+        index.add(transaction(1L, "000001", TransactionType.BUY, OPEN, 100, "1000.00"));
+        index.add(transaction(2L, "000001", TransactionType.BUY, OPEN.plusSeconds(59), 200, "2000.50"));
+        index.add(transaction(3L, "000001", TransactionType.BUY, OPEN.plusMinutes(1), 300, "3000.00"));
+        index.add(transaction(4L, "000001", TransactionType.SELL, OPEN, 50, "500.00"));
+        index.add(transaction(5L, "600036", TransactionType.BUY, OPEN, 10, "100.00"));
+
+        Aggregate firstMinute = index.get("000001", TransactionType.BUY, OPEN, OPEN.plusMinutes(1));
+        assertEquals(2, firstMinute.transactionCount());
+        assertEquals(300, firstMinute.totalUnits());
+        assertEquals(new BigDecimal("3000.5000"), firstMinute.totalAmount().toBigDecimal());
+
+        assertEquals(3, index.get("000001", TransactionType.BUY, OPEN, OPEN.plusMinutes(2)).transactionCount());
+        assertEquals(1, index.get("000001", TransactionType.BUY, OPEN.plusMinutes(1), OPEN.plusHours(1)).transactionCount());
+        assertEquals(1, index.get("000001", TransactionType.SELL, OPEN, OPEN.plusMinutes(1)).transactionCount());
+        assertEquals(0, index.get("000001", TransactionType.BUY, OPEN.minusMinutes(1), OPEN).transactionCount());
+
+        // 不指定股票代码时汇总全部股票
+        Aggregate allBuys = index.get(null, TransactionType.BUY, OPEN, OPEN.plusMinutes(1));
+        assertEquals(3, allBuys.transactionCount());
+        assertEquals(310, allBuys.totalUnits());
+    }
+
+    @Test
+    void testLateArrivalsAndRangesAcrossDays() {
+        index.add(transaction(1L, "000001", TransactionType.BUY, OPEN, 100, "1000.00"));
+        // 补录更早的交易，外层需要向前扩展
+        index.add(transaction(2L, "000001", TransactionType.BUY, OPEN.minusDays(40), 200, "2000.00"));
+        index.add(transaction(3L, "000001", TransactionType.BUY, OPEN.plusDays(100), 300, "3000.00"));
+
+        assertEquals(600, index.get("000001", TransactionType.BUY, OPEN.minusYears(1), OPEN.plusYears(1)).totalUnits());
+        assertEquals(300, index.get("000001", TransactionType.BUY, OPEN.minusDays(40), OPEN.plusMinutes(1)).totalUnits());
+        assertEquals(400, index.get("000001", TransactionType.BUY, OPEN, OPEN.plusYears(1)).totalUnits());
+        assertEquals(0, index.get("000001", TransactionType.BUY, OPEN.plusMinutes(1), OPEN.plusDays(100)).totalUnits());
+    }
+
+    @Test
+    void testRemove() {
+        Transaction buy = transaction(1L, "000001", TransactionType.BUY, OPEN, 100, "1000.00");
+        index.add(buy);
+        index.add(transaction(2L, "000001", TransactionType.BUY, OPEN, 200, "2000.00"));
+
+        index.remove(buy);
+
+        Aggregate aggregate = index.get("000001", TransactionType.BUY, OPEN, OPEN.plusMinutes(1));
+        assertEquals(1, aggregate.transactionCount());
+        assertEquals(200, aggregate.totalUnits());
+        assertEquals(new BigDecimal("2000.0000"), aggregate.totalAmount().toBigDecimal());
+    }
+
+    @Test
+    void testEmptiedDaysAndSeriesAreReleased() {
+        Transaction first = transaction(1L, "000001", TransactionType.BUY, OPEN, 100, "1000.00");
+        Transaction nextDay = transaction(2L, "000001", TransactionType.BUY, OPEN.plusDays(1), 200, "2000.00");
+        Transaction other = transaction(3L, "600036", TransactionType.SELL, OPEN, 10, "100.00");
+        index.add(first);
+        index.add(nextDay);
+        index.add(other);
+        assertEquals(2, index.seriesCount());
+        assertEquals(3, index.dayCount());
+
+        // 某天的交易全部删除后释放该天的分钟桶，其余天的区间统计不受影响
+        index.remove(first);
+        assertEquals(2, index.dayCount());
+        assertEquals(200, index.get("000001", TransactionType.BUY, OPEN.minusDays(1), OPEN.plusDays(2)).totalUnits());
+
+        // 维度的交易全部删除后整个维度被移除，之后仍可重新写入
+        index.remove(other);
+        index.remove(nextDay);
+        assertEquals(0, index.seriesCount());
+        assertEquals(0, index.get(null, TransactionType.BUY, OPEN.minusDays(1), OPEN.plusDays(2)).transactionCount());
+
+        index.add(first);
+        assertEquals(1, index.seriesCount());
+        assertEquals(100, index.get("000001", TransactionType.BUY, OPEN, OPEN.plusMinutes(1)).totalUnits());
+    }
+
+    @Test
+    void testMatchesBruteForceAfterParallelRebuild() {
+        Random random = new Random(11);
+        List<Transaction> transactions = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            LocalDateTime time = OPEN.plusSeconds(random.nextInt(60 * 60 * 24 * 30)).minusDays(15);
+            transactions.add(transaction(id, random.nextBoolean() ? "000001" : "600519", TransactionType.BUY,
+                    time, 100L * (1 + random.nextInt(10)), "10.00"));
+        }
+        index.rebuild(transactions);
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime start = OPEN.minusDays(20).plusMinutes(random.nextInt(60 * 24 * 40));
+            LocalDateTime end = start.plusMinutes(random.nextInt(60 * 24 * 10));
+            long expectedCount = 0;
+            long expectedUnits = 0;
+            for (Transaction transaction : transactions) {
+                if ("000001".equals(transaction.getSecurityCode()) && !transaction.getTimestamp().isBefore(start)
+                        && transaction.getTimestamp().isBefore(end)) {
+                    expectedCount++;
+                    expectedUnits += transaction.getUnit();
+                }
+            }
+            Aggregate aggregate = index.get("000001", TransactionType.BUY, start, end);
+            assertEquals(expectedCount, aggregate.transactionCount());
+            assertEquals(expectedUnits, aggregate.totalUnits());
+        }
+    }
+
+    private static Transaction transaction(long id, String securityCode, TransactionType type, LocalDateTime timestamp,
+                                           long unit, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setSecurityCode(securityCode);
+        transaction.setTransType(type);
+        transaction.setTimestamp(timestamp);
+        transaction.setUnit(unit);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
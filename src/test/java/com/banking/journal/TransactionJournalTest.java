@@ -0,0 +1,202 @@
+package com.banking.journal;
+
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 交易日志单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class TransactionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testCodecRoundTrip() {
+        Transaction transaction = sampleTransaction(42L);
+        transaction.setDescription("买入平安银行, \"测试\"");
+        transaction.setBalance(null);
+        transaction.setVersion(7L);
+
+        Transaction decoded = JournalCodec.decode(ByteBuffer.wrap(JournalCodec.encode(transaction)));
+
+        assertEquals(42L, decoded.getId());
+        assertEquals(transaction.getAccountNumber(), decoded.getAccountNumber());
+        assertEquals(TransactionType.SELL, decoded.getTransType());
+        assertEquals(transaction.getUnit(), decoded.getUnit());
+        assertEquals(new BigDecimal("12.3400"), decoded.getPrice());
+        assertEquals(new BigDecimal("1234.00"), decoded.getAmount());
+        assertNull(decoded.getBalance());
+        assertEquals(transaction.getTransDate(), decoded.getTransDate());
+        assertEquals(transaction.getTimestamp(), decoded.getTimestamp());
+        assertEquals(transaction.getSecurityCode(), decoded.getSecurityCode());
+        assertEquals(transaction.getCurrency(), decoded.getCurrency());
+        assertEquals(transaction.getDescription(), decoded.getDescription());
+        assertEquals(7L, decoded.getVersion());
+    }
+
+    @Test
+    void testStoreChecksVersionOnOverwrite() {
+        try (TransactionJournal journal = new TransactionJournal(directory, 4096, 64, 0)) {
+            JournaledTransactionStore store = new JournaledTransactionStore(journal, mock(JournalProjector.class));
+            store.recover();
+            Transaction saved = store.save(sampleTransaction(null));
+            assertEquals(0L, saved.getVersion());
+
+            // 基于当前版本覆盖成功，版本号加1；再用旧版本覆盖被拒绝
+            Transaction update = store.findById(saved.getId()).map(Transaction::new).orElseThrow();
+            update.setUnit(200L);
+            assertEquals(1L, store.save(update).getVersion());
+            Transaction stale = sampleTransaction(saved.getId());
+            assertThrows(ObjectOptimisticLockingFailureException.class, () -> store.save(stale));
+
+            // 条件替换：版本号或账户不符时不写入
+            Transaction replacement = sampleTransaction(saved.getId());
+            replacement.setUnit(300L);
+            assertTrue(store.replaceIfVersion(replacement, 0L).isEmpty());
+            replacement.setAccountNumber("6543210987654321");
+            assertTrue(store.replaceIfVersion(replacement, 1L).isEmpty());
+            replacement.setAccountNumber("1234567890123456");
+            replacement.setTimestamp(null);
+            assertEquals(200L, store.replaceIfVersion(replacement, 1L).orElseThrow().getUnit());
+            assertEquals(2L, replacement.getVersion());
+            assertEquals(saved.getTimestamp(), replacement.getTimestamp());
+            assertEquals(300L, store.findById(saved.getId()).orElseThrow().getUnit());
+        }
+
+        // 回放后版本号保留
+        try (TransactionJournal journal = new TransactionJournal(directory, 4096, 64, 0)) {
+            JournaledTransactionStore store = new JournaledTransactionStore(journal, mock(JournalProjector.class));
+            store.recover();
+            assertEquals(2L, store.findById(1L).orElseThrow().getVersion());
+        }
+    }
+
+    @Test
+    void testReplayAcrossSegments() {
+        // 段很小，迫使日志滚动到多个段文件
+        try (TransactionJournal journal = new TransactionJournal(directory, 512, 1, 0)) {
+            journal.replay((type, payload) -> fail("空日志不应有记录"));
+            for (long id = 1; id <= 20; id++) {
+                journal.append(JournaledTransactionStore.PUT, JournalCodec.encode(sampleTransaction(id)));
+            }
+            assertTrue(journal.getSegmentIndex() > 0);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        try (TransactionJournal journal = new TransactionJournal(directory, 512, 1, 0)) {
+            long records = journal.replay((type, payload) -> ids.add(JournalCodec.decode(payload).getId()));
+            assertEquals(20, records);
+            // 回放后继续追加
+            journal.append(JournaledTransactionStore.PUT, JournalCodec.encode(sampleTransaction(21L)));
+        }
+        assertEquals(20, ids.size());
+        assertEquals(1L, ids.get(0));
+        assertEquals(20L, ids.get(19));
+
+        try (TransactionJournal journal = new TransactionJournal(directory, 512, 1, 0)) {
+            assertEquals(21, journal.replay((type, payload) -> { }));
+        }
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        try (TransactionJournal journal = new TransactionJournal(directory, 4096, 1, 0)) {
+            journal.replay((type, payload) -> { });
+            journal.append(JournaledTransactionStore.PUT, JournalCodec.encode(sampleTransaction(1L)));
+            journal.append(JournaledTransactionStore.PUT, JournalCodec.encode(sampleTransaction(2L)));
+        }
+
+        // 模拟第二条记录写到一半时崩溃：破坏其内容
+        int firstRecordSize = TransactionJournal.HEADER_BYTES + JournalCodec.encode(sampleTransaction(1L)).length;
+        try (RandomAccessFile file = new RandomAccessFile(onlySegment().toFile(), "rw")) {
+            file.seek(firstRecordSize + TransactionJournal.HEADER_BYTES + 3);
+            file.write(0x7f);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        try (TransactionJournal journal = new TransactionJournal(directory, 4096, 1, 0)) {
+            assertEquals(1, journal.replay((type, payload) -> ids.add(JournalCodec.decode(payload).getId())));
+            journal.append(JournaledTransactionStore.PUT, JournalCodec.encode(sampleTransaction(3L)));
+        }
+        assertEquals(List.of(1L), ids);
+
+        ids.clear();
+        try (TransactionJournal journal = new TransactionJournal(directory, 4096, 1, 0)) {
+            journal.replay((type, payload) -> ids.add(JournalCodec.decode(payload).getId()));
+        }
+        assertEquals(List.of(1L, 3L), ids);
+    }
+
+    @Test
+    void testStoreRecoversStateAndIdSequence() {
+        try (TransactionJournal journal = new TransactionJournal(directory, 4096, 64, 0)) {
+            JournaledTransactionStore store = new JournaledTransactionStore(journal, mock(JournalProjector.class));
+            store.recover();
+            store.saveAll(List.of(sampleTransaction(null), sampleTransaction(null), sampleTransaction(null)));
+            assertTrue(store.delete(2L));
+        }
+
+        JournalProjector projector = mock(JournalProjector.class);
+        try (TransactionJournal journal = new TransactionJournal(directory, 4096, 64, 0)) {
+            JournaledTransactionStore store = new JournaledTransactionStore(journal, projector);
+            assertEquals(4, store.recover());
+
+            assertEquals(2, store.count());
+            assertTrue(store.exists(1L));
+            assertFalse(store.exists(2L));
+            // 回放后的ID序列从已用过的最大ID继续
+            assertEquals(4L, store.save(sampleTransaction(null)).getId());
+        }
+        verify(projector).clear();
+        verify(projector, times(2)).upsert(anyList());
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private static Transaction sampleTransaction(Long id) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAccountNumber("1234567890123456");
+        transaction.setTransType(TransactionType.SELL);
+        transaction.setUnit(100L);
+        transaction.setPrice(new BigDecimal("12.3400"));
+        transaction.setAmount(new BigDecimal("1234.00"));
+        transaction.setBalance(new BigDecimal("99.99"));
+        transaction.setTransDate(LocalDate.of(2024, 1, 2));
+        transaction.setTimestamp(LocalDateTime.of(2024, 1, 2, 9, 30, 15, 123_456_789));
+        transaction.setSecurityCode("000001");
+        transaction.setCurrency("CNY");
+        transaction.setDescription("测试交易");
+        return transaction;
+    }
+}
@@ -0,0 +1,393 @@
+package com.banking.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开放模型压测工具：按固定到达率向交易接口发请求，不因响应变慢而降低发送速率
+ *
+ * <p>第i个请求的计划发送时间为 start + i * (1s / rate)。延迟从计划发送时间算起（校正协调遗漏），
+ * 因此服务端排队或压测端发送落后都会体现在尾延迟里；同时记录从实际发送算起的未校正延迟作为对照。
+ * 各操作的延迟记录在HDR直方图中，报告（JSON + 直方图百分位分布）写入指定目录，便于不同构建之间对比。</p>
+ *
+ * <p>既可在测试中对随机端口的内嵌服务运行，也可通过 {@link #main(String[])} 对本地已启动的服务运行。</p>
+ *
+ * @author Kongloih Zhang F
+ */
+public class OpenModelLoadGenerator {
+
+    /**
+     * 压测操作
+     */
+    public enum Operation {
+        CREATE, READ, STATS, DELETE
+    }
+
+    /**
+     * 压测参数
+     *
+     * @param name 报告名称
+     * @param ratePerSecond 到达率（请求/秒）
+     * @param duration 持续时间
+     * @param mix 各操作的权重
+     * @param seedTransactions 开始前预置的交易数（供读取和删除使用）
+     * @param seed 随机种子
+     */
+    public record LoadProfile(String name, int ratePerSecond, Duration duration,
+                              Map<Operation, Integer> mix, int seedTransactions, long seed) {
+
+        public LoadProfile {
+            if (ratePerSecond <= 0) {
+                throw new IllegalArgumentException("到达率必须大于0");
+            }
+            if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+                throw new IllegalArgumentException("操作权重之和必须大于0");
+            }
+        }
+
+        public long totalRequests() {
+            return ratePerSecond * duration.toMillis() / 1000;
+        }
+    }
+
+    private static final String ACCOUNT_NUMBER = "1234567890123456";
+
+    private static final String SECURITY_CODE = "600036";
+
+    /**
+     * 建仓股数：压测开始前一次买入且不记录ID（不会被删除），随机卖出始终在可卖股数以内
+     */
+    private static final long OPENING_UNITS = 100_000_000L;
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final String baseUrl;
+
+    private final HttpClient httpClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * 已创建且未删除的交易ID：读取取最新的一端，删除取最旧的一端，两者不争用同一笔交易
+     */
+    private final ConcurrentLinkedDeque<Long> liveIds = new ConcurrentLinkedDeque<>();
+
+    public OpenModelLoadGenerator(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * 按压测参数运行，返回结果（不写文件）
+     *
+     * @param profile 压测参数
+     * @return 压测结果
+     */
+    public LoadResult run(LoadProfile profile) throws IOException, InterruptedException {
+        Random random = new Random(profile.seed());
+        HttpResponse<String> opening = httpClient.send(createRequest("BUY", OPENING_UNITS, new BigDecimal("10.00")),
+                HttpResponse.BodyHandlers.ofString());
+        if (opening.statusCode() >= 400) {
+            throw new IllegalStateException("建仓失败: " + opening.statusCode() + " " + opening.body());
+        }
+        for (int i = 0; i < profile.seedTransactions(); i++) {
+            HttpResponse<String> response = httpClient.send(createRequest(random), HttpResponse.BodyHandlers.ofString());
+            rememberCreatedId(response);
+        }
+
+        LoadResult result = new LoadResult(profile);
+        Operation[] schedule = buildSchedule(profile, random);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.ratePerSecond();
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>(schedule.length);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < schedule.length; i++) {
+            long intended = start + i * intervalNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.add(issue(schedule[i], intended, random, result));
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * 预先按权重抽样出每个请求的操作，使发送循环只做计时和发送
+     */
+    private static Operation[] buildSchedule(LoadProfile profile, Random random) {
+        int totalWeight = profile.mix().values().stream().mapToInt(Integer::intValue).sum();
+        Operation[] schedule = new Operation[(int) profile.totalRequests()];
+        for (int i = 0; i < schedule.length; i++) {
+            int pick = random.nextInt(totalWeight);
+            for (Map.Entry<Operation, Integer> entry : profile.mix().entrySet()) {
+                pick -= entry.getValue();
+                if (pick < 0) {
+                    schedule[i] = entry.getKey();
+                    break;
+                }
+            }
+        }
+        return schedule;
+    }
+
+    private CompletableFuture<Void> issue(Operation operation, long intendedNanos, Random random, LoadResult result) {
+        HttpRequest request;
+        switch (operation) {
+            case READ -> {
+                Long id = liveIds.peekLast();
+                request = id == null ? createRequest(random) : get("/api/transactions/" + id);
+            }
+            case STATS -> request = get("/api/transactions/security/" + SECURITY_CODE
+                    + "/account/" + ACCOUNT_NUMBER + "/statistics");
+            case DELETE -> {
+                Long id = liveIds.pollFirst();
+                request = id == null ? createRequest(random)
+                        : HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions/" + id)).DELETE().build();
+            }
+            default -> request = createRequest(random);
+        }
+
+        long sentNanos = System.nanoTime();
+        boolean creates = request.method().equals("POST");
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    long now = System.nanoTime();
+                    boolean ok = failure == null && response.statusCode() < 400;
+                    if (ok && creates) {
+                        rememberCreatedId(response);
+                    }
+                    result.record(operation, now - intendedNanos, now - sentNanos, ok);
+                    return null;
+                });
+    }
+
+    private void rememberCreatedId(HttpResponse<String> response) {
+        try {
+            JsonNode id = objectMapper.readTree(response.body()).path("data").path("id");
+            if (id.isNumber()) {
+                liveIds.addLast(id.asLong());
+            }
+        } catch (IOException ex) {
+            // 响应体不是JSON时不记录ID，请求本身按状态码计入结果
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest createRequest(Random random) {
+        long unit = 100L * (1 + random.nextInt(10));
+        BigDecimal price = BigDecimal.valueOf(500 + random.nextInt(5000), 2);
+        return createRequest(random.nextBoolean() ? "BUY" : "SELL", unit, price);
+    }
+
+    private HttpRequest createRequest(String transType, long unit, BigDecimal price) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("accountNumber", ACCOUNT_NUMBER);
+        body.put("transType", transType);
+        body.put("unit", unit);
+        body.put("price", price);
+        body.put("amount", price.multiply(BigDecimal.valueOf(unit)));
+        body.put("securityCode", SECURITY_CODE);
+        body.put("currency", "CNY");
+        body.put("description", "开放模型压测");
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * 压测结果：按操作分别记录校正后与未校正的延迟直方图（微秒）
+     */
+    public static class LoadResult {
+
+        private final LoadProfile profile;
+
+        private final Map<Operation, Histogram> corrected = new EnumMap<>(Operation.class);
+
+        private final Map<Operation, Histogram> uncorrected = new EnumMap<>(Operation.class);
+
+        private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+        private final Histogram total = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+        private volatile long elapsedNanos;
+
+        LoadResult(LoadProfile profile) {
+            this.profile = profile;
+            for (Operation operation : Operation.values()) {
+                corrected.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+                uncorrected.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+                errors.put(operation, new AtomicLong());
+            }
+        }
+
+        void record(Operation operation, long correctedNanos, long uncorrectedNanos, boolean ok) {
+            long correctedMicros = Math.min(TimeUnit.NANOSECONDS.toMicros(correctedNanos), HIGHEST_TRACKABLE_MICROS);
+            corrected.get(operation).recordValue(correctedMicros);
+            uncorrected.get(operation).recordValue(
+                    Math.min(TimeUnit.NANOSECONDS.toMicros(uncorrectedNanos), HIGHEST_TRACKABLE_MICROS));
+            total.recordValue(correctedMicros);
+            if (!ok) {
+                errors.get(operation).incrementAndGet();
+            }
+        }
+
+        public long getRequestCount() {
+            return total.getTotalCount();
+        }
+
+        public long getErrorCount() {
+            return errors.values().stream().mapToLong(AtomicLong::get).sum();
+        }
+
+        public Histogram getCorrectedHistogram(Operation operation) {
+            return corrected.get(operation);
+        }
+
+        public double getAchievedRate() {
+            return elapsedNanos == 0 ? 0 : getRequestCount() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * 汇总为可序列化的报告，延迟单位为毫秒
+         *
+         * @return 报告
+         */
+        public Map<String, Object> toReport() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("name", profile.name());
+            report.put("timestamp", LocalDateTime.now().toString());
+            report.put("targetRate", profile.ratePerSecond());
+            report.put("achievedRate", Math.round(getAchievedRate() * 10) / 10.0);
+            report.put("durationSeconds", profile.duration().toSeconds());
+            report.put("requests", getRequestCount());
+            report.put("errors", getErrorCount());
+            report.put("all", percentiles(total));
+
+            Map<String, Object> operations = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                Histogram histogram = corrected.get(operation);
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                Map<String, Object> entry = percentiles(histogram);
+                entry.put("errors", errors.get(operation).get());
+                entry.put("uncorrectedP99Ms", millis(uncorrected.get(operation).getValueAtPercentile(99)));
+                operations.put(operation.name().toLowerCase(), entry);
+            }
+            report.put("operations", operations);
+            return report;
+        }
+
+        /**
+         * 将报告（JSON）和总体直方图百分位分布（.hgrm）写入目录
+         *
+         * @param directory 报告目录
+         * @return JSON报告路径
+         */
+        public Path writeReport(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            String baseName = profile.name() + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            Path json = directory.resolve(baseName + ".json");
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), toReport());
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(baseName + ".hgrm")))) {
+                // 直方图以微秒记录，按1000缩放输出为毫秒
+                total.outputPercentileDistribution(out, 1000.0);
+            }
+            return json;
+        }
+
+        private static Map<String, Object> percentiles(Histogram histogram) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", histogram.getTotalCount());
+            values.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+            values.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+            values.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+            values.put("maxMs", millis(histogram.getMaxValue()));
+            return values;
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    /**
+     * 对本地已启动的服务运行压测
+     * 参数：baseUrl [rate=200] [durationSeconds=30] [mix=create:30,read:50,stats:15,delete:5] [reportDir=target/load-reports]
+     */
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        Map<Operation, Integer> mix = parseMix(args.length > 3 ? args[3] : "create:30,read:50,stats:15,delete:5");
+        Path reportDir = Path.of(args.length > 4 ? args[4] : "target/load-reports");
+
+        LoadProfile profile = new LoadProfile("local", rate, Duration.ofSeconds(seconds), mix, 100, 42L);
+        LoadResult result = new OpenModelLoadGenerator(baseUrl).run(profile);
+        Path report = result.writeReport(reportDir);
+        System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsString(result.toReport()));
+        System.out.println("报告已写入: " + report.toAbsolutePath());
+    }
+
+    /**
+     * 解析形如 create:30,read:50 的操作权重
+     *
+     * @param spec 权重描述
+     * @return 操作权重
+     */
+    public static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("操作权重格式应为 操作:权重，实际: " + part);
+            }
+            mix.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+}
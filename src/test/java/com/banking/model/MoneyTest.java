@@ -0,0 +1,62 @@
+package com.banking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Money定点金额单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class MoneyTest {
+
+    @Test
+    void testConversionIsExact() {
+        assertEquals(123_400L, Money.of(new BigDecimal("12.34")).scaledValue());
+        assertEquals(Money.of(new BigDecimal("12.34")), Money.of(new BigDecimal("12.340000")));
+        assertEquals(new BigDecimal("12.3400"), Money.of(new BigDecimal("12.34")).toBigDecimal());
+    }
+
+    @Test
+    void testConversionRejectsExcessPrecisionAndOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("0.00001")));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1e16")));
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> Money.of(new BigDecimal("10.00001"), "交易价格"));
+        assertEquals("交易价格最多保留4位小数且不能超出范围: 10.00001", ex.getMessage());
+    }
+
+    @Test
+    void testArithmetic() {
+        Money price = Money.of(new BigDecimal("12.3456"));
+
+        assertEquals(new BigDecimal("12345.6000"), price.times(1000).toBigDecimal());
+        assertEquals(new BigDecimal("24.6912"), price.plus(price).toBigDecimal());
+        assertEquals(Money.ZERO, price.minus(price));
+        assertEquals(-1, price.negate().signum());
+    }
+
+    @Test
+    void testOverflowIsDetected() {
+        Money large = Money.ofScaled(Long.MAX_VALUE / 2 + 1);
+
+        assertThrows(ArithmeticException.class, () -> large.times(2));
+        assertThrows(ArithmeticException.class, () -> large.plus(large));
+    }
+
+    @Test
+    void testDividedByRoundsHalfUp() {
+        // 10 / 3 = 3.33333... -> 3.3333
+        assertEquals(new BigDecimal("3.3333"), Money.of(BigDecimal.TEN).dividedBy(3).toBigDecimal());
+        // 0.0005 / 10 = 0.00005 -> 0.0001
+        assertEquals(new BigDecimal("0.0001"), Money.of(new BigDecimal("0.0005")).dividedBy(10).toBigDecimal());
+        assertEquals(new BigDecimal("-0.0001"), Money.of(new BigDecimal("-0.0005")).dividedBy(10).toBigDecimal());
+        // 与BigDecimal的HALF_UP一致
+        BigDecimal total = new BigDecimal("16042.0000");
+        assertEquals(total.divide(BigDecimal.valueOf(7), 4, java.math.RoundingMode.HALF_UP),
+                Money.of(total).dividedBy(7).toBigDecimal());
+    }
+}
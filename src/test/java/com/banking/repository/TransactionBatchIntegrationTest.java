@@ -0,0 +1,71 @@
+package com.banking.repository;
+
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量保存集成测试
+ * JDBC批大小设为2，100笔交易跨越多次刷新，验证整批提交或整批回滚
+ *
+ * @author Kongloih Zhang F
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionBatchIntegrationTest {
+
+    @DynamicPropertySource
+    static void batchProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:batchtest");
+        registry.add("spring.jpa.properties.hibernate.jdbc.batch_size", () -> "2");
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionJpaRepository jpaRepository;
+
+    @Test
+    void testBatchIsAllOrNothing() {
+        // 最后一笔缺少账户号码，在最后一次刷新时失败：之前已刷新的交易同样不能留在数据库中
+        List<Transaction> failing = transactions("BATCH00000000001", 100);
+        failing.get(99).setAccountNumber(null);
+        assertThrows(RuntimeException.class, () -> transactionRepository.saveAll(failing));
+        assertEquals(0L, jpaRepository.countByAccountNumber("BATCH00000000001"));
+
+        List<Transaction> saved = transactionRepository.saveAll(transactions("BATCH00000000002", 100));
+        assertEquals(100, saved.size());
+        assertTrue(saved.stream().allMatch(transaction -> transaction.getId() != null));
+        assertEquals(100L, jpaRepository.countByAccountNumber("BATCH00000000002"));
+    }
+
+    private static List<Transaction> transactions(String accountNumber, int count) {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAccountNumber(accountNumber);
+            transaction.setTransType(TransactionType.BUY);
+            transaction.setUnit(100L);
+            transaction.setPrice(new BigDecimal("10.00"));
+            transaction.setAmount(new BigDecimal("1000.00"));
+            transaction.setTransDate(LocalDate.now());
+            transaction.setSecurityCode("600036");
+            transaction.setCurrency("CNY");
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
@@ -1 +1,112 @@
- 
\ No newline at end of file
+package com.banking.repository;
+
+import com.banking.journal.JournalProjector;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TransactionRepository日志模式集成测试
+ * 交易日志为权威存储，transactions表由投影异步维护
+ *
+ * @author Kongloih Zhang F
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionRepositoryIntegrationTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("banking.repository.mode", () -> "journal");
+        registry.add("banking.journal.directory", () -> journalDirectory.toString());
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:journaltest");
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionJpaRepository jpaRepository;
+
+    @Autowired
+    private JournalProjector journalProjector;
+
+    @Test
+    void testJournalIsSystemOfRecordAndTableIsProjected() throws Exception {
+        List<Transaction> saved = transactionRepository.saveAll(List.of(
+                newTransaction("JRN0000000000001", TransactionType.BUY, 100L),
+                newTransaction("JRN0000000000001", TransactionType.BUY, 200L)));
+        Long firstId = saved.get(0).getId();
+        Long secondId = saved.get(1).getId();
+        assertNotNull(firstId);
+        assertEquals(firstId + 1, secondId);
+
+        // 按ID读取直接来自日志存储，不依赖投影进度
+        assertEquals(200L, transactionRepository.findById(secondId).orElseThrow().getUnit());
+
+        assertTrue(journalProjector.awaitCaughtUp(Duration.ofSeconds(10)));
+        assertEquals(2, jpaRepository.findByAccountNumberOrderByTimestampDesc("JRN0000000000001").size());
+        assertEquals(new BigDecimal("3000.00"),
+                jpaRepository.findById(secondId).orElseThrow().getAmount());
+
+        assertTrue(transactionRepository.deleteById(firstId));
+        assertFalse(transactionRepository.existsById(firstId));
+        assertTrue(journalProjector.awaitCaughtUp(Duration.ofSeconds(10)));
+        assertFalse(jpaRepository.existsById(firstId));
+
+        Object[] row = transactionRepository.aggregateDailyStatistics().stream()
+                .filter(r -> "JRN0000000000001".equals(r[1]))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1L, row[4]);
+        assertEquals(200L, row[5]);
+    }
+
+    @Test
+    void testConditionalUpdateIsJournaledAndProjectedWithVersion() throws Exception {
+        Transaction saved = transactionRepository.save(newTransaction("JRN0000000000002", TransactionType.BUY, 100L));
+        Transaction replacement = newTransaction("JRN0000000000002", TransactionType.BUY, 300L);
+        replacement.setId(saved.getId());
+
+        assertTrue(transactionRepository.updateIfVersion(replacement, 1L).isEmpty());
+        assertEquals(100L, transactionRepository.updateIfVersion(replacement, 0L).orElseThrow().getUnit());
+        assertEquals(1L, replacement.getVersion());
+        assertEquals(1L, transactionRepository.findById(saved.getId()).orElseThrow().getVersion());
+
+        assertTrue(journalProjector.awaitCaughtUp(Duration.ofSeconds(10)));
+        Transaction projected = jpaRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(300L, projected.getUnit());
+        assertEquals(1L, projected.getVersion());
+    }
+
+    private static Transaction newTransaction(String accountNumber, TransactionType type, long unit) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountNumber(accountNumber);
+        transaction.setTransType(type);
+        transaction.setUnit(unit);
+        transaction.setPrice(new BigDecimal("15.00"));
+        transaction.setAmount(new BigDecimal("15.00").multiply(BigDecimal.valueOf(unit)).setScale(2));
+        transaction.setTransDate(LocalDate.now());
+        transaction.setSecurityCode("600036");
+        transaction.setCurrency("CNY");
+        transaction.setDescription("日志模式测试");
+        return transaction;
+    }
+}
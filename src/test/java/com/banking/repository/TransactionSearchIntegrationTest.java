@@ -0,0 +1,118 @@
+package com.banking.repository;
+
+import com.banking.dto.CursorPage;
+import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransactionSearchRequest;
+import com.banking.dto.TransactionSortField;
+import com.banking.dto.TransactionSummary;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import com.banking.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多条件检索集成测试
+ * 过滤、排序和键集分页在H2上执行，与内存中的逐条过滤结果比对
+ *
+ * @author Kongloih Zhang F
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionSearchIntegrationTest {
+
+    private static final String ACCOUNT = "SRCH000000000001";
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 6);
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:searchtest");
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    void testPagesMatchInMemoryFilterForEverySort() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAccountNumber(i % 4 == 0 ? "SRCH000000000002" : ACCOUNT);
+            transaction.setTransType(i % 3 == 0 ? TransactionType.SELL : TransactionType.BUY);
+            transaction.setUnit(100L);
+            transaction.setPrice(new BigDecimal("10.00"));
+            // 金额、日期和时间戳都有重复值，翻页依赖ID作为第二排序键
+            transaction.setAmount(new BigDecimal(100 + (i % 7) * 50).setScale(2));
+            transaction.setTransDate(DAY.plusDays(i % 5));
+            transaction.setTimestamp(LocalDateTime.of(2024, 5, 6, 9, 30).plusMinutes(i % 9));
+            transaction.setSecurityCode(i % 2 == 0 ? "600036" : "000001");
+            transaction.setCurrency("CNY");
+            transactions.add(transaction);
+        }
+        transactionRepository.saveAll(transactions);
+
+        for (TransactionSortField sortBy : TransactionSortField.values()) {
+            for (boolean descending : new boolean[]{true, false}) {
+                TransactionSearchRequest request = new TransactionSearchRequest();
+                request.setAccountNumber(ACCOUNT);
+                request.setTransType(TransactionType.BUY);
+                request.setTransDateFrom(DAY.plusDays(1));
+                request.setMinAmount(new BigDecimal("150"));
+                request.setSortBy(sortBy);
+                request.setDescending(descending);
+                request.setSize(4);
+
+                Comparator<Transaction> bySortField = (a, b) -> compare(sortBy.valueOf(a), sortBy.valueOf(b));
+                Comparator<Transaction> order = bySortField.thenComparing(Transaction::getId);
+                List<Long> expected = transactions.stream()
+                        .filter(t -> ACCOUNT.equals(t.getAccountNumber()) && t.getTransType() == TransactionType.BUY
+                                && !t.getTransDate().isBefore(DAY.plusDays(1))
+                                && t.getAmount().compareTo(new BigDecimal("150")) >= 0)
+                        .sorted(descending ? order.reversed() : order)
+                        .map(Transaction::getId)
+                        .toList();
+                assertFalse(expected.isEmpty());
+
+                List<Long> actual = new ArrayList<>();
+                CursorPage<?> page;
+                do {
+                    page = transactionService.searchTransactions(request);
+                    page.getItems().forEach(item -> actual.add(((TransactionResponse) item).getId()));
+                    request.setCursor(page.getNextCursor());
+                } while (page.isHasMore());
+                assertEquals(expected, actual, sortBy + (descending ? " DESC" : " ASC"));
+
+                request.setCursor(null);
+                request.setProjection(TransactionSearchRequest.Projection.SUMMARY);
+                List<Long> summaries = new ArrayList<>();
+                do {
+                    page = transactionService.searchTransactions(request);
+                    page.getItems().forEach(item -> summaries.add(((TransactionSummary) item).getId()));
+                    request.setCursor(page.getNextCursor());
+                } while (page.isHasMore());
+                assertEquals(expected, summaries, sortBy + (descending ? " DESC" : " ASC") + " SUMMARY");
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Comparable a, Comparable b) {
+        return a.compareTo(b);
+    }
+}
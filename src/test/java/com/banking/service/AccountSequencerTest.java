@@ -0,0 +1,180 @@
+package com.banking.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 账户分段锁单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class AccountSequencerTest {
+
+    private static final String ACCOUNT = "1234567890123456";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AccountSequencer sequencer = new AccountSequencer(meterRegistry, 16);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSameAccountWritesAreSerialized() throws Exception {
+        // 非原子的读-改-写：不串行化时会丢失更新
+        long[] counter = {0};
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    sequencer.execute(ACCOUNT, () -> {
+                        long value = counter[0];
+                        Thread.yield();
+                        counter[0] = value + 1;
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(8000, counter[0]);
+        assertEquals(8000, meterRegistry.get("sequencer.acquisitions").counter().count());
+        assertEquals(0, sequencer.getQueueDepth());
+    }
+
+    @Test
+    void testDifferentStripesRunInParallel() throws Exception {
+        String other = otherStripeAccount(ACCOUNT);
+        CountDownLatch bothInside = new CountDownLatch(2);
+
+        // 两个写操作都要等对方进入临界区才能结束，串行执行时会超时
+        Future<Boolean> first = executor.submit(() -> sequencer.execute(ACCOUNT, () -> awaitBoth(bothInside)));
+        Future<Boolean> second = executor.submit(() -> sequencer.execute(other, () -> awaitBoth(bothInside)));
+
+        assertTrue(first.get(10, TimeUnit.SECONDS));
+        assertTrue(second.get(10, TimeUnit.SECONDS));
+        assertEquals(0, meterRegistry.get("sequencer.contended").counter().count());
+    }
+
+    @Test
+    void testContentionIsCountedAndQueueDepthReported() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch holding = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> sequencer.execute(ACCOUNT, () -> {
+            holding.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        holding.await(10, TimeUnit.SECONDS);
+
+        // 同一账户和跨账户（含同一分段）的写操作都在该分段上排队
+        Future<?> waiter = executor.submit(() -> sequencer.execute(ACCOUNT, () -> null));
+        Future<?> multi = executor.submit(() -> sequencer.execute(List.of(otherStripeAccount(ACCOUNT), ACCOUNT), () -> null));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (sequencer.getQueueDepth() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, sequencer.getQueueDepth());
+        assertEquals(2, sequencer.getMaxQueueDepth());
+        assertEquals(2.0, meterRegistry.get("sequencer.queue.depth").gauge().value());
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        waiter.get(10, TimeUnit.SECONDS);
+        multi.get(10, TimeUnit.SECONDS);
+        assertEquals(2, meterRegistry.get("sequencer.contended").counter().count());
+        assertEquals(2, meterRegistry.get("sequencer.wait").timer().count());
+        assertEquals(0, sequencer.getQueueDepth());
+    }
+
+    @Test
+    void testLockIsReleasedWhenActionThrows() {
+        assertThrows(IllegalStateException.class, () -> sequencer.execute(ACCOUNT, () -> {
+            throw new IllegalStateException("失败");
+        }));
+
+        assertEquals("ok", sequencer.execute(ACCOUNT, () -> "ok"));
+        assertEquals(0, meterRegistry.get("sequencer.contended").counter().count());
+    }
+
+    @Test
+    void testExecuteAllBlocksEveryStripe() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch holding = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> sequencer.executeAll(() -> {
+            holding.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        holding.await(10, TimeUnit.SECONDS);
+
+        // 任意分段上的写操作都要等全部分段的锁释放
+        Future<?> first = executor.submit(() -> sequencer.execute(ACCOUNT, () -> null));
+        Future<?> second = executor.submit(() -> sequencer.execute(otherStripeAccount(ACCOUNT), () -> null));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (sequencer.getQueueDepth() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, sequencer.getQueueDepth());
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        assertEquals(0, sequencer.getQueueDepth());
+    }
+
+    @Test
+    void testStripeCountMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new AccountSequencer(new SimpleMeterRegistry(), 100));
+        assertThrows(IllegalArgumentException.class, () -> new AccountSequencer(new SimpleMeterRegistry(), 0));
+    }
+
+    private String otherStripeAccount(String account) {
+        for (long i = 0; ; i++) {
+            String candidate = String.format("%016d", i);
+            if (sequencer.stripeOf(candidate) != sequencer.stripeOf(account)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static boolean awaitBoth(CountDownLatch bothInside) {
+        bothInside.countDown();
+        try {
+            return bothInside.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
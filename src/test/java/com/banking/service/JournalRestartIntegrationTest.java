@@ -0,0 +1,146 @@
+package com.banking.service;
+
+import com.banking.dto.TransactionRequest;
+import com.banking.dto.TransactionResponse;
+import com.banking.index.PositionBook;
+import com.banking.journal.JournalProjector;
+import com.banking.journal.JournaledTransactionStore;
+import com.banking.journal.TransactionJournal;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 日志模式重启集成测试
+ * 应用启动前日志中已有交易（相当于上次运行写入的数据），启动后内存索引应由日志回放得到，而不是读取尚未追上的投影。
+ * 投影器替换为不做任何写入的mock，模拟启动时投影还没有追上日志
+ *
+ * @author Kongloih Zhang F
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class JournalRestartIntegrationTest {
+
+    private static final String ACCOUNT = "RST0000000000001";
+
+    private static final Path JOURNAL_DIRECTORY = writePreviousRun(Path.of("target", "journal-restart-test"));
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("banking.repository.mode", () -> "journal");
+        registry.add("banking.journal.directory", JOURNAL_DIRECTORY::toString);
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:journalrestart");
+    }
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PositionBook positionBook;
+
+    @MockBean
+    private JournalProjector journalProjector;
+
+    @Test
+    void testIndexesAreRebuiltFromJournal() {
+        List<TransactionResponse> found = transactionService.searchByDescription("重启回放", false, null, 10).getItems();
+        assertEquals(2, found.size());
+        assertEquals(2, transactionService.getTransactionsByAmountRange(
+                new BigDecimal("1500.00"), new BigDecimal("3000.00"), 10).size());
+    }
+
+    @Test
+    void testExistingHoldingsCanBeSoldAfterRestart() {
+        // 重启前买入的300股全部可卖，超出部分仍被拒绝
+        assertThrows(IllegalArgumentException.class, () -> transactionService.createTransaction(sellRequest(301L)));
+        TransactionResponse sold = transactionService.createTransaction(sellRequest(250L));
+        assertNotNull(sold.getId());
+
+        PositionBook.Position position = positionBook.get(ACCOUNT, "600036");
+        assertEquals(50L, position.netUnits());
+        assertEquals(3, position.tradeCount());
+        assertEquals(50L, positionBook.available(ACCOUNT, "600036"));
+    }
+
+    @Test
+    void testAccountListIncludesWriteNotYetProjected() {
+        // 投影器不写数据库：写入前缓存的空列表被驱逐后，重新加载仍应包含新写入
+        String account = "RST0000000000002";
+        assertTrue(transactionService.getTransactionsByAccount(account).isEmpty());
+
+        TransactionRequest request = sellRequest(100L);
+        request.setAccountNumber(account);
+        request.setTransType(TransactionType.BUY);
+        TransactionResponse bought = transactionService.createTransaction(request);
+
+        List<TransactionResponse> transactions = transactionService.getTransactionsByAccount(account);
+        assertEquals(1, transactions.size());
+        assertEquals(bought.getId(), transactions.get(0).getId());
+    }
+
+    private static TransactionRequest sellRequest(long unit) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAccountNumber(ACCOUNT);
+        request.setTransType(TransactionType.SELL);
+        request.setUnit(unit);
+        request.setPrice(new BigDecimal("16.00"));
+        request.setAmount(new BigDecimal("16.00").multiply(BigDecimal.valueOf(unit)));
+        request.setTransDate(LocalDate.now());
+        request.setSecurityCode("600036");
+        request.setCurrency("CNY");
+        request.setDescription("重启后卖出");
+        return request;
+    }
+
+    /**
+     * 用一个独立的日志存储写入上次运行的交易后关闭，应用上下文启动时回放该目录
+     */
+    private static Path writePreviousRun(Path directory) {
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        try (TransactionJournal journal = new TransactionJournal(directory, 1 << 20, 1, 0)) {
+            JournaledTransactionStore store = new JournaledTransactionStore(journal, mock(JournalProjector.class));
+            store.recover();
+            store.saveAll(List.of(
+                    transaction(TransactionType.BUY, 100L, LocalDateTime.of(2024, 3, 4, 9, 30)),
+                    transaction(TransactionType.BUY, 200L, LocalDateTime.of(2024, 3, 4, 9, 31))));
+        }
+        return directory;
+    }
+
+    private static Transaction transaction(TransactionType type, long unit, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountNumber(ACCOUNT);
+        transaction.setTransType(type);
+        transaction.setUnit(unit);
+        transaction.setPrice(new BigDecimal("15.00"));
+        transaction.setAmount(new BigDecimal("15.00").multiply(BigDecimal.valueOf(unit)));
+        transaction.setTransDate(timestamp.toLocalDate());
+        transaction.setTimestamp(timestamp);
+        transaction.setSecurityCode("600036");
+        transaction.setCurrency("CNY");
+        transaction.setDescription("重启回放测试");
+        return transaction;
+    }
+}
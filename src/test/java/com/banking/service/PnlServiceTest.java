@@ -0,0 +1,126 @@
+package com.banking.service;
+
+import com.banking.dto.PnlResponse;
+import com.banking.index.LotBook;
+import com.banking.model.CostMethod;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 盈亏查询服务单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class PnlServiceTest {
+
+    private static final String ACCOUNT = "1234567890123456";
+
+    private static final int THREADS = 8;
+
+    private static final int CODES_PER_THREAD = 50;
+
+    private final LotBook lotBook = new LotBook();
+
+    private final PnlService pnlService = new PnlService(lotBook, new SimpleMeterRegistry());
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentUploadsOfDifferentCodesAreAllKept() throws Exception {
+        // 每个线程逐只上传各自的股票价格：合并不是原子操作时后提交的快照会覆盖其他线程的价格
+        long id = 1;
+        for (int t = 0; t < THREADS; t++) {
+            for (int c = 0; c < CODES_PER_THREAD; c++) {
+                lotBook.add(buy(id++, code(t, c)));
+            }
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int c = 0; c < CODES_PER_THREAD; c++) {
+                    pnlService.updatePrices(Map.of(code(thread, c), new BigDecimal("12.00")));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        List<PnlResponse> pnl = pnlService.getPnl(ACCOUNT, CostMethod.FIFO);
+        assertEquals(THREADS * CODES_PER_THREAD, pnl.size());
+        assertTrue(pnl.stream().allMatch(response -> response.getMarketPrice() != null));
+        assertNotNull(pnlService.getPriceTime());
+    }
+
+    @Test
+    void testRejectedUploadLeavesSnapshotUnchanged() {
+        lotBook.add(buy(1L, "000001"));
+        pnlService.updatePrices(Map.of("000001", new BigDecimal("12.00")));
+        LocalDateTime priceTime = pnlService.getPriceTime();
+
+        assertThrows(IllegalArgumentException.class, () -> pnlService.updatePrices(
+                Map.of("000001", new BigDecimal("13.00"), "600036", BigDecimal.ZERO)));
+
+        assertEquals(priceTime, pnlService.getPriceTime());
+        assertEquals(0, new BigDecimal("12.00").compareTo(
+                pnlService.getPnl(ACCOUNT, CostMethod.FIFO).get(0).getMarketPrice()));
+    }
+
+    @Test
+    void testMarketValueBeyondLongRangeDoesNotOverflow() {
+        Transaction large = buy(1L, "000001");
+        large.setUnit(1_000_000_000_000L);
+        large.setAmount(new BigDecimal("1000000000000.00"));
+        lotBook.add(large);
+        // 定点价格 * 股数超出long范围，按Money精确乘法会抛ArithmeticException
+        pnlService.updatePrices(Map.of("000001", new BigDecimal("1000000.00")));
+
+        PnlResponse response = pnlService.getPnl(ACCOUNT, CostMethod.FIFO).get(0);
+
+        assertEquals(0, new BigDecimal("1000000000000000000").compareTo(response.getMarketValue()));
+        assertEquals(0, new BigDecimal("999999000000000000").compareTo(response.getUnrealizedPnl()));
+    }
+
+    private static String code(int thread, int index) {
+        return String.format("%03d%03d", thread, index);
+    }
+
+    private static Transaction buy(long id, String securityCode) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAccountNumber(ACCOUNT);
+        transaction.setSecurityCode(securityCode);
+        transaction.setTransType(TransactionType.BUY);
+        transaction.setTimestamp(LocalDateTime.of(2024, 3, 4, 9, 30));
+        transaction.setUnit(100L);
+        transaction.setAmount(new BigDecimal("1000.00"));
+        return transaction;
+    }
+}
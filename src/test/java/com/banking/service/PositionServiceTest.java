@@ -0,0 +1,98 @@
+package com.banking.service;
+
+import com.banking.dto.PositionResponse;
+import com.banking.index.LotBook;
+import com.banking.index.PositionBook;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 持仓查询服务单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+class PositionServiceTest {
+
+    private static final String ACCOUNT = "1234567890123456";
+    private static final LocalDateTime OPEN = LocalDateTime.of(2024, 3, 4, 9, 30);
+
+    private final PositionBook positionBook = new PositionBook();
+
+    private final LotBook lotBook = new LotBook();
+
+    private final PositionService positionService = new PositionService(positionBook, lotBook, new SimpleMeterRegistry());
+
+    @Test
+    void testCostBasisAfterPositionIsClosedAndReopened() {
+        add(transaction(1L, TransactionType.BUY, OPEN, 100, "1000.00"));
+        add(transaction(2L, TransactionType.SELL, OPEN.plusMinutes(1), 100, "1200.00"));
+        add(transaction(3L, TransactionType.BUY, OPEN.plusMinutes(2), 100, "2000.00"));
+
+        // 清仓时成本全部转出，重新买入后成本只来自新批次
+        PositionResponse position = positionService.getPositions(ACCOUNT).get(0);
+        assertEquals(100, position.getNetUnits());
+        assertEquals(new BigDecimal("20.0000"), position.getAverageCost());
+        assertEquals(new BigDecimal("2000.0000"), position.getCostBasis());
+
+        // 删除清仓卖出后按时间顺序重放：两批买入合并均价 15
+        Transaction sell = transaction(2L, TransactionType.SELL, OPEN.plusMinutes(1), 100, "1200.00");
+        positionBook.remove(sell);
+        lotBook.remove(sell);
+        position = positionService.getPositions(ACCOUNT).get(0);
+        assertEquals(200, position.getNetUnits());
+        assertEquals(new BigDecimal("15.0000"), position.getAverageCost());
+        assertEquals(new BigDecimal("3000.0000"), position.getCostBasis());
+
+        // 晚到的卖出早于重新买入：只结转第一批
+        add(transaction(4L, TransactionType.SELL, OPEN.plusSeconds(30), 50, "600.00"));
+        position = positionService.getPositions(ACCOUNT).get(0);
+        assertEquals(150, position.getNetUnits());
+        assertEquals(new BigDecimal("2500.0000"), position.getCostBasis());
+    }
+
+    @Test
+    void testSnapshotCarriesCostBasis() {
+        add(transaction(1L, TransactionType.BUY, OPEN, 100, "1000.00"));
+        add(transaction(2L, TransactionType.BUY, OPEN.plusMinutes(1), 300, "3600.00"));
+        add(transaction(3L, TransactionType.SELL, OPEN.plusMinutes(2), 200, "2600.00"));
+        assertNull(positionService.getSnapshotTime());
+        assertTrue(positionService.getSnapshotPositions(ACCOUNT).isEmpty());
+
+        positionService.takeSnapshot();
+        add(transaction(4L, TransactionType.BUY, OPEN.plusMinutes(3), 100, "2000.00"));
+
+        // 快照之后的买入只反映在实时持仓中
+        List<PositionResponse> snapshot = positionService.getSnapshotPositions(ACCOUNT);
+        assertEquals(1, snapshot.size());
+        assertEquals(200, snapshot.get(0).getNetUnits());
+        assertEquals(new BigDecimal("2300.0000"), snapshot.get(0).getCostBasis());
+        assertEquals(300, positionService.getPositions(ACCOUNT).get(0).getNetUnits());
+        assertNotNull(positionService.getSnapshotTime());
+    }
+
+    private void add(Transaction transaction) {
+        positionBook.add(transaction);
+        lotBook.add(transaction);
+    }
+
+    private static Transaction transaction(long id, TransactionType type, LocalDateTime timestamp, long unit,
+                                           String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAccountNumber(ACCOUNT);
+        transaction.setSecurityCode("000001");
+        transaction.setTransType(type);
+        transaction.setTimestamp(timestamp);
+        transaction.setUnit(unit);
+        transaction.setAmount(new BigDecimal(amount));
+        return transaction;
+    }
+}
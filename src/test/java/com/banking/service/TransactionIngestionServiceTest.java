@@ -0,0 +1,121 @@
+package com.banking.service;
+
+import com.banking.dto.TransactionRequest;
+import com.banking.dto.TransactionResponse;
+import com.banking.exception.IngestionQueueFullException;
+import com.banking.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * TransactionIngestionService异步写入单元测试
+ *
+ * @author Kongloih Zhang F
+ */
+@ExtendWith(MockitoExtension.class)
+class TransactionIngestionServiceTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    private TransactionIngestionService ingestionService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (ingestionService != null) {
+            ingestionService.stop();
+        }
+    }
+
+    @Test
+    void testSubmittedTransactionsAreGroupCommitted() throws Exception {
+        ingestionService = new TransactionIngestionService(transactionService, new SimpleMeterRegistry(), 100, 10, 50);
+        when(transactionService.prepareTransaction(any(TransactionRequest.class))).thenAnswer(invocation -> new Transaction());
+        AtomicLong ids = new AtomicLong();
+        when(transactionService.persistTransactions(anyList())).thenAnswer(invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            transactions.forEach(transaction -> transaction.setId(ids.incrementAndGet()));
+            return transactions;
+        });
+
+        // 等待窗口内提交的交易合并成组写入
+        List<CompletableFuture<TransactionResponse>> futures = new ArrayList<>();
+        ingestionService.start();
+        for (int i = 0; i < 10; i++) {
+            futures.add(ingestionService.submit(new TransactionRequest()));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertNotNull(futures.get(i).get(5, TimeUnit.SECONDS).getId());
+        }
+        verify(transactionService, atMost(10)).persistTransactions(anyList());
+        assertEquals(10, ids.get());
+    }
+
+    @Test
+    void testSubmitRejectedWhenQueueIsFull() throws Exception {
+        ingestionService = new TransactionIngestionService(transactionService, new SimpleMeterRegistry(), 1, 1, 0);
+        when(transactionService.prepareTransaction(any(TransactionRequest.class))).thenAnswer(invocation -> new Transaction());
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionService.persistTransactions(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return invocation.getArgument(0);
+        });
+        ingestionService.start();
+
+        // 第一笔被写入线程取走并阻塞，第二笔占满队列，第三笔被拒绝
+        CompletableFuture<TransactionResponse> first = ingestionService.submit(new TransactionRequest());
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<TransactionResponse> second = ingestionService.submit(new TransactionRequest());
+        assertThrows(IngestionQueueFullException.class, () -> ingestionService.submit(new TransactionRequest()));
+        // 被拒绝的交易不会写入，释放其卖出预占
+        verify(transactionService, times(1)).cancelPrepared(anyList());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testCommitFailureCompletesFuturesExceptionally() {
+        ingestionService = new TransactionIngestionService(transactionService, new SimpleMeterRegistry(), 10, 10, 0);
+        when(transactionService.prepareTransaction(any(TransactionRequest.class))).thenAnswer(invocation -> new Transaction());
+        when(transactionService.persistTransactions(anyList())).thenThrow(new IllegalStateException("数据库不可用"));
+        ingestionService.start();
+
+        CompletableFuture<TransactionResponse> future = ingestionService.submit(new TransactionRequest());
+
+        Exception ex = assertThrows(Exception.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    @Test
+    void testValidationFailureIsThrownToCaller() {
+        ingestionService = new TransactionIngestionService(transactionService, new SimpleMeterRegistry(), 10, 10, 0);
+        when(transactionService.prepareTransaction(any(TransactionRequest.class)))
+                .thenThrow(new IllegalArgumentException("交易金额必须等于股数 * 价格"));
+        ingestionService.start();
+
+        assertThrows(IllegalArgumentException.class, () -> ingestionService.submit(new TransactionRequest()));
+        assertEquals(0, ingestionService.getQueueSize());
+        verify(transactionService, never()).persistTransactions(anyList());
+    }
+}
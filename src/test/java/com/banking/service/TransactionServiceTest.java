@@ -1,16 +1,38 @@
 package com.banking.service;
 
+import com.banking.config.TransactionCacheEvictor;
+import com.banking.dto.AttributeFilter;
+import com.banking.dto.BatchItemResult;
+import com.banking.dto.CursorPage;
+import com.banking.dto.KeysetCursor;
+import com.banking.dto.SearchCursor;
 import com.banking.dto.TransactionRequest;
 import com.banking.dto.TransactionResponse;
+import com.banking.dto.TransactionSearchRequest;
+import com.banking.dto.TransactionSortField;
+import com.banking.dto.TransactionSummary;
 import com.banking.exception.TransactionNotFoundException;
+import com.banking.exception.TransactionVersionConflictException;
+import com.banking.index.AmountIndex;
+import com.banking.index.BitmapIndex;
+import com.banking.index.DailyStatisticsIndex;
+import com.banking.index.DescriptionIndex;
+import com.banking.index.LotBook;
+import com.banking.index.PositionBook;
+import com.banking.index.TimeBucketIndex;
+import com.banking.model.CostMethod;
 import com.banking.model.Transaction;
 import com.banking.model.TransactionType;
 import com.banking.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -20,10 +42,23 @@ import java.util.*;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.*;
 
 /**
@@ -37,6 +72,36 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
     
+    @Spy
+    private DailyStatisticsIndex statisticsIndex = new DailyStatisticsIndex();
+    
+    @Spy
+    private DescriptionIndex descriptionIndex = new DescriptionIndex();
+    
+    @Spy
+    private AmountIndex amountIndex = new AmountIndex();
+    
+    @Spy
+    private TimeBucketIndex timeBucketIndex = new TimeBucketIndex();
+    
+    @Spy
+    private BitmapIndex bitmapIndex = new BitmapIndex();
+    
+    @Spy
+    private PositionBook positionBook = new PositionBook();
+    
+    @Spy
+    private LotBook lotBook = new LotBook();
+    
+    @Spy
+    private AccountSequencer accountSequencer = new AccountSequencer(new SimpleMeterRegistry(), 16);
+    
+    @Mock
+    private TransactionCacheEvictor cacheEvictor;
+    
+    @Mock
+    private Validator validator;
+    
     @InjectMocks
     private TransactionService transactionService;
     
@@ -120,6 +185,167 @@ class TransactionServiceTest {
         });
     }
     
+    @Test
+    void testCreateTransaction_AmountScaleMatchesColumn() {
+        // Arrange - 股数 * 价格与金额一致，但金额有4位小数，数据库会舍入为10.01
+        validRequest.setUnit(1L);
+        validRequest.setPrice(new BigDecimal("10.0051"));
+        validRequest.setAmount(new BigDecimal("10.0051"));
+        
+        // Act & Assert
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> transactionService.createTransaction(validRequest));
+        assertEquals("交易金额最多保留2位小数", ex.getMessage());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        
+        // Act & Assert - 末尾的0不算有效小数位
+        validRequest.setPrice(new BigDecimal("10.0100"));
+        validRequest.setAmount(new BigDecimal("10.0100"));
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(sampleTransaction);
+        assertNotNull(transactionService.createTransaction(validRequest));
+    }
+    
+    @Test
+    void testCreateTransactions_PartialSuccess() {
+        // Arrange
+        TransactionRequest mismatchedRequest = new TransactionRequest();
+        mismatchedRequest.setAccountNumber("1234567890123456");
+        mismatchedRequest.setAmount(new BigDecimal("999.00"));
+        mismatchedRequest.setTransType(TransactionType.BUY);
+        mismatchedRequest.setUnit(1000L);
+        mismatchedRequest.setPrice(new BigDecimal("10.00"));
+        mismatchedRequest.setSecurityCode("000001");
+        
+        when(transactionRepository.saveAll(anyList())).thenReturn(List.of(sampleTransaction));
+        
+        // Act
+        List<BatchItemResult> results = transactionService.createTransactions(List.of(mismatchedRequest, validRequest));
+        
+        // Assert
+        assertEquals(2, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("交易金额必须等于股数 * 价格", results.get(0).getErrorMessage());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals(1L, results.get(1).getData().getId());
+        
+        verify(transactionRepository, times(1)).saveAll(argThat(list -> list.size() == 1));
+    }
+    
+    @Test
+    void testCreateTransaction_RejectsOversell() {
+        // Arrange
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            saved.setId(2L);
+            return saved;
+        });
+        positionBook.add(sampleTransaction);
+        validRequest.setTransType(TransactionType.SELL);
+        validRequest.setUnit(600L);
+        validRequest.setAmount(new BigDecimal("6000.00"));
+        
+        // Act & Assert - 持有1000股，卖出600股后剩余400股，再卖600股被拒绝
+        transactionService.createTransaction(validRequest);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> transactionService.createTransaction(validRequest));
+        assertEquals("可卖股数不足：账户 1234567890123456 股票 000001 可卖 400 股，卖出 600 股", ex.getMessage());
+        validRequest.setSecurityCode("600036");
+        assertThrows(IllegalArgumentException.class, () -> transactionService.createTransaction(validRequest));
+        
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(transactionRepository, never()).findByAccountNumber(any());
+        assertEquals(400L, positionBook.available("1234567890123456", "000001"));
+    }
+    
+    @Test
+    void testCreateTransaction_ReleasesReservationWhenSaveFails() {
+        // Arrange
+        positionBook.add(sampleTransaction);
+        when(transactionRepository.save(any(Transaction.class))).thenThrow(new IllegalStateException("数据库不可用"));
+        validRequest.setTransType(TransactionType.SELL);
+        
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> transactionService.createTransaction(validRequest));
+        assertEquals(1000L, positionBook.available("1234567890123456", "000001"));
+    }
+    
+    @Test
+    void testCreateTransaction_ConcurrentHalvesSellFullHolding() throws Exception {
+        // Arrange：放慢入账之后的批次簿写入；预占若在入账之后才释放，另一半卖出会在这段时间内被误拒
+        AtomicLong ids = new AtomicLong(1);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            saved.setId(ids.incrementAndGet());
+            return saved;
+        });
+        doAnswer(invocation -> {
+            Thread.sleep(1);
+            return invocation.callRealMethod();
+        }).when(lotBook).add(any(Transaction.class));
+        validRequest.setTransType(TransactionType.SELL);
+        validRequest.setUnit(500L);
+        validRequest.setAmount(new BigDecimal("5000.00"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        
+        // Act & Assert：每轮买入1000股，两个线程同时各卖出500股，两笔都应成功
+        for (int round = 0; round < 50; round++) {
+            Transaction buy = new Transaction(sampleTransaction);
+            buy.setId(ids.incrementAndGet());
+            positionBook.add(buy);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<TransactionResponse>> futures = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return transactionService.createTransaction(validRequest);
+                }));
+            }
+            start.countDown();
+            for (Future<TransactionResponse> future : futures) {
+                assertNotNull(future.get(10, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(0L, positionBook.available("1234567890123456", "000001"));
+        }
+        executor.shutdown();
+        
+        assertEquals(0L, positionBook.get("1234567890123456", "000001").netUnits());
+        verify(transactionRepository, times(100)).save(any(Transaction.class));
+    }
+    
+    @Test
+    void testCreateTransactions_SellsShareHoldingsWithinBatch() {
+        // Arrange
+        positionBook.add(sampleTransaction);
+        validRequest.setTransType(TransactionType.SELL);
+        validRequest.setUnit(600L);
+        validRequest.setAmount(new BigDecimal("6000.00"));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> saved = invocation.getArgument(0);
+            saved.forEach(transaction -> transaction.setId(2L));
+            return saved;
+        });
+        
+        // Act
+        List<BatchItemResult> results = transactionService.createTransactions(List.of(validRequest, validRequest));
+        
+        // Assert - 第二笔卖出看到第一笔的预占
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(400L, positionBook.get("1234567890123456", "000001").netUnits());
+        assertEquals(400L, positionBook.available("1234567890123456", "000001"));
+    }
+    
+    @Test
+    void testCreateTransactions_EmptyBatch() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> {
+            transactionService.createTransactions(List.of());
+        });
+        
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+    
     @Test
     void testGetTransaction_Success() {
         // Arrange
@@ -154,6 +380,7 @@ class TransactionServiceTest {
     void testUpdateTransaction_Success() {
         // Arrange
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
         when(transactionRepository.save(any(Transaction.class))).thenReturn(sampleTransaction);
         
         TransactionRequest updateRequest = new TransactionRequest();
@@ -174,7 +401,9 @@ class TransactionServiceTest {
         assertNotNull(response);
         assertEquals(1L, response.getId());
         
-        verify(transactionRepository, times(1)).findById(1L);
+        // 加锁前读取一次确定账户，加锁后再读取一次
+        verify(transactionRepository).findById(1L);
+        verify(transactionRepository).findCurrentById(1L);
         verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
     
@@ -192,10 +421,84 @@ class TransactionServiceTest {
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
     
+    @Test
+    void testUpdateTransaction_IfMatchUpdatesWithoutRead() {
+        // Arrange：条件更新成功，返回更新前的交易并补全新版本号
+        sampleTransaction.setVersion(2L);
+        positionBook.add(sampleTransaction);
+        when(transactionRepository.updateIfVersion(any(Transaction.class), eq(2L))).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            transaction.setTimestamp(sampleTransaction.getTimestamp());
+            transaction.setVersion(3L);
+            return Optional.of(sampleTransaction);
+        });
+        validRequest.setUnit(500L);
+        validRequest.setAmount(new BigDecimal("5000.00"));
+        
+        // Act
+        TransactionResponse response = transactionService.updateTransaction(1L, validRequest, 2L);
+        
+        // Assert
+        assertEquals(3L, response.getVersion());
+        assertEquals(500L, response.getUnit());
+        assertEquals(500L, positionBook.get("1234567890123456", "000001").netUnits());
+        verify(transactionRepository, never()).findById(anyLong());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+    
+    @Test
+    void testUpdateTransaction_IfMatchStaleVersionConflicts() {
+        // Arrange
+        sampleTransaction.setVersion(3L);
+        when(transactionRepository.updateIfVersion(any(Transaction.class), eq(2L))).thenReturn(Optional.empty());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        
+        // Act & Assert
+        assertThrows(TransactionVersionConflictException.class,
+                () -> transactionService.updateTransaction(1L, validRequest, 2L));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+    
+    @Test
+    void testUpdateTransaction_IfMatchNotFound() {
+        // Arrange
+        when(transactionRepository.updateIfVersion(any(Transaction.class), eq(0L))).thenReturn(Optional.empty());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.empty());
+        
+        // Act & Assert
+        assertThrows(TransactionNotFoundException.class,
+                () -> transactionService.updateTransaction(1L, validRequest, 0L));
+    }
+    
+    @Test
+    void testUpdateTransaction_IfMatchMovesToOtherAccountThroughReadPath() {
+        // Arrange：交易属于其他账户时条件更新不生效，按读取路径在两个账户的锁内更新
+        sampleTransaction.setAccountNumber("6543210987654321");
+        sampleTransaction.setVersion(2L);
+        when(transactionRepository.updateIfVersion(any(Transaction.class), eq(2L))).thenReturn(Optional.empty());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            transaction.setVersion(transaction.getVersion() + 1);
+            return transaction;
+        });
+        
+        // Act
+        TransactionResponse response = transactionService.updateTransaction(1L, validRequest, 2L);
+        
+        // Assert
+        assertEquals("1234567890123456", response.getAccountNumber());
+        assertEquals(3L, response.getVersion());
+        verify(accountSequencer).execute(eq(Set.of("6543210987654321", "1234567890123456")), any());
+    }
+    
     @Test
     void testDeleteTransaction_Success() {
         // Arrange
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
         when(transactionRepository.deleteById(1L)).thenReturn(true);
         
         // Act
@@ -204,7 +507,8 @@ class TransactionServiceTest {
         });
         
         // Assert
-        verify(transactionRepository, times(1)).findById(1L);
+        verify(transactionRepository).findById(1L);
+        verify(transactionRepository).findCurrentById(1L);
         verify(transactionRepository, times(1)).deleteById(1L);
     }
     
@@ -225,8 +529,7 @@ class TransactionServiceTest {
     @Test
     void testGetAllTransactions() {
         // Arrange
-        List<Transaction> transactions = Arrays.asList(sampleTransaction);
-        when(transactionRepository.findAll()).thenReturn(transactions);
+        when(transactionRepository.findAllResponses()).thenReturn(List.of(new TransactionResponse(sampleTransaction)));
         
         // Act
         List<TransactionResponse> responses = transactionService.getAllTransactions();
@@ -236,14 +539,14 @@ class TransactionServiceTest {
         assertEquals(1, responses.size());
         assertEquals(1L, responses.get(0).getId());
         
-        verify(transactionRepository, times(1)).findAll();
+        verify(transactionRepository, times(1)).findAllResponses();
+        verify(transactionRepository, never()).findAll();
     }
     
     @Test
     void testGetTransactions_Pagination() {
         // Arrange
-        List<Transaction> transactions = Arrays.asList(sampleTransaction);
-        when(transactionRepository.findAll(0, 10)).thenReturn(transactions);
+        when(transactionRepository.findResponses(0, 10)).thenReturn(List.of(new TransactionResponse(sampleTransaction)));
         
         // Act
         List<TransactionResponse> responses = transactionService.getTransactions(0, 10);
@@ -252,7 +555,7 @@ class TransactionServiceTest {
         assertNotNull(responses);
         assertEquals(1, responses.size());
         
-        verify(transactionRepository, times(1)).findAll(0, 10);
+        verify(transactionRepository, times(1)).findResponses(0, 10);
     }
     
     @Test
@@ -267,11 +570,404 @@ class TransactionServiceTest {
         });
     }
     
+    @Test
+    void testGetTransactionsAfter_KeysetPagination() {
+        // Arrange
+        Transaction second = new Transaction(sampleTransaction);
+        second.setId(2L);
+        second.setTimestamp(sampleTransaction.getTimestamp().minusSeconds(1));
+        when(transactionRepository.findResponsePageAfter(null, null, 2)).thenReturn(Arrays.asList(
+                new TransactionResponse(sampleTransaction), new TransactionResponse(second)));
+        when(transactionRepository.findResponsePageAfter(sampleTransaction.getTimestamp(), 1L, 2))
+                .thenReturn(List.of(new TransactionResponse(second)));
+        
+        // Act
+        CursorPage<TransactionResponse> firstPage = transactionService.getTransactionsAfter("", 1);
+        CursorPage<TransactionResponse> secondPage = transactionService.getTransactionsAfter(firstPage.getNextCursor(), 1);
+        
+        // Assert
+        assertEquals(1, firstPage.getItems().size());
+        assertTrue(firstPage.isHasMore());
+        KeysetCursor cursor = KeysetCursor.decode(firstPage.getNextCursor());
+        assertEquals(sampleTransaction.getTimestamp(), cursor.getTimestamp());
+        assertEquals(1L, cursor.getId());
+        
+        assertEquals(2L, secondPage.getItems().get(0).getId());
+        assertFalse(secondPage.isHasMore());
+        assertNull(secondPage.getNextCursor());
+        
+        verify(transactionRepository, never()).count();
+    }
+    
+    @Test
+    void testGetTransactionsAfter_InvalidCursor() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> {
+            transactionService.getTransactionsAfter("not-a-cursor", 10);
+        });
+    }
+    
+    @Test
+    void testSearchByDescription_FollowsCreateUpdateDelete() {
+        // Arrange
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId(2L);
+            }
+            return saved;
+        });
+        descriptionIndex.add(sampleTransaction);
+        
+        // Act & Assert - 新建交易可检索，结果按时间倒序
+        transactionService.createTransaction(validRequest);
+        ArgumentCaptor<Transaction> created = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(created.capture());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findById(2L)).thenReturn(Optional.of(created.getValue()));
+        when(transactionRepository.findCurrentById(2L)).thenReturn(Optional.of(created.getValue()));
+        
+        CursorPage<TransactionResponse> firstPage = transactionService.searchByDescription("平安银行", false, null, 1);
+        assertEquals(2L, firstPage.getItems().get(0).getId());
+        assertTrue(firstPage.isHasMore());
+        CursorPage<TransactionResponse> secondPage = transactionService.searchByDescription("平安银行", false, firstPage.getNextCursor(), 1);
+        assertEquals(1L, secondPage.getItems().get(0).getId());
+        assertFalse(secondPage.isHasMore());
+        
+        // Act & Assert - 更新描述后旧词项不再命中
+        validRequest.setDescription("Rebalance holdings");
+        transactionService.updateTransaction(1L, validRequest);
+        assertEquals(List.of(2L), transactionService.searchByDescription("平安", false, null, 10).getItems()
+                .stream().map(TransactionResponse::getId).toList());
+        assertEquals(1, transactionService.searchByDescription("reb", true, null, 10).getItems().size());
+        
+        // Act & Assert - 删除后不再命中
+        when(transactionRepository.deleteById(2L)).thenReturn(true);
+        transactionService.deleteTransaction(2L);
+        assertTrue(transactionService.searchByDescription("平安", false, null, 10).getItems().isEmpty());
+        verify(transactionRepository, never()).findByDescriptionContaining(any());
+    }
+    
+    @Test
+    void testSearchByDescription_InvalidArguments() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> transactionService.searchByDescription(" ", false, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.searchByDescription("平安", false, null, 0));
+    }
+    
+    @Test
+    void testAmountQueries_FollowUpdateAndDelete() {
+        // Arrange
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Transaction small = new Transaction(sampleTransaction);
+        small.setId(2L);
+        small.setAmount(new BigDecimal("500.00"));
+        amountIndex.add(sampleTransaction);
+        amountIndex.add(small);
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findById(2L)).thenReturn(Optional.of(small));
+        when(transactionRepository.findCurrentById(2L)).thenReturn(Optional.of(small));
+        
+        // Act & Assert
+        assertEquals(List.of(1L), transactionService.getLargestTransactions(new BigDecimal("500.00"), 100)
+                .stream().map(TransactionResponse::getId).toList());
+        assertEquals(List.of(2L, 1L), transactionService.getTransactionsByAmountRange(BigDecimal.ZERO, new BigDecimal("10000"), 100)
+                .stream().map(TransactionResponse::getId).toList());
+        
+        // Act & Assert - 更新金额后按新金额排序
+        validRequest.setUnit(10L);
+        validRequest.setAmount(new BigDecimal("100.00"));
+        transactionService.updateTransaction(1L, validRequest);
+        assertTrue(transactionService.getLargestTransactions(new BigDecimal("500.00"), 100).isEmpty());
+        assertEquals(List.of(1L, 2L), transactionService.getTransactionsByAmountRange(BigDecimal.ZERO, new BigDecimal("10000"), 100)
+                .stream().map(TransactionResponse::getId).toList());
+        
+        // Act & Assert - 删除后不再返回
+        when(transactionRepository.deleteById(2L)).thenReturn(true);
+        transactionService.deleteTransaction(2L);
+        assertEquals(1, transactionService.getTransactionsByAmountRange(BigDecimal.ZERO, new BigDecimal("10000"), 100).size());
+        verify(transactionRepository, never()).findByAmountBetween(any(), any());
+        verify(transactionRepository, never()).findLargeTransactions(any());
+    }
+    
+    @Test
+    void testAmountQueries_InvalidArguments() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getTransactionsByAmountRange(BigDecimal.TEN, BigDecimal.ONE, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getTransactionsByAmountRange(null, BigDecimal.ONE, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getLargestTransactions(null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getLargestTransactions(BigDecimal.ONE, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getLargestTransactions(BigDecimal.ONE, TransactionService.MAX_QUERY_LIMIT + 1));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetRangeStatistics_FollowsUpdateAndDelete() {
+        // Arrange
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LocalDateTime minute = LocalDateTime.of(2024, 3, 4, 9, 30);
+        sampleTransaction.setTimestamp(minute.plusSeconds(15));
+        timeBucketIndex.add(sampleTransaction);
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        
+        // Act & Assert
+        Map<String, Object> statistics = transactionService.getRangeStatistics("000001", minute, minute.plusMinutes(1));
+        assertEquals(1000L, ((Map<String, Object>) statistics.get("buyStatistics")).get("totalUnits"));
+        assertEquals(1L, statistics.get("totalTransactions"));
+        assertEquals(0L, transactionService.getRangeStatistics(null, minute.plusMinutes(1), minute.plusDays(1))
+                .get("totalTransactions"));
+        
+        // Act & Assert - 更新为卖出后计入卖出统计
+        validRequest.setTransType(TransactionType.SELL);
+        transactionService.updateTransaction(1L, validRequest);
+        statistics = transactionService.getRangeStatistics(null, minute, minute.plusMinutes(1));
+        assertEquals(0L, ((Map<String, Object>) statistics.get("buyStatistics")).get("transactionCount"));
+        assertEquals(1000L, ((Map<String, Object>) statistics.get("sellStatistics")).get("totalUnits"));
+        
+        // Act & Assert - 删除后清零
+        ArgumentCaptor<Transaction> updated = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(updated.capture());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(updated.getValue()));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(updated.getValue()));
+        when(transactionRepository.deleteById(1L)).thenReturn(true);
+        transactionService.deleteTransaction(1L);
+        assertEquals(0L, transactionService.getRangeStatistics("000001", minute, minute.plusMinutes(1))
+                .get("totalTransactions"));
+        verify(transactionRepository, never()).countTransactionsBetween(any(), any());
+    }
+    
+    @Test
+    void testGetRangeStatistics_InvalidRange() {
+        // Arrange
+        LocalDateTime minute = LocalDateTime.of(2024, 3, 4, 9, 30);
+        
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getRangeStatistics(null, null, minute));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getRangeStatistics(null, minute, minute));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getRangeStatistics(null, minute.plusSeconds(30), minute.plusMinutes(5)));
+    }
+    
+    @Test
+    void testFilterTransactions_FollowsCreateUpdateDelete() {
+        // Arrange
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId(2L);
+            }
+            return saved;
+        });
+        bitmapIndex.add(sampleTransaction);
+        transactionService.createTransaction(validRequest);
+        ArgumentCaptor<Transaction> created = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(created.capture());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findById(2L)).thenReturn(Optional.of(created.getValue()));
+        when(transactionRepository.findCurrentById(2L)).thenReturn(Optional.of(created.getValue()));
+        AttributeFilter buys = AttributeFilter.allOf(AttributeFilter.in("securityCode", "000001"),
+                AttributeFilter.in("transType", "BUY"));
+        
+        // Act & Assert - 按ID倒序分页
+        CursorPage<TransactionResponse> firstPage = transactionService.filterTransactions(buys, null, 1);
+        assertEquals(2L, firstPage.getTotal());
+        assertEquals(2L, firstPage.getItems().get(0).getId());
+        assertEquals("2", firstPage.getNextCursor());
+        CursorPage<TransactionResponse> secondPage = transactionService.filterTransactions(buys, firstPage.getNextCursor(), 1);
+        assertEquals(1L, secondPage.getItems().get(0).getId());
+        assertFalse(secondPage.isHasMore());
+        
+        // Act & Assert - 更新为卖出后不再匹配买入
+        validRequest.setTransType(TransactionType.SELL);
+        transactionService.updateTransaction(1L, validRequest);
+        assertEquals(1L, transactionService.filterTransactions(buys, null, 10).getTotal());
+        
+        // Act & Assert - 删除后不再匹配
+        when(transactionRepository.deleteById(2L)).thenReturn(true);
+        transactionService.deleteTransaction(2L);
+        assertEquals(0L, transactionService.filterTransactions(buys, null, 10).getTotal());
+        verify(transactionRepository, never()).findAll();
+    }
+    
+    @Test
+    void testPositionBook_FollowsCreateUpdateDelete() {
+        // Arrange
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId(2L);
+                saved.setTimestamp(sampleTransaction.getTimestamp().plusMinutes(1));
+            }
+            return saved;
+        });
+        positionBook.add(sampleTransaction);
+        transactionService.createTransaction(validRequest);
+        ArgumentCaptor<Transaction> created = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(created.capture());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findById(2L)).thenReturn(Optional.of(created.getValue()));
+        when(transactionRepository.findCurrentById(2L)).thenReturn(Optional.of(created.getValue()));
+        
+        // Act & Assert
+        assertEquals(2000L, positionBook.get("1234567890123456", "000001").netUnits());
+        
+        // Act & Assert - 更新为卖出后净持仓抵消
+        validRequest.setTransType(TransactionType.SELL);
+        transactionService.updateTransaction(1L, validRequest);
+        PositionBook.Position position = positionBook.get("1234567890123456", "000001");
+        assertEquals(0L, position.netUnits());
+        assertEquals(1000L, position.soldUnits());
+        
+        // Act & Assert - 删除买入后只剩卖出，最近成交时间回退到剩余交易
+        when(transactionRepository.deleteById(2L)).thenReturn(true);
+        transactionService.deleteTransaction(2L);
+        position = positionBook.get("1234567890123456", "000001");
+        assertEquals(-1000L, position.netUnits());
+        assertEquals(sampleTransaction.getTimestamp(), position.lastTradeTime());
+    }
+    
+    @Test
+    void testLotBook_FollowsCreateUpdateDelete() {
+        // Arrange
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId(2L);
+                saved.setTimestamp(sampleTransaction.getTimestamp().plusMinutes(1));
+            }
+            return saved;
+        });
+        positionBook.add(sampleTransaction);
+        lotBook.add(sampleTransaction);
+        validRequest.setTransType(TransactionType.SELL);
+        validRequest.setUnit(500L);
+        validRequest.setPrice(new BigDecimal("12.00"));
+        validRequest.setAmount(new BigDecimal("6000.00"));
+        transactionService.createTransaction(validRequest);
+        ArgumentCaptor<Transaction> created = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(created.capture());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        
+        // Act & Assert - 卖出按买入成本结转
+        LotBook.LotPosition position = lotBook.get("1234567890123456", "000001", CostMethod.FIFO);
+        assertEquals(500L, position.openUnits());
+        assertEquals(new BigDecimal("1000.0000"), position.realizedPnl().toBigDecimal());
+        
+        // Act & Assert - 更新更早的买入后，后续卖出按新成本重新结转
+        validRequest.setTransType(TransactionType.BUY);
+        validRequest.setUnit(1000L);
+        validRequest.setPrice(new BigDecimal("8.00"));
+        validRequest.setAmount(new BigDecimal("8000.00"));
+        transactionService.updateTransaction(1L, validRequest);
+        position = lotBook.get("1234567890123456", "000001", CostMethod.AVERAGE);
+        assertEquals(new BigDecimal("4000.0000"), position.costBasis().toBigDecimal());
+        assertEquals(new BigDecimal("2000.0000"), position.realizedPnl().toBigDecimal());
+        
+        // Act & Assert - 删除买入后卖出无可结转的持仓
+        when(transactionRepository.deleteById(1L)).thenReturn(true);
+        transactionService.deleteTransaction(1L);
+        position = lotBook.get("1234567890123456", "000001", CostMethod.FIFO);
+        assertEquals(0L, position.openUnits());
+        assertEquals(500L, position.unmatchedSellUnits());
+        assertEquals(0, position.realizedPnl().signum());
+    }
+    
+    @Test
+    void testFilterTransactions_InvalidCursor() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.filterTransactions(AttributeFilter.in("currency", "CNY"), "abc", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.filterTransactions(AttributeFilter.in("currency", "CNY"), null, 0));
+    }
+    
+    @Test
+    void testSearchTransactions_PushesFilterAndCursorToRepository() {
+        // Arrange
+        Transaction older = new Transaction();
+        older.setId(3L);
+        older.setTimestamp(sampleTransaction.getTimestamp().minusMinutes(1));
+        TransactionSearchRequest request = new TransactionSearchRequest();
+        request.setAccountNumber("1234567890123456");
+        request.setSize(1);
+        when(transactionRepository.search(same(request), isNull(), eq(2)))
+                .thenReturn(Arrays.asList(sampleTransaction, older));
+        
+        // Act & Assert - 多取一条判断是否有下一页
+        CursorPage<?> firstPage = transactionService.searchTransactions(request);
+        assertEquals(1, firstPage.getItems().size());
+        assertEquals(1L, ((TransactionResponse) firstPage.getItems().get(0)).getId());
+        assertTrue(firstPage.isHasMore());
+        
+        // Act & Assert - 游标携带上一页最后一条的排序值和ID
+        request.setCursor(firstPage.getNextCursor());
+        when(transactionRepository.search(same(request), argThat(cursor -> cursor != null
+                && cursor.getId() == 1L && sampleTransaction.getTimestamp().equals(cursor.getValue())), eq(2)))
+                .thenReturn(List.of(older));
+        CursorPage<?> secondPage = transactionService.searchTransactions(request);
+        assertEquals(3L, ((TransactionResponse) secondPage.getItems().get(0)).getId());
+        assertFalse(secondPage.isHasMore());
+        verify(transactionRepository, never()).findAll();
+    }
+    
+    @Test
+    void testSearchTransactions_SummaryProjection() {
+        // Arrange
+        TransactionSearchRequest request = new TransactionSearchRequest();
+        request.setSortBy(TransactionSortField.AMOUNT);
+        request.setDescending(false);
+        request.setProjection(TransactionSearchRequest.Projection.SUMMARY);
+        TransactionSummary summary = new TransactionSummary(1L, "1234567890123456", "000001", TransactionType.BUY,
+                1000L, new BigDecimal("10000.00"), LocalDate.now(), LocalDateTime.now());
+        when(transactionRepository.searchSummaries(same(request), isNull(), eq(21))).thenReturn(List.of(summary));
+        
+        // Act
+        CursorPage<?> page = transactionService.searchTransactions(request);
+        
+        // Assert - 只查询摘要列，不加载实体
+        assertSame(summary, page.getItems().get(0));
+        assertFalse(page.isHasMore());
+        verify(transactionRepository, never()).search(any(), any(), anyInt());
+    }
+    
+    @Test
+    void testSearchTransactions_InvalidRequest() {
+        // Arrange
+        TransactionSearchRequest amountRange = new TransactionSearchRequest();
+        amountRange.setMinAmount(new BigDecimal("100"));
+        amountRange.setMaxAmount(new BigDecimal("10"));
+        TransactionSearchRequest oversized = new TransactionSearchRequest();
+        oversized.setSize(TransactionService.MAX_QUERY_LIMIT + 1);
+        TransactionSearchRequest garbledCursor = new TransactionSearchRequest();
+        garbledCursor.setCursor("not-a-cursor");
+        TransactionSearchRequest otherSort = new TransactionSearchRequest();
+        otherSort.setSortBy(TransactionSortField.AMOUNT);
+        otherSort.setCursor(new SearchCursor(TransactionSortField.TIMESTAMP, true, LocalDateTime.now(), 1L).encode());
+        
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> transactionService.searchTransactions(amountRange));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.searchTransactions(oversized));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.searchTransactions(garbledCursor));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.searchTransactions(otherSort));
+        verifyNoInteractions(transactionRepository);
+    }
+    
     @Test
     void testGetTransactionsByAccount() {
         // Arrange
-        List<Transaction> transactions = Arrays.asList(sampleTransaction);
-        when(transactionRepository.findByAccountNumber("1234567890123456")).thenReturn(transactions);
+        when(transactionRepository.findResponsesByAccountNumber("1234567890123456"))
+                .thenReturn(List.of(new TransactionResponse(sampleTransaction)));
         
         // Act
         List<TransactionResponse> responses = transactionService.getTransactionsByAccount("1234567890123456");
@@ -281,7 +977,8 @@ class TransactionServiceTest {
         assertEquals(1, responses.size());
         assertEquals("1234567890123456", responses.get(0).getAccountNumber());
         
-        verify(transactionRepository, times(1)).findByAccountNumber("1234567890123456");
+        verify(transactionRepository, times(1)).findResponsesByAccountNumber("1234567890123456");
+        verify(transactionRepository, never()).findByAccountNumber(anyString());
     }
     
     @Test
@@ -299,8 +996,8 @@ class TransactionServiceTest {
     @Test
     void testGetTransactionsByType() {
         // Arrange
-        List<Transaction> transactions = Arrays.asList(sampleTransaction);
-        when(transactionRepository.findByType(TransactionType.BUY)).thenReturn(transactions);
+        when(transactionRepository.findResponsesByType(TransactionType.BUY))
+                .thenReturn(List.of(new TransactionResponse(sampleTransaction)));
         
         // Act
         List<TransactionResponse> responses = transactionService.getTransactionsByType(TransactionType.BUY);
@@ -310,7 +1007,7 @@ class TransactionServiceTest {
         assertEquals(1, responses.size());
         assertEquals(TransactionType.BUY, responses.get(0).getTransType());
         
-        verify(transactionRepository, times(1)).findByType(TransactionType.BUY);
+        verify(transactionRepository, times(1)).findResponsesByType(TransactionType.BUY);
     }
     
     @Test
@@ -330,8 +1027,8 @@ class TransactionServiceTest {
     @Test
     void testGetSecurityStatistics() {
         // Arrange
-        List<Transaction> transactions = Arrays.asList(sampleTransaction);
-        when(transactionRepository.findAll()).thenReturn(transactions);
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(sampleTransaction);
+        transactionService.createTransaction(validRequest);
         
         // Act
         Map<String, Object> statistics = transactionService.getSecurityStatistics("000001", "1234567890123456");
@@ -343,5 +1040,134 @@ class TransactionServiceTest {
         assertNotNull(statistics.get("buyStatistics"));
         assertNotNull(statistics.get("sellStatistics"));
         assertNotNull(statistics.get("netPosition"));
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Object> buyStatistics = (Map<String, Object>) statistics.get("buyStatistics");
+        assertEquals(1000L, buyStatistics.get("totalUnits"));
+        assertEquals(0, new BigDecimal("10000.00").compareTo((BigDecimal) buyStatistics.get("totalAmount")));
+        // 金额按金额列的2位小数返回，均价保持4位小数
+        assertEquals(new BigDecimal("10000.00"), buyStatistics.get("totalAmount"));
+        assertEquals(new BigDecimal("10.0000"), buyStatistics.get("averagePrice"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> netPosition = (Map<String, Object>) statistics.get("netPosition");
+        assertEquals(new BigDecimal("10000.00"), netPosition.get("netAmount"));
+        
+        verify(transactionRepository, never()).findAll();
+    }
+    
+    @Test
+    void testGetSecurityStatistics_AfterUpdateAndDelete() {
+        // Arrange
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        statisticsIndex.add(sampleTransaction);
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        
+        TransactionRequest sellRequest = new TransactionRequest();
+        sellRequest.setAccountNumber("1234567890123456");
+        sellRequest.setAmount(new BigDecimal("5000.00"));
+        sellRequest.setTransType(TransactionType.SELL);
+        sellRequest.setUnit(500L);
+        sellRequest.setPrice(new BigDecimal("10.00"));
+        sellRequest.setTransDate(LocalDate.now());
+        sellRequest.setSecurityCode("000001");
+        sellRequest.setCurrency("CNY");
+        
+        // Act & Assert - 更新后买入统计移出，卖出统计计入
+        transactionService.updateTransaction(1L, sellRequest);
+        assertEquals(0, statisticsIndex.get("000001", "1234567890123456", LocalDate.now(), TransactionType.BUY).transactionCount());
+        assertEquals(500L, statisticsIndex.get("000001", "1234567890123456", LocalDate.now(), TransactionType.SELL).totalUnits());
+        
+        // Act & Assert - 删除后统计清零
+        ArgumentCaptor<Transaction> updated = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(updated.capture());
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(updated.getValue()));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(updated.getValue()));
+        when(transactionRepository.deleteById(1L)).thenReturn(true);
+        transactionService.deleteTransaction(1L);
+        assertEquals(0, statisticsIndex.size());
+    }
+    
+    @Test
+    void testUpdateTransaction_DoesNotMutateLoadedEntityOnFailure() {
+        // Arrange
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        validRequest.setAmount(new BigDecimal("1.00"));
+        validRequest.setTransType(TransactionType.SELL);
+        
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> {
+            transactionService.updateTransaction(1L, validRequest);
+        });
+        assertEquals(TransactionType.BUY, sampleTransaction.getTransType());
+        assertEquals(new BigDecimal("10000.00"), sampleTransaction.getAmount());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+    
+    @Test
+    void testUpdateTransaction_ConcurrentUpdatesOfSameIdAreSequenced() throws Exception {
+        // Arrange：仓库按单行存储，save 故意放慢以放大读-改-写的竞争窗口
+        AtomicReference<Transaction> row = new AtomicReference<>(sampleTransaction);
+        positionBook.add(sampleTransaction);
+        when(transactionRepository.findById(1L)).thenAnswer(invocation -> Optional.of(new Transaction(row.get())));
+        when(transactionRepository.findCurrentById(1L)).thenAnswer(invocation -> Optional.of(new Transaction(row.get())));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            Thread.sleep(1);
+            row.set(saved);
+            return saved;
+        });
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long unit = 100L * (t + 1);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20; i++) {
+                    TransactionRequest request = new TransactionRequest();
+                    request.setAccountNumber("1234567890123456");
+                    request.setAmount(new BigDecimal(unit * 10));
+                    request.setTransType(TransactionType.BUY);
+                    request.setUnit(unit);
+                    request.setPrice(new BigDecimal("10.00"));
+                    request.setTransDate(LocalDate.now());
+                    request.setSecurityCode("000001");
+                    request.setCurrency("CNY");
+                    transactionService.updateTransaction(1L, request);
+                }
+                return null;
+            }));
+        }
+        
+        // Act
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Assert：每次更新都基于上一次写入的结果，持仓簿与仓库中的最终行一致
+        PositionBook.Position position = positionBook.get("1234567890123456", "000001");
+        assertEquals(row.get().getUnit(), position.netUnits());
+        assertEquals(1, position.tradeCount());
+        assertEquals(0, accountSequencer.getQueueDepth());
+    }
+    
+    @Test
+    void testDeleteTransaction_EvictsOnlyAffectedAccount() {
+        // Arrange
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.findCurrentById(1L)).thenReturn(Optional.of(sampleTransaction));
+        when(transactionRepository.deleteById(1L)).thenReturn(true);
+        
+        // Act
+        transactionService.deleteTransaction(1L);
+        
+        // Assert
+        verify(cacheEvictor, times(1)).evictAccounts(List.of("1234567890123456"));
+        verify(cacheEvictor, never()).clearAll();
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file